@@ -0,0 +1,61 @@
+package com.shashi.benchmarks;
+
+import com.shashi.utility.DBUtil;
+import com.shashi.utility.EmbeddedDatabase;
+
+//Embedded database shared by the benchmarks, the dbProfile=embedded database of the application
+//
+//The data is kept in a file under target/, so the 10M history rows are only generated by the
+//first run (expect several minutes for the default volumes). Set -Dbench.trains, -Dbench.customers
+//or -Dbench.history to change the volumes, a different volume regenerates the data.
+//With -Dbench.profile=oracle the benchmarks run on the Oracle database of application.properties
+//(or -DconnectionString, -Dusername, -Dpassword) instead, which must already hold the data
+public class BenchmarkDatabase {
+
+	public static final int TRAINS = Integer.getInteger("bench.trains", 100000);
+
+	public static final int CUSTOMERS = Integer.getInteger("bench.customers", 100000);
+
+	public static final int HISTORY = Integer.getInteger("bench.history", 10000000);
+
+	public static final int STATIONS = EmbeddedDatabase.STATIONS;
+
+	public static final long FIRST_TRAIN_NO = EmbeddedDatabase.FIRST_TRAIN_NO;
+
+	private static final String URL = System.getProperty("bench.url",
+			"jdbc:h2:file:./target/benchdb/reservation;MODE=Oracle;DB_CLOSE_ON_EXIT=FALSE");
+
+	private static boolean ready;
+
+	private BenchmarkDatabase() {
+	}
+
+	// Points DBUtil at the embedded database and fills it when needed, call before any service
+	public static synchronized void setUp() throws Exception {
+		if (ready) {
+			return;
+		}
+		if (!"oracle".equalsIgnoreCase(System.getProperty("bench.profile"))) {
+			System.setProperty("dbProfile", "embedded");
+			System.setProperty("embeddedUrl", URL);
+			System.setProperty("embeddedTrains", String.valueOf(TRAINS));
+			System.setProperty("embeddedCustomers", String.valueOf(CUSTOMERS));
+			System.setProperty("embeddedHistory", String.valueOf(HISTORY));
+		}
+
+		DBUtil.getConnection();
+		ready = true;
+	}
+
+	public static String customerMail(long n) {
+		return EmbeddedDatabase.customerMail(n);
+	}
+
+	public static String customerPassword(long n) {
+		return EmbeddedDatabase.customerPassword(n);
+	}
+
+	public static String station(long n) {
+		return EmbeddedDatabase.station(n);
+	}
+}
@@ -0,0 +1,60 @@
+package com.shashi.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.shashi.beans.HistoryBean;
+import com.shashi.beans.TrainException;
+import com.shashi.service.BookingService;
+import com.shashi.service.impl.BookingServiceImpl;
+
+//createHistory adds a booking (and its outbox event) on every call, on top of the generated ones
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BookingServiceBenchmark {
+
+	private BookingService bookingService;
+
+	@Setup
+	public void setUp() throws Exception {
+		BenchmarkDatabase.setUp();
+		bookingService = new BookingServiceImpl();
+	}
+
+	@Benchmark
+	public HistoryBean createHistory() throws TrainException {
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		int seats = 1 + random.nextInt(6);
+		HistoryBean details = new HistoryBean();
+		details.setMailId(BenchmarkDatabase.customerMail(1 + random.nextInt(BenchmarkDatabase.CUSTOMERS)));
+		details.setTr_no(String.valueOf(BenchmarkDatabase.FIRST_TRAIN_NO + random.nextInt(BenchmarkDatabase.TRAINS)));
+		details.setDate("15-Aug-2024");
+		details.setFrom_stn("STN1");
+		details.setTo_stn("STN20");
+		details.setSeats(seats);
+		details.setAmount(250.5 * seats);
+		return bookingService.createHistory(details);
+	}
+
+	@Benchmark
+	public List<HistoryBean> getAllBookingsByCustomerId() throws TrainException {
+		int customer = 1 + ThreadLocalRandom.current().nextInt(BenchmarkDatabase.CUSTOMERS);
+		return bookingService.getAllBookingsByCustomerId(BenchmarkDatabase.customerMail(customer));
+	}
+}
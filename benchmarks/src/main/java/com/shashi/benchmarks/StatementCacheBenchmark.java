@@ -0,0 +1,65 @@
+package com.shashi.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.shashi.beans.TrainBean;
+import com.shashi.beans.TrainException;
+import com.shashi.service.TrainService;
+import com.shashi.service.impl.TrainServiceImpl;
+
+//The hot train reads with and without the StatementCache of DBUtil. Every fork starts a new JVM,
+//so each statementCacheSize gets a DBUtil of its own
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StatementCacheBenchmark {
+
+	@Param({ "0", "50" })
+	public int statementCacheSize;
+
+	private TrainService trainService;
+
+	@Setup
+	public void setUp() throws Exception {
+		System.setProperty("dbStatementCacheSize", String.valueOf(statementCacheSize));
+		BenchmarkDatabase.setUp();
+		trainService = new TrainServiceImpl();
+	}
+
+	@Benchmark
+	public TrainBean getTrainById() throws TrainException {
+		return trainService.getTrainById(String.valueOf(randomTrainNo()));
+	}
+
+	// the IN list of 100 numbers is the longest statement to parse
+	@Benchmark
+	public List<TrainBean> getTrainsByIds() throws TrainException {
+		List<String> trainNos = new ArrayList<String>(100);
+		for (int i = 0; i < 100; i++) {
+			trainNos.add(String.valueOf(randomTrainNo()));
+		}
+		return trainService.getTrainsByIds(trainNos);
+	}
+
+	private static long randomTrainNo() {
+		return BenchmarkDatabase.FIRST_TRAIN_NO + ThreadLocalRandom.current().nextInt(BenchmarkDatabase.TRAINS);
+	}
+}
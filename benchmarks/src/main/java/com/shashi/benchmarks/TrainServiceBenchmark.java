@@ -0,0 +1,52 @@
+package com.shashi.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.shashi.beans.TrainBean;
+import com.shashi.beans.TrainException;
+import com.shashi.service.TrainService;
+import com.shashi.service.impl.TrainServiceImpl;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TrainServiceBenchmark {
+
+	private TrainService trainService;
+
+	@Setup
+	public void setUp() throws Exception {
+		BenchmarkDatabase.setUp();
+		trainService = new TrainServiceImpl();
+	}
+
+	@Benchmark
+	public TrainBean getTrainById() throws TrainException {
+		long trainNo = BenchmarkDatabase.FIRST_TRAIN_NO
+				+ ThreadLocalRandom.current().nextInt(BenchmarkDatabase.TRAINS);
+		return trainService.getTrainById(String.valueOf(trainNo));
+	}
+
+	@Benchmark
+	public List<TrainBean> getTrainsBetweenStations() throws TrainException {
+		int n = ThreadLocalRandom.current().nextInt(BenchmarkDatabase.STATIONS);
+		return trainService.getTrainsBetweenStations(BenchmarkDatabase.station(n),
+				BenchmarkDatabase.station(n * 7 + 13));
+	}
+}
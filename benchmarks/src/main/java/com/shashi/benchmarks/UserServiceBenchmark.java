@@ -0,0 +1,45 @@
+package com.shashi.benchmarks;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.shashi.beans.TrainException;
+import com.shashi.beans.UserBean;
+import com.shashi.constant.UserRole;
+import com.shashi.service.UserService;
+import com.shashi.service.impl.UserServiceImpl;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserServiceBenchmark {
+
+	private UserService userService;
+
+	@Setup
+	public void setUp() throws Exception {
+		BenchmarkDatabase.setUp();
+		userService = new UserServiceImpl(UserRole.CUSTOMER);
+	}
+
+	@Benchmark
+	public UserBean loginUser() throws TrainException {
+		int customer = 1 + ThreadLocalRandom.current().nextInt(BenchmarkDatabase.CUSTOMERS);
+		return userService.loginUser(BenchmarkDatabase.customerMail(customer),
+				BenchmarkDatabase.customerPassword(customer));
+	}
+}
@@ -0,0 +1,50 @@
+package com.shashi.loadtest;
+
+import java.io.File;
+import java.nio.file.Files;
+
+import org.apache.catalina.Context;
+import org.apache.catalina.LifecycleException;
+import org.apache.catalina.WebResourceRoot;
+import org.apache.catalina.startup.Tomcat;
+import org.apache.catalina.webresources.DirResourceSet;
+import org.apache.catalina.webresources.JarResourceSet;
+import org.apache.catalina.webresources.StandardRoot;
+
+import com.shashi.utility.DBUtil;
+
+//The application in an in-process Tomcat: the pages come from WebContent, the servlets from the
+//TrainBook classes on the classpath, mounted as WEB-INF/classes so their annotations are scanned
+public class EmbeddedServer {
+
+	private final Tomcat tomcat = new Tomcat();
+
+	public EmbeddedServer(File webContent) throws Exception {
+		tomcat.setBaseDir(Files.createTempDirectory("trainbook-tomcat").toString());
+		tomcat.setPort(0);
+		tomcat.getConnector();
+
+		Context context = tomcat.addWebapp("", webContent.getAbsolutePath());
+		WebResourceRoot resources = new StandardRoot(context);
+		File classes = new File(DBUtil.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+		if (classes.isDirectory()) {
+			resources.addPreResources(
+					new DirResourceSet(resources, "/WEB-INF/classes", classes.getAbsolutePath(), "/"));
+		} else {
+			resources.addPreResources(
+					new JarResourceSet(resources, "/WEB-INF/classes", classes.getAbsolutePath(), "/"));
+		}
+		context.setResources(resources);
+	}
+
+	// Returns the base url, on a free port
+	public String start() throws LifecycleException {
+		tomcat.start();
+		return "http://localhost:" + tomcat.getConnector().getLocalPort();
+	}
+
+	public void stop() throws LifecycleException {
+		tomcat.stop();
+		tomcat.destroy();
+	}
+}
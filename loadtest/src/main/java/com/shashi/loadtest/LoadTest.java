@@ -0,0 +1,149 @@
+package com.shashi.loadtest;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+//Replays a tatkal hour: load.users customers log in during load.rampUp seconds, then search and race
+//for the seats of load.trains hot trains until load.duration seconds are over. Prints the latency
+//percentiles and throughput per endpoint, then checks the hot trains were not oversold and that
+//the seats taken off each train match the tickets issued. Exits with 1 when a check fails
+//
+//By default the application runs in an embedded Tomcat on the embedded database (dbProfile=embedded).
+//Set -Dload.url=http://host:port to load a running server instead, started with dbProfile=embedded
+//and at least load.users embeddedCustomers. On JDK 21+ the users are virtual threads, so ten thousand
+//of them load the server rather than the scheduler of the load generator
+public class LoadTest {
+
+	private static final int USERS = Integer.getInteger("load.users", 1000);
+
+	private static final int DURATION = Integer.getInteger("load.duration", 60);
+
+	private static final int RAMP_UP = Integer.getInteger("load.rampUp", 10);
+
+	private static final int HOT_TRAINS = Integer.getInteger("load.trains", 5);
+
+	private static final long THINK_MILLIS = Long.getLong("load.thinkMillis", 100);
+
+	private static final boolean VIRTUAL_USERS = Boolean
+			.parseBoolean(System.getProperty("load.virtualUsers", "true"));
+
+	private static final Pattern TRAIN_SEATS = Pattern.compile("\"trainNo\":(\\d+),\"seats\":(\\d+)");
+
+	public static void main(String[] args) throws Exception {
+		String url = System.getProperty("load.url");
+		EmbeddedServer server = null;
+		if (url == null) {
+			System.setProperty("dbProfile", "embedded");
+			if (System.getProperty("embeddedCustomers") == null) {
+				System.setProperty("embeddedCustomers", String.valueOf(Math.max(USERS, 1000)));
+			}
+			server = new EmbeddedServer(new File(System.getProperty("load.webapp", "../WebContent")));
+			url = server.start();
+		}
+		// one kept-alive connection per virtual user
+		System.setProperty("http.maxConnections", String.valueOf(USERS));
+
+		Stats stats = new Stats();
+		Map<String, Integer> seatsBefore = readSeats(url, new Stats());
+		System.out.println("Loading " + url + " with " + USERS + " users for " + DURATION + "s, hot trains "
+				+ seatsBefore);
+
+		long start = System.nanoTime();
+		long end = start + TimeUnit.SECONDS.toNanos(RAMP_UP + DURATION);
+		List<Thread> users = new ArrayList<Thread>();
+		for (int i = 0; i < USERS; i++) {
+			long startAt = start + TimeUnit.SECONDS.toNanos(RAMP_UP) * i / USERS;
+			Thread user = newUserThread(new VirtualUser(url, stats, i + 1, HOT_TRAINS, startAt, end, THINK_MILLIS),
+					"user-" + (i + 1));
+			users.add(user);
+			user.start();
+		}
+		for (Thread user : users) {
+			user.join();
+		}
+		double seconds = (System.nanoTime() - start) / 1e9;
+
+		System.out.println();
+		stats.print(System.out, seconds);
+		System.out.println();
+		System.out.println(String.format("Tickets: %d, sold out replies: %d, unexpected replies: %d,"
+				+ " failed logins: %d", stats.get("tickets"), stats.get("sold out"), stats.get("unexpected replies"),
+				stats.get("login failed")));
+
+		boolean consistent = check(stats, seatsBefore, readSeats(url, new Stats()));
+		if (server != null) {
+			server.stop();
+		}
+		System.exit(consistent && stats.totalErrors() == 0 ? 0 : 1);
+	}
+
+	// A virtual thread when the JDK has them, looked up by reflection so the module still builds for 1.8
+	private static Thread newUserThread(Runnable user, String name) {
+		if (VIRTUAL_USERS) {
+			try {
+				Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+				Thread thread = (Thread) Class.forName("java.lang.Thread$Builder").getMethod("unstarted", Runnable.class)
+						.invoke(builder, user);
+				thread.setName(name);
+				return thread;
+			} catch (ReflectiveOperationException e) {
+				// JDK 20 or older
+			}
+		}
+		return new Thread(user, name);
+	}
+
+	// Seats left on the hot trains, read through /api/availability with the first customer
+	private static Map<String, Integer> readSeats(String url, Stats stats) {
+		WebClient client = new WebClient(url, stats);
+		client.post("/userlogin", "uname", "user1@demo.com", "pword", "pw1");
+		String[] trainNos = new String[HOT_TRAINS];
+		for (int n = 1; n <= HOT_TRAINS; n++) {
+			trainNos[n - 1] = VirtualUser.trainNo(n);
+		}
+		WebClient.Response response = client.get("/api/availability", "trainNos", String.join(",", trainNos));
+		if (response == null || response.status != 200) {
+			throw new IllegalStateException("Cannot read the seats of the hot trains from " + url
+					+ "/api/availability, is it running with dbProfile=embedded?");
+		}
+		Map<String, Integer> seats = new HashMap<String, Integer>();
+		Matcher matcher = TRAIN_SEATS.matcher(response.body);
+		while (matcher.find()) {
+			seats.put(matcher.group(1), Integer.parseInt(matcher.group(2)));
+		}
+		return seats;
+	}
+
+	private static boolean check(Stats stats, Map<String, Integer> before, Map<String, Integer> after) {
+		boolean consistent = true;
+		System.out.println(String.format("%-8s %12s %12s %12s  %s", "Train", "Seats before", "Seats after",
+				"On tickets", "Check"));
+		for (int n = 1; n <= HOT_TRAINS; n++) {
+			String trainNo = VirtualUser.trainNo(n);
+			int seatsBefore = before.getOrDefault(trainNo, 0);
+			int seatsAfter = after.getOrDefault(trainNo, 0);
+			long onTickets = stats.get("seats " + trainNo);
+			String check = "OK";
+			if (onTickets > seatsBefore || seatsAfter < 0) {
+				check = "OVERSOLD";
+			} else if (seatsBefore - seatsAfter != onTickets) {
+				check = "SEATS TAKEN " + (seatsBefore - seatsAfter) + " != ON TICKETS";
+			}
+			consistent &= "OK".equals(check);
+			System.out.println(String.format("%-8s %12d %12d %12d  %s", trainNo, seatsBefore, seatsAfter, onTickets,
+					check));
+		}
+		if (stats.get("wrong tickets") > 0) {
+			System.out.println("Tickets for another train or seat count than the one paid for: "
+					+ stats.get("wrong tickets"));
+			consistent = false;
+		}
+		return consistent;
+	}
+}
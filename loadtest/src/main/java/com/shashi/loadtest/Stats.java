@@ -0,0 +1,60 @@
+package com.shashi.loadtest;
+
+import java.io.PrintStream;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.shashi.utility.LatencyHistogram;
+
+//Latency histogram (in microseconds) and error count of every endpoint hit by the virtual users
+public class Stats {
+
+	private static class Endpoint {
+		final LatencyHistogram latency = new LatencyHistogram();
+		final AtomicLong errors = new AtomicLong();
+	}
+
+	private final Map<String, Endpoint> endpoints = new ConcurrentSkipListMap<String, Endpoint>();
+
+	private final Map<String, AtomicLong> counters = new ConcurrentHashMap<String, AtomicLong>();
+
+	public void record(String endpoint, long nanos, boolean ok) {
+		Endpoint stats = endpoints.computeIfAbsent(endpoint, e -> new Endpoint());
+		stats.latency.record(nanos / 1000);
+		if (!ok) {
+			stats.errors.incrementAndGet();
+		}
+	}
+
+	// Business outcomes, e.g. tickets booked or refused
+	public void count(String counter, long delta) {
+		counters.computeIfAbsent(counter, c -> new AtomicLong()).addAndGet(delta);
+	}
+
+	public long get(String counter) {
+		AtomicLong value = counters.get(counter);
+		return value == null ? 0 : value.get();
+	}
+
+	public long totalErrors() {
+		long errors = 0;
+		for (Endpoint stats : endpoints.values()) {
+			errors += stats.errors.get();
+		}
+		return errors;
+	}
+
+	public void print(PrintStream out, double seconds) {
+		out.println(String.format("%-16s %9s %7s %9s %9s %9s %9s %9s", "Endpoint", "Requests", "Errors", "Req/s",
+				"p50 ms", "p99 ms", "p99.9 ms", "max ms"));
+		for (Map.Entry<String, Endpoint> entry : endpoints.entrySet()) {
+			LatencyHistogram latency = entry.getValue().latency;
+			out.println(String.format("%-16s %9d %7d %9.1f %9.2f %9.2f %9.2f %9.2f", entry.getKey(),
+					latency.getCount(), entry.getValue().errors.get(), latency.getCount() / seconds,
+					latency.getValueAtPercentile(50) / 1000.0, latency.getValueAtPercentile(99) / 1000.0,
+					latency.getValueAtPercentile(99.9) / 1000.0, latency.getMax() / 1000.0));
+		}
+	}
+}
@@ -0,0 +1,84 @@
+package com.shashi.loadtest;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+//Throughput of the platform db threads against the virtualThreads=true mode of DBExecutor
+//
+//Runs the same LoadTest twice in a fresh JVM, first with virtualThreads=false then with
+//virtualThreads=true, with load.users 10000 unless set otherwise. The JVM options of this run are
+//passed on, so -Dload.duration=.., -DdbExecutorThreads=.. or -Xmx.. apply to both. Prints the output of
+//each run, then the requests per second and p99 of every endpoint side by side. The virtual run
+//needs JDK 21+, on an older JDK DBExecutor falls back to platform threads and logs a warning
+public class ThreadModeComparison {
+
+	private static final String[] MODES = { "false", "true" };
+
+	// an endpoint row of Stats.print
+	private static final Pattern ENDPOINT = Pattern.compile(
+			"^(\\S+)\\s+(\\d+)\\s+(\\d+)\\s+([\\d.,]+)\\s+([\\d.,]+)\\s+([\\d.,]+)\\s+([\\d.,]+)\\s+([\\d.,]+)$");
+
+	public static void main(String[] args) throws Exception {
+		Map<String, Map<String, String[]>> results = new LinkedHashMap<String, Map<String, String[]>>();
+		int exitCode = 0;
+		for (String mode : MODES) {
+			Map<String, String[]> endpoints = new LinkedHashMap<String, String[]>();
+			exitCode = Math.max(exitCode, run(mode, endpoints));
+			results.put(mode, endpoints);
+		}
+
+		System.out.println();
+		System.out.println(String.format("%-16s %12s %12s %12s %12s", "Endpoint", "Req/s platf", "Req/s virt",
+				"p99 ms platf", "p99 ms virt"));
+		Map<String, String[]> platform = results.get("false");
+		Map<String, String[]> virtual = results.get("true");
+		for (String endpoint : platform.keySet()) {
+			String[] p = platform.get(endpoint);
+			String[] v = virtual.getOrDefault(endpoint, new String[] { "-", "-" });
+			System.out.println(String.format("%-16s %12s %12s %12s %12s", endpoint, p[0], v[0], p[1], v[1]));
+		}
+		System.exit(exitCode);
+	}
+
+	// One LoadTest in a child JVM, keeps the req/s and p99 of every endpoint it prints
+	private static int run(String virtualThreads, Map<String, String[]> endpoints) throws Exception {
+		List<String> command = new ArrayList<String>();
+		command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+		for (String option : ManagementFactory.getRuntimeMXBean().getInputArguments()) {
+			if (!option.startsWith("-DvirtualThreads=")) {
+				command.add(option);
+			}
+		}
+		if (System.getProperty("load.users") == null) {
+			command.add("-Dload.users=10000");
+		}
+		command.add("-DvirtualThreads=" + virtualThreads);
+		command.add("-cp");
+		command.add(System.getProperty("java.class.path"));
+		command.add(LoadTest.class.getName());
+
+		System.out.println("=== virtualThreads=" + virtualThreads + " ===");
+		Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+		try (BufferedReader out = new BufferedReader(
+				new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+			String line;
+			while ((line = out.readLine()) != null) {
+				System.out.println(line);
+				Matcher row = ENDPOINT.matcher(line);
+				if (row.matches()) {
+					endpoints.put(row.group(1), new String[] { row.group(4), row.group(6) });
+				}
+			}
+		}
+		return process.waitFor();
+	}
+}
@@ -0,0 +1,104 @@
+package com.shashi.loadtest;
+
+import java.time.LocalDate;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.shashi.utility.EmbeddedDatabase;
+
+//One customer of the surge: logs in through /userlogin, then until the end of the run searches with
+///trainbwstn and books one of the hot trains through /payment and /booktrains, like the html forms do
+public class VirtualUser implements Runnable {
+
+	private static final Pattern BOOKED = Pattern.compile("(\\d+) Seats Booked Successfully");
+
+	private static final Pattern TICKET_TRAIN = Pattern.compile("Train No: </td><td>(\\d+)<");
+
+	private final WebClient client;
+
+	private final Stats stats;
+
+	private final int userNo;
+
+	private final int hotTrains;
+
+	private final long startAtNanos;
+
+	private final long endAtNanos;
+
+	private final long thinkMillis;
+
+	public VirtualUser(String baseUrl, Stats stats, int userNo, int hotTrains, long startAtNanos, long endAtNanos,
+			long thinkMillis) {
+		this.client = new WebClient(baseUrl, stats);
+		this.stats = stats;
+		this.userNo = userNo;
+		this.hotTrains = hotTrains;
+		this.startAtNanos = startAtNanos;
+		this.endAtNanos = endAtNanos;
+		this.thinkMillis = thinkMillis;
+	}
+
+	// Hot train n, from 1, is the n-th generated train of the embedded database
+	public static String trainNo(int n) {
+		return String.valueOf(EmbeddedDatabase.FIRST_TRAIN_NO + n - 1);
+	}
+
+	@Override
+	public void run() {
+		try {
+			sleepUntil(startAtNanos);
+			WebClient.Response login = client.post("/userlogin", "uname", EmbeddedDatabase.customerMail(userNo),
+					"pword", EmbeddedDatabase.customerPassword(userNo));
+			if (login == null || !login.body.contains("Welcome")) {
+				stats.count("login failed", 1);
+				return;
+			}
+			String journeyDate = LocalDate.now().plusDays(1).toString();
+			while (System.nanoTime() < endAtNanos) {
+				int n = 1 + ThreadLocalRandom.current().nextInt(hotTrains);
+				client.post("/trainbwstn", "fromstation", EmbeddedDatabase.station(n), "tostation",
+						EmbeddedDatabase.station(7L * n + 13));
+				book(trainNo(n), 1 + ThreadLocalRandom.current().nextInt(4), journeyDate);
+				Thread.sleep(thinkMillis);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private void book(String trainNo, int seats, String journeyDate) {
+		WebClient.Response payment = client.post("/payment", "seats", String.valueOf(seats), "trainnumber", trainNo,
+				"journeydate", journeyDate, "class", "Sleeper(SL)");
+		if (payment == null || payment.status >= 400) {
+			return;
+		}
+		WebClient.Response booking = client.post("/booktrains");
+		if (booking == null || booking.status >= 400) {
+			return;
+		}
+		Matcher booked = BOOKED.matcher(booking.body);
+		Matcher ticketTrain = TICKET_TRAIN.matcher(booking.body);
+		if (booked.find() && ticketTrain.find()) {
+			int bookedSeats = Integer.parseInt(booked.group(1));
+			stats.count("tickets", 1);
+			stats.count("seats " + ticketTrain.group(1), bookedSeats);
+			if (!trainNo.equals(ticketTrain.group(1)) || bookedSeats != seats) {
+				// the ticket is not the one paid for
+				stats.count("wrong tickets", 1);
+			}
+		} else if (booking.body.contains("Seats are Available")) {
+			stats.count("sold out", 1);
+		} else {
+			stats.count("unexpected replies", 1);
+		}
+	}
+
+	private static void sleepUntil(long nanos) throws InterruptedException {
+		long wait = nanos - System.nanoTime();
+		if (wait > 0) {
+			Thread.sleep(wait / 1000000, (int) (wait % 1000000));
+		}
+	}
+}
@@ -0,0 +1,136 @@
+package com.shashi.loadtest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+//Browser of one virtual user: keeps its own cookies (session and booking token) and times every request
+public class WebClient {
+
+	private final String baseUrl;
+
+	private final Stats stats;
+
+	private final Map<String, String> cookies = new LinkedHashMap<String, String>();
+
+	public WebClient(String baseUrl, Stats stats) {
+		this.baseUrl = baseUrl;
+		this.stats = stats;
+	}
+
+	public static class Response {
+		public final int status;
+		public final String body;
+
+		Response(int status, String body) {
+			this.status = status;
+			this.body = body;
+		}
+	}
+
+	// Form post, recorded under the path. Returns null when the request failed without a response
+	public Response post(String path, String... params) {
+		return send("POST", path, params);
+	}
+
+	public Response get(String path, String... params) {
+		return send("GET", path, params);
+	}
+
+	private Response send(String method, String path, String... params) {
+		long start = System.nanoTime();
+		try {
+			String form = encode(params);
+			URL url = new URL(baseUrl + path + ("GET".equals(method) && !form.isEmpty() ? "?" + form : ""));
+			HttpURLConnection con = (HttpURLConnection) url.openConnection();
+			con.setRequestMethod(method);
+			con.setInstanceFollowRedirects(false);
+			con.setConnectTimeout(10000);
+			con.setReadTimeout(60000);
+			if (!cookies.isEmpty()) {
+				con.setRequestProperty("Cookie", cookieHeader());
+			}
+			if ("POST".equals(method)) {
+				con.setDoOutput(true);
+				con.setRequestProperty("Content-Type", "application/x-www-form-urlencoded");
+				try (OutputStream out = con.getOutputStream()) {
+					out.write(form.getBytes(StandardCharsets.UTF_8));
+				}
+			}
+			int status = con.getResponseCode();
+			String body = read(status >= 400 ? con.getErrorStream() : con.getInputStream());
+			keepCookies(con.getHeaderFields().get("Set-Cookie"));
+			stats.record(path, System.nanoTime() - start, status < 400);
+			return new Response(status, body);
+		} catch (IOException e) {
+			stats.record(path, System.nanoTime() - start, false);
+			return null;
+		}
+	}
+
+	private String cookieHeader() {
+		StringBuilder header = new StringBuilder();
+		for (Map.Entry<String, String> cookie : cookies.entrySet()) {
+			if (header.length() > 0) {
+				header.append("; ");
+			}
+			header.append(cookie.getKey()).append('=').append(cookie.getValue());
+		}
+		return header.toString();
+	}
+
+	private void keepCookies(List<String> setCookies) {
+		if (setCookies == null) {
+			return;
+		}
+		for (String setCookie : setCookies) {
+			String pair = setCookie.split(";", 2)[0];
+			int eq = pair.indexOf('=');
+			if (eq <= 0) {
+				continue;
+			}
+			String name = pair.substring(0, eq).trim();
+			if (setCookie.toLowerCase().contains("max-age=0")) {
+				cookies.remove(name);
+			} else {
+				cookies.put(name, pair.substring(eq + 1).trim());
+			}
+		}
+	}
+
+	private static String encode(String... params) throws IOException {
+		StringBuilder form = new StringBuilder();
+		for (int i = 0; i + 1 < params.length; i += 2) {
+			if (form.length() > 0) {
+				form.append('&');
+			}
+			form.append(URLEncoder.encode(params[i], "UTF-8")).append('=')
+					.append(URLEncoder.encode(params[i + 1], "UTF-8"));
+		}
+		return form.toString();
+	}
+
+	// Reads the whole body, so the connection goes back to the keep-alive pool
+	private static String read(InputStream in) throws IOException {
+		if (in == null) {
+			return "";
+		}
+		try (InputStream body = in) {
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			byte[] buffer = new byte[8192];
+			int n;
+			while ((n = body.read(buffer)) != -1) {
+				out.write(buffer, 0, n);
+			}
+			return new String(out.toByteArray(), StandardCharsets.UTF_8);
+		}
+	}
+}
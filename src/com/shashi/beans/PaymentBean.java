@@ -0,0 +1,51 @@
+package com.shashi.beans;
+
+import java.io.Serializable;
+
+//Booking chosen on the payment page, kept in the session of the customer under its booking token
+//until the payment form is submitted to booktrains
+public class PaymentBean implements Serializable {
+
+	/**
+	 *
+	 */
+	private static final long serialVersionUID = 1L;
+
+	private String tr_no;
+	private int seats;
+	private String journeyDate;
+	private String seatClass;
+
+	public String getTr_no() {
+		return tr_no;
+	}
+
+	public void setTr_no(String tr_no) {
+		this.tr_no = tr_no;
+	}
+
+	public int getSeats() {
+		return seats;
+	}
+
+	public void setSeats(int seats) {
+		this.seats = seats;
+	}
+
+	public String getJourneyDate() {
+		return journeyDate;
+	}
+
+	public void setJourneyDate(String journeyDate) {
+		this.journeyDate = journeyDate;
+	}
+
+	public String getSeatClass() {
+		return seatClass;
+	}
+
+	public void setSeatClass(String seatClass) {
+		this.seatClass = seatClass;
+	}
+
+}
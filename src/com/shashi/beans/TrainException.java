@@ -4,6 +4,13 @@ import java.io.IOException;
 
 import com.shashi.constant.ResponseCode;
 
+//Failure answered to the user through ErrorHandlerServlet
+//
+//Expected conditions (session expired, not found, invalid input, busy) are thrown without a stack
+//trace: of(), expected() and failed() build stackless ones. Taking the stack is the expensive part
+//of an exception and is worth nothing for these, while an outage makes every request throw one.
+//Each throw gets its own instance, a shared one would carry the causes and suppressed exceptions
+//added by one request into the next
 public class TrainException extends IOException {
 
 	/**
@@ -19,13 +26,13 @@ public class TrainException extends IOException {
 		super(errorCodes.getMessage());
 		this.statusCode = errorCodes.getCode();
 		this.errorMessage = errorCodes.getMessage();
-		this.setErrorCode(errorCodes.name());
+		this.errorCode = errorCodes.name();
 	}
 
 	public TrainException(String errorMessage) {
         super(errorMessage);
         this.errorCode = "BAD_REQUEST";
-        this.setStatusCode(400);
+        this.statusCode = 400;
         this.errorMessage = errorMessage;
     }
 	
@@ -60,4 +67,37 @@ public class TrainException extends IOException {
 		this.statusCode = statusCode;
 	}
 
+	public static TrainException of(ResponseCode errorCodes) {
+		return new Stackless(errorCodes);
+	}
+
+	public static TrainException expected(int statusCode, String errorCode, String errorMessage) {
+		return new Stackless(statusCode, errorCode, errorMessage);
+	}
+
+	// A servlet giving up because of a failure below it, the stack of the cause is the one that matters
+	public static TrainException failed(Class<?> source, Exception cause) {
+		TrainException failure = new Stackless(422, source.getName() + "_FAILED", cause.getMessage());
+		failure.initCause(cause);
+		return failure;
+	}
+
+	private static class Stackless extends TrainException {
+
+		private static final long serialVersionUID = 1L;
+
+		private Stackless(int statusCode, String errorCode, String errorMessage) {
+			super(statusCode, errorCode, errorMessage);
+		}
+
+		private Stackless(ResponseCode errorCodes) {
+			super(errorCodes);
+		}
+
+		@Override
+		public synchronized Throwable fillInStackTrace() {
+			return this;
+		}
+	}
+
 }
@@ -17,6 +17,8 @@ public enum ResponseCode {
     DATABASE_CONNECTION_FAILURE(406,
             "Unable to Connect to DB, Please Check your db credentials in application.properties"),
     METHOD_NOT_ALLOWED(405, "Requested HTTP method is not supported by this URL"),
+    SERVICE_UNAVAILABLE(503, "Server is busy, Please Try Again after some time"),
+    GATEWAY_TIMEOUT(504, "Request took too long to process, Please Try Again"),
 
     ;
 
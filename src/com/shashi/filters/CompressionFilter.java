@@ -0,0 +1,197 @@
+package com.shashi.filters;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.servlet.DispatcherType;
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletContext;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.annotation.WebFilter;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import com.shashi.utility.AppConfig;
+import com.shashi.utility.DeflaterPool;
+import com.shashi.utility.Metrics;
+
+//Compresses the responses for clients that accept gzip or deflate
+//
+//Static files that have a .gz twin in WebContent (written by the build, see
+//StaticAssetCompressor) are sent as that file, with no compression work per request.
+//Servlet output above compressionThreshold bytes is compressed on the fly.
+//
+//The async servlets write their page on the ASYNC dispatch, which gets its own wrapper,
+//so the filter has to be mapped for both dispatcher types and support async itself
+@WebFilter(urlPatterns = "/*", asyncSupported = true, dispatcherTypes = { DispatcherType.REQUEST,
+		DispatcherType.ASYNC })
+public class CompressionFilter implements Filter {
+
+	private static final int THRESHOLD = AppConfig.getInt("compressionThreshold", 1024);
+
+	private static final int LEVEL = AppConfig.getInt("compressionLevel", 6);
+
+	private static final int POOL_SIZE = AppConfig.getInt("compressionPoolSize",
+			Runtime.getRuntime().availableProcessors() * 2);
+
+	private static final DeflaterPool GZIP_POOL = new DeflaterPool(POOL_SIZE, LEVEL, true);
+
+	private static final DeflaterPool DEFLATE_POOL = new DeflaterPool(POOL_SIZE, LEVEL, false);
+
+	private static final Precompressed NONE = new Precompressed(null, 0);
+
+	private final Map<String, Precompressed> precompressed = new ConcurrentHashMap<String, Precompressed>();
+
+	private static class Precompressed {
+		private final byte[] body;
+		private final long lastModified;
+
+		private Precompressed(byte[] body, long lastModified) {
+			this.body = body;
+			this.lastModified = lastModified;
+		}
+	}
+
+	@Override
+	public void init(FilterConfig filterConfig) throws ServletException {
+		Metrics.gauge("compression_gzip_deflaters_idle", "Gzip Deflaters waiting in the pool", GZIP_POOL::size);
+		Metrics.gauge("compression_deflate_deflaters_idle", "Deflate Deflaters waiting in the pool",
+				DEFLATE_POOL::size);
+	}
+
+	@Override
+	public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+			throws IOException, ServletException {
+		HttpServletRequest req = (HttpServletRequest) request;
+		HttpServletResponse res = (HttpServletResponse) response;
+		String encoding = acceptedEncoding(req.getHeader("Accept-Encoding"));
+		if (encoding == null) {
+			// the body would have been compressed for another client, the content type is not known yet
+			res.addHeader("Vary", "Accept-Encoding");
+			chain.doFilter(req, res);
+			return;
+		}
+		if (req.getDispatcherType() == DispatcherType.REQUEST && "gzip".equals(encoding)
+				&& servePrecompressed(req, res)) {
+			return;
+		}
+
+		CompressionResponseWrapper wrapper = new CompressionResponseWrapper(res,
+				"gzip".equals(encoding) ? GZIP_POOL : DEFLATE_POOL, encoding, THRESHOLD);
+		boolean completed = false;
+		try {
+			chain.doFilter(req, wrapper);
+			completed = true;
+		} finally {
+			if (completed && !req.isAsyncStarted()) {
+				wrapper.finish();
+			} else {
+				wrapper.abandon();
+			}
+		}
+	}
+
+	@Override
+	public void destroy() {
+	}
+
+	// gzip when the client takes it, deflate otherwise, null for no compression
+	public static String acceptedEncoding(String acceptEncoding) {
+		if (acceptEncoding == null) {
+			return null;
+		}
+		boolean deflate = false;
+		for (String coding : acceptEncoding.split(",")) {
+			String[] params = coding.split(";");
+			if (isRefused(params)) {
+				continue;
+			}
+			String name = params[0].trim().toLowerCase();
+			if (name.equals("gzip") || name.equals("x-gzip")) {
+				return "gzip";
+			} else if (name.equals("deflate")) {
+				deflate = true;
+			}
+		}
+		return deflate ? "deflate" : null;
+	}
+
+	private static boolean isRefused(String[] params) {
+		for (int i = 1; i < params.length; i++) {
+			String param = params[i].trim();
+			if (param.startsWith("q=")) {
+				try {
+					return Double.parseDouble(param.substring(2)) <= 0;
+				} catch (NumberFormatException e) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	private boolean servePrecompressed(HttpServletRequest req, HttpServletResponse res) throws IOException {
+		String method = req.getMethod();
+		if (!"GET".equals(method) && !"HEAD".equals(method)) {
+			return false;
+		}
+		String path = req.getServletPath() + (req.getPathInfo() == null ? "" : req.getPathInfo());
+		if (path.lastIndexOf('.') <= path.lastIndexOf('/')) {
+			// servlet urls have no extension
+			return false;
+		}
+		Precompressed asset = getPrecompressed(req.getServletContext(), path);
+		if (asset == null || asset.body == null) {
+			return false;
+		}
+
+		res.addHeader("Vary", "Accept-Encoding");
+		res.setDateHeader("Last-Modified", asset.lastModified);
+		long ifModifiedSince = req.getDateHeader("If-Modified-Since");
+		if (ifModifiedSince >= 0 && asset.lastModified / 1000 <= ifModifiedSince / 1000) {
+			res.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+			return true;
+		}
+		res.setContentType(req.getServletContext().getMimeType(path));
+		res.setHeader("Content-Encoding", "gzip");
+		res.setContentLength(asset.body.length);
+		if ("GET".equals(method)) {
+			res.getOutputStream().write(asset.body);
+		}
+		return true;
+	}
+
+	private Precompressed getPrecompressed(ServletContext context, String path) throws IOException {
+		Precompressed asset = precompressed.get(path);
+		if (asset != null) {
+			return asset;
+		}
+		URL original = context.getResource(path);
+		if (original == null) {
+			// unknown paths are not remembered, anyone can make up as many as they like
+			return null;
+		}
+		asset = NONE;
+		try (InputStream in = context.getResourceAsStream(path + ".gz")) {
+			if (in != null) {
+				ByteArrayOutputStream body = new ByteArrayOutputStream();
+				byte[] buffer = new byte[8192];
+				int read;
+				while ((read = in.read(buffer)) != -1) {
+					body.write(buffer, 0, read);
+				}
+				asset = new Precompressed(body.toByteArray(), original.openConnection().getLastModified());
+			}
+		}
+		precompressed.put(path, asset);
+		return asset;
+	}
+}
@@ -0,0 +1,322 @@
+package com.shashi.filters;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+
+import com.shashi.utility.DeflaterPool;
+
+//Response that holds back the first bytes of the body until it knows whether they are worth
+//compressing: responses that finish below the threshold, or that are not text, go out as they are.
+//Everything above it is deflated on the fly with a Deflater borrowed from the pool. Every text
+//response carries Vary: Accept-Encoding, compressed or not, a cache must not hand a body that
+//happened to go out raw (or compressed) to a client that asked differently
+class CompressionResponseWrapper extends HttpServletResponseWrapper {
+
+	private static final String[] COMPRESSIBLE_TYPES = { "text/", "application/json", "application/javascript",
+			"application/xml", "image/svg+xml" };
+
+	private static final byte[] GZIP_HEADER = { 0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff };
+
+	private final DeflaterPool pool;
+
+	private final String encoding;
+
+	private final int threshold;
+
+	private CompressingStream stream;
+
+	private PrintWriter writer;
+
+	private long contentLength = -1;
+
+	CompressionResponseWrapper(HttpServletResponse response, DeflaterPool pool, String encoding, int threshold) {
+		super(response);
+		this.pool = pool;
+		this.encoding = encoding;
+		this.threshold = threshold;
+	}
+
+	@Override
+	public ServletOutputStream getOutputStream() throws IOException {
+		if (writer != null) {
+			throw new IllegalStateException("getWriter() has already been called for this response");
+		}
+		if (stream == null) {
+			stream = new CompressingStream();
+		}
+		return stream;
+	}
+
+	@Override
+	public PrintWriter getWriter() throws IOException {
+		if (writer == null) {
+			if (stream != null) {
+				throw new IllegalStateException("getOutputStream() has already been called for this response");
+			}
+			stream = new CompressingStream();
+			writer = new PrintWriter(new OutputStreamWriter(stream, getCharacterEncoding()));
+		}
+		return writer;
+	}
+
+	// the length of the compressed body is not known up front, it is only passed on for raw bodies
+	@Override
+	public void setContentLength(int len) {
+		contentLength = len;
+	}
+
+	@Override
+	public void setContentLengthLong(long len) {
+		contentLength = len;
+	}
+
+	@Override
+	public void flushBuffer() throws IOException {
+		if (writer != null) {
+			writer.flush();
+		}
+		if (stream != null) {
+			stream.flush();
+		} else {
+			super.flushBuffer();
+		}
+	}
+
+	@Override
+	public void reset() {
+		super.reset();
+		if (stream != null) {
+			stream.count = 0;
+		}
+	}
+
+	@Override
+	public void resetBuffer() {
+		super.resetBuffer();
+		if (stream != null) {
+			stream.count = 0;
+		}
+	}
+
+	// Writes whatever is still held back and completes the compressed body
+	void finish() throws IOException {
+		if (writer != null) {
+			writer.flush();
+		}
+		if (stream != null) {
+			stream.close();
+			return;
+		}
+		if (getStatus() == HttpServletResponse.SC_NOT_MODIFIED) {
+			// a 304 carries the Vary of the page it stands for
+			varyOnEncoding();
+		}
+		if (contentLength >= 0) {
+			super.setContentLengthLong(contentLength);
+		}
+	}
+
+	// The body is not written by this response (async dispatch or failure), only give the deflater back
+	void abandon() {
+		if (stream != null) {
+			stream.releaseDeflater();
+		}
+	}
+
+	private void varyOnEncoding() {
+		((HttpServletResponse) getResponse()).addHeader("Vary", "Accept-Encoding");
+	}
+
+	// Text with a body this filter may encode, whatever its size
+	private boolean isCompressible() {
+		HttpServletResponse response = (HttpServletResponse) getResponse();
+		int status = response.getStatus();
+		if (status < 200 || status == HttpServletResponse.SC_NO_CONTENT
+				|| status == HttpServletResponse.SC_NOT_MODIFIED || response.isCommitted()
+				|| response.containsHeader("Content-Encoding")) {
+			return false;
+		}
+		String contentType = response.getContentType();
+		if (contentType == null) {
+			return false;
+		}
+		for (String type : COMPRESSIBLE_TYPES) {
+			if (contentType.startsWith(type)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private class CompressingStream extends ServletOutputStream {
+
+		private final byte[] buffer = new byte[threshold];
+
+		private int count;
+
+		private ServletOutputStream out;
+
+		private Deflater deflater;
+
+		private CRC32 crc;
+
+		private long totalIn;
+
+		private byte[] chunk;
+
+		private boolean closed;
+
+		@Override
+		public void write(int b) throws IOException {
+			write(new byte[] { (byte) b }, 0, 1);
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			if (closed) {
+				throw new IOException("Stream is closed");
+			}
+			if (out == null) {
+				if (count + len <= buffer.length) {
+					System.arraycopy(b, off, buffer, count, len);
+					count += len;
+					return;
+				}
+				start(true);
+			}
+			if (deflater != null) {
+				deflate(b, off, len);
+			} else {
+				out.write(b, off, len);
+			}
+		}
+
+		@Override
+		public void flush() throws IOException {
+			if (closed || out == null) {
+				// the writers flush on close too, a body still below the threshold stays held back
+				return;
+			}
+			if (deflater != null) {
+				drain(Deflater.SYNC_FLUSH);
+			}
+			out.flush();
+		}
+
+		@Override
+		public void close() throws IOException {
+			if (closed) {
+				return;
+			}
+			try {
+				if (out == null) {
+					if (count == 0) {
+						if (contentLength >= 0) {
+							CompressionResponseWrapper.super.setContentLengthLong(contentLength);
+						}
+						return;
+					}
+					start(count >= threshold);
+				}
+				if (deflater != null) {
+					deflater.finish();
+					while (!deflater.finished()) {
+						int n = deflater.deflate(chunk, 0, chunk.length);
+						out.write(chunk, 0, n);
+					}
+					if (crc != null) {
+						writeIntLE((int) crc.getValue());
+						writeIntLE((int) totalIn);
+					}
+				}
+			} finally {
+				closed = true;
+				releaseDeflater();
+			}
+		}
+
+		@Override
+		public boolean isReady() {
+			return true;
+		}
+
+		@Override
+		public void setWriteListener(WriteListener writeListener) {
+			throw new IllegalStateException("Non blocking output is not supported by the compression filter");
+		}
+
+		private void start(boolean compress) throws IOException {
+			HttpServletResponse response = (HttpServletResponse) getResponse();
+			boolean compressible = isCompressible();
+			if (compressible) {
+				// also below the threshold, the same url may be compressed next time
+				varyOnEncoding();
+			}
+			if (compress && compressible) {
+				response.setHeader("Content-Encoding", encoding);
+				out = response.getOutputStream();
+				deflater = pool.borrow();
+				chunk = new byte[8192];
+				if ("gzip".equals(encoding)) {
+					crc = new CRC32();
+					out.write(GZIP_HEADER);
+				}
+				deflate(buffer, 0, count);
+			} else {
+				if (contentLength >= 0) {
+					response.setContentLengthLong(contentLength);
+				} else if (!compress) {
+					// the whole body is in the buffer
+					response.setContentLength(count);
+				}
+				out = response.getOutputStream();
+				out.write(buffer, 0, count);
+			}
+			count = 0;
+		}
+
+		private void deflate(byte[] b, int off, int len) throws IOException {
+			if (crc != null) {
+				crc.update(b, off, len);
+			}
+			totalIn += len;
+			deflater.setInput(b, off, len);
+			while (!deflater.needsInput()) {
+				int n = deflater.deflate(chunk, 0, chunk.length, Deflater.NO_FLUSH);
+				if (n > 0) {
+					out.write(chunk, 0, n);
+				}
+			}
+		}
+
+		private void drain(int flush) throws IOException {
+			int n;
+			do {
+				n = deflater.deflate(chunk, 0, chunk.length, flush);
+				out.write(chunk, 0, n);
+			} while (n == chunk.length);
+		}
+
+		private void writeIntLE(int value) throws IOException {
+			out.write(value & 0xff);
+			out.write((value >> 8) & 0xff);
+			out.write((value >> 16) & 0xff);
+			out.write((value >> 24) & 0xff);
+		}
+
+		private void releaseDeflater() {
+			if (deflater != null) {
+				pool.release(deflater);
+				deflater = null;
+			}
+		}
+	}
+}
@@ -0,0 +1,79 @@
+package com.shashi.filters;
+
+import java.io.IOException;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.annotation.WebFilter;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import com.shashi.utility.Metrics;
+
+//Records the time to answer every request into the histogram of its servlet path
+//
+//An async request is recorded when it completes, after its ASYNC dispatch, so the time
+//spent waiting for the db executor is included. Unknown urls (404) are all recorded as "unmapped"
+@WebFilter(urlPatterns = "/*", asyncSupported = true)
+public class MetricsFilter implements Filter {
+
+	@Override
+	public void init(FilterConfig filterConfig) throws ServletException {
+	}
+
+	@Override
+	public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+			throws IOException, ServletException {
+		if (!Metrics.ENABLED) {
+			chain.doFilter(request, response);
+			return;
+		}
+		HttpServletRequest req = (HttpServletRequest) request;
+		HttpServletResponse res = (HttpServletResponse) response;
+		long start = System.nanoTime();
+		try {
+			chain.doFilter(req, res);
+		} finally {
+			if (req.isAsyncStarted()) {
+				req.getAsyncContext().addListener(new AsyncListener() {
+					@Override
+					public void onComplete(AsyncEvent event) throws IOException {
+						Metrics.recordRequest(path(req, res), System.nanoTime() - start);
+					}
+
+					@Override
+					public void onTimeout(AsyncEvent event) throws IOException {
+					}
+
+					@Override
+					public void onError(AsyncEvent event) throws IOException {
+					}
+
+					@Override
+					public void onStartAsync(AsyncEvent event) throws IOException {
+					}
+				});
+			} else {
+				Metrics.recordRequest(path(req, res), System.nanoTime() - start);
+			}
+		}
+	}
+
+	@Override
+	public void destroy() {
+	}
+
+	private static String path(HttpServletRequest req, HttpServletResponse res) {
+		if (res.getStatus() == HttpServletResponse.SC_NOT_FOUND) {
+			return "unmapped";
+		}
+		String path = req.getServletPath();
+		return path == null || path.isEmpty() ? "/" : path;
+	}
+}
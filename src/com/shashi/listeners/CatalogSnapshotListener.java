@@ -0,0 +1,22 @@
+package com.shashi.listeners;
+
+import javax.servlet.ServletContextEvent;
+import javax.servlet.ServletContextListener;
+import javax.servlet.annotation.WebListener;
+
+import com.shashi.utility.CatalogSnapshot;
+
+@WebListener
+public class CatalogSnapshotListener implements ServletContextListener {
+
+	@Override
+	public void contextInitialized(ServletContextEvent sce) {
+		CatalogSnapshot.start();
+	}
+
+	@Override
+	public void contextDestroyed(ServletContextEvent sce) {
+		CatalogSnapshot.stop();
+	}
+
+}
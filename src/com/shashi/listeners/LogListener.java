@@ -0,0 +1,21 @@
+package com.shashi.listeners;
+
+import javax.servlet.ServletContextEvent;
+import javax.servlet.ServletContextListener;
+import javax.servlet.annotation.WebListener;
+
+import com.shashi.utility.Log;
+
+@WebListener
+public class LogListener implements ServletContextListener {
+
+	@Override
+	public void contextInitialized(ServletContextEvent sce) {
+	}
+
+	@Override
+	public void contextDestroyed(ServletContextEvent sce) {
+		Log.shutdown();
+	}
+
+}
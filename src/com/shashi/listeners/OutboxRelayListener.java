@@ -0,0 +1,22 @@
+package com.shashi.listeners;
+
+import javax.servlet.ServletContextEvent;
+import javax.servlet.ServletContextListener;
+import javax.servlet.annotation.WebListener;
+
+import com.shashi.utility.OutboxRelay;
+
+@WebListener
+public class OutboxRelayListener implements ServletContextListener {
+
+	@Override
+	public void contextInitialized(ServletContextEvent sce) {
+		OutboxRelay.start();
+	}
+
+	@Override
+	public void contextDestroyed(ServletContextEvent sce) {
+		OutboxRelay.stop();
+	}
+
+}
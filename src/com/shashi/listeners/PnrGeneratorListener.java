@@ -0,0 +1,22 @@
+package com.shashi.listeners;
+
+import javax.servlet.ServletContextEvent;
+import javax.servlet.ServletContextListener;
+import javax.servlet.annotation.WebListener;
+
+import com.shashi.utility.PnrGenerator;
+
+@WebListener
+public class PnrGeneratorListener implements ServletContextListener {
+
+	@Override
+	public void contextInitialized(ServletContextEvent sce) {
+		// a nodeId out of range fails the deployment instead of the first booking
+		PnrGenerator.getNodeId();
+	}
+
+	@Override
+	public void contextDestroyed(ServletContextEvent sce) {
+	}
+
+}
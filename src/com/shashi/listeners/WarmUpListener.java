@@ -0,0 +1,22 @@
+package com.shashi.listeners;
+
+import javax.servlet.ServletContextEvent;
+import javax.servlet.ServletContextListener;
+import javax.servlet.annotation.WebListener;
+
+import com.shashi.utility.WarmUp;
+
+@WebListener
+public class WarmUpListener implements ServletContextListener {
+
+	@Override
+	public void contextInitialized(ServletContextEvent sce) {
+		WarmUp.start(sce.getServletContext());
+	}
+
+	@Override
+	public void contextDestroyed(ServletContextEvent sce) {
+		WarmUp.stop();
+	}
+
+}
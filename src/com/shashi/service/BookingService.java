@@ -3,6 +3,7 @@ package com.shashi.service;
 import java.util.List;
 
 import com.shashi.beans.HistoryBean;
+import com.shashi.beans.TrainBean;
 import com.shashi.beans.TrainException;
 
 public interface BookingService {
@@ -11,4 +12,15 @@ public interface BookingService {
 
 	public HistoryBean createHistory(HistoryBean bookingDetails) throws TrainException;
 
+	public HistoryBean bookTicket(TrainBean train, int seats, String journeyDate, String customerEmailId)
+			throws TrainException;
+
+	public boolean reserveBookingToken(String token, String customerEmailId) throws TrainException;
+
+	public void completeBookingToken(String token, String transId) throws TrainException;
+
+	public void releaseBookingToken(String token) throws TrainException;
+
+	public HistoryBean getBookingByToken(String token) throws TrainException;
+
 }
@@ -0,0 +1,14 @@
+package com.shashi.service;
+
+import java.util.List;
+
+import com.shashi.beans.OutboxEvent;
+import com.shashi.beans.TrainException;
+
+public interface OutboxService {
+
+	public List<OutboxEvent> getPendingEvents(int limit) throws TrainException;
+
+	public int markDelivered(List<OutboxEvent> events) throws TrainException;
+
+}
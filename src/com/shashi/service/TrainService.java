@@ -15,7 +15,15 @@ public interface TrainService {
 
 	public TrainBean getTrainById(String trainNo) throws TrainException;
 
+	// Never answered from the catalog snapshot, for the pages that book or update the train they read
+	public TrainBean getTrainFromDatabase(String trainNo) throws TrainException;
+
 	public List<TrainBean> getAllTrains() throws TrainException;
 
 	public List<TrainBean> getTrainsBetweenStations(String fromStation, String toStation) throws TrainException;
+
+	public List<TrainBean> getTrainsByIds(List<String> trainNos) throws TrainException;
+
+	// Only the number, seats and fare of each train
+	public List<TrainBean> getAvailability(List<String> trainNos) throws TrainException;
 }
@@ -1,83 +1,276 @@
 package com.shashi.service.impl;
 
-import java.sql.Connection;
-import java.sql.PreparedStatement;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.util.ArrayList;
+import java.sql.SQLIntegrityConstraintViolationException;
 import java.util.List;
-import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import com.shashi.beans.HistoryBean;
+import com.shashi.beans.OutboxEvent;
+import com.shashi.beans.TrainBean;
 import com.shashi.beans.TrainException;
 import com.shashi.constant.ResponseCode;
 import com.shashi.service.BookingService;
+import com.shashi.utility.BookingTokenCache;
 import com.shashi.utility.DBUtil;
+import com.shashi.utility.DataAccess;
+import com.shashi.utility.JsonWriter;
+import com.shashi.utility.Log;
+import com.shashi.utility.PnrGenerator;
 
 //Service Implementaion class for booking details of the ticket
 //Creates the booking history and save to database
 public class BookingServiceImpl implements BookingService {
 
+	private static final Log LOG = Log.get(BookingServiceImpl.class);
+
+	// The confirmation event goes to the outbox in the same statement, so both rows commit together
+	private static final String CREATE_HISTORY = "INSERT ALL INTO HISTORY VALUES(?,?,?,?,?,?,?,?)"
+			+ " INTO BOOKING_OUTBOX(EVENTID, TRANSID, EVENT_TYPE, PAYLOAD) VALUES(?,?,?,?) SELECT * FROM DUAL";
+
+	// H2 has no INSERT ALL, the history insert runs as a data change delta table inside the outbox
+	// insert instead. Same parameters in the same order
+	private static final String CREATE_HISTORY_H2 = "INSERT INTO BOOKING_OUTBOX(EVENTID, TRANSID, EVENT_TYPE, PAYLOAD)"
+			+ " SELECT E.* FROM FINAL TABLE (INSERT INTO HISTORY VALUES(?,?,?,TO_DATE(?, 'DD-MON-YYYY'),?,?,?,?)) H,"
+			+ " (SELECT CAST(? AS VARCHAR2(36)), CAST(? AS VARCHAR2(36)), CAST(? AS VARCHAR2(30)),"
+			+ " CAST(? AS VARCHAR2(1000)) FROM DUAL) E";
+
+	// DATE is a keyword, the column was created quoted
+	private static final String HISTORY_COLUMNS = "H.TRANSID, H.MAILID, H.TR_NO, H.\"DATE\", H.FROM_STN, H.TO_STN,"
+			+ " H.SEATS, H.AMOUNT";
+
+	// Reserved tokens are kept as long as the token cookie, then a booking can no longer be replayed
+	private static final String PURGE_BOOKING_TOKENS = "DELETE FROM BOOKING_TOKEN"
+			+ " WHERE CREATED < SYSDATE - CAST(? AS NUMBER) / 86400";
+
+	private static final long TOKEN_PURGE_INTERVAL = TimeUnit.MINUTES.toMillis(1);
+
+	private static final AtomicLong NEXT_TOKEN_PURGE = new AtomicLong();
+
+	// Seats are taken in the statement that checks them, a concurrent booking of the last seats makes
+	// this one change no row instead of both writing back what they read
+	private static final String TAKE_SEATS = "UPDATE TRAIN SET SEATS=SEATS-? WHERE TR_NO=? AND SEATS>=?";
+
+	private static final String RETURN_SEATS = "UPDATE TRAIN SET SEATS=SEATS+? WHERE TR_NO=?";
+
 	@Override
 	public List<HistoryBean> getAllBookingsByCustomerId(String customerEmailId) throws TrainException {
-		List<HistoryBean> transactions = null;
-		String query = "SELECT * FROM HISTORY WHERE MAILID=?";
+		String query = "SELECT " + HISTORY_COLUMNS + " FROM HISTORY H WHERE H.MAILID=?";
 		try {
-			Connection con = DBUtil.getConnection();
-			PreparedStatement ps = con.prepareStatement(query);
-			ps.setString(1, customerEmailId);
-			ResultSet rs = ps.executeQuery();
-			transactions = new ArrayList<HistoryBean>();
-			while (rs.next()) {
-				HistoryBean transaction = new HistoryBean();
-				transaction.setTransId(rs.getString("transid"));
-				transaction.setFrom_stn(rs.getString("from_stn"));
-				transaction.setTo_stn(rs.getString("to_stn"));
-				transaction.setDate(rs.getString("date"));
-				transaction.setMailId(rs.getString("mailid"));
-				transaction.setSeats(rs.getInt("seats"));
-				transaction.setAmount(rs.getDouble("amount"));
-				transaction.setTr_no(rs.getString("tr_no"));
-				transactions.add(transaction);
-			}
+			return DataAccess.query("BookingService.getAllBookingsByCustomerId", query,
+					ps -> ps.setString(1, customerEmailId), BookingServiceImpl::toHistory);
+		} catch (SQLException e) {
+			LOG.warn("Statement failed", "query", "BookingService.getAllBookingsByCustomerId", "error", e.getMessage());
+			throw new TrainException(e.getMessage());
+		}
+	}
 
-			ps.close();
+	// Takes the seats off the train and records the booking, journeyDate as shown on the ticket
+	@Override
+	public HistoryBean bookTicket(TrainBean train, int seats, String journeyDate, String customerEmailId)
+			throws TrainException {
+		if (seats > train.getSeats()) {
+			throw seatsNotAvailable(train.getSeats());
+		}
+		takeSeats(train, seats);
+
+		HistoryBean bookingDetails = new HistoryBean();
+		bookingDetails.setAmount(train.getFare() * seats);
+		bookingDetails.setFrom_stn(train.getFrom_stn());
+		bookingDetails.setTo_stn(train.getTo_stn());
+		bookingDetails.setTr_no(String.valueOf(train.getTr_no()));
+		bookingDetails.setSeats(seats);
+		bookingDetails.setMailId(customerEmailId);
+		bookingDetails.setDate(journeyDate);
+		try {
+			return createHistory(bookingDetails);
+		} catch (TrainException e) {
+			returnSeats(train, seats);
+			throw e;
+		}
+	}
+
+	private void takeSeats(TrainBean train, int seats) throws TrainException {
+		try {
+			int taken = DataAccess.update("BookingService.takeSeats", TAKE_SEATS, ps -> {
+				ps.setInt(1, seats);
+				ps.setLong(2, train.getTr_no());
+				ps.setInt(3, seats);
+			});
+			if (taken == 0) {
+				// booked by someone else since the train was read, or the train is gone
+				Integer left = DataAccess.queryFirst("BookingService.availableSeats",
+						"SELECT SEATS FROM TRAIN WHERE TR_NO=?", ps -> ps.setLong(1, train.getTr_no()),
+						rs -> rs.getInt(1));
+				throw seatsNotAvailable(left == null ? 0 : left);
+			}
 		} catch (SQLException e) {
-			System.out.println(e.getMessage());
+			LOG.warn("Statement failed", "query", "BookingService.takeSeats", "error", e.getMessage());
 			throw new TrainException(e.getMessage());
 		}
-		return transactions;
+	}
+
+	// The booking was not recorded, the seats it took are free again
+	private void returnSeats(TrainBean train, int seats) {
+		try {
+			DataAccess.update("BookingService.returnSeats", RETURN_SEATS, ps -> {
+				ps.setInt(1, seats);
+				ps.setLong(2, train.getTr_no());
+			});
+		} catch (SQLException | TrainException e) {
+			LOG.error("Seats of a failed booking not returned", e, "trainNo", train.getTr_no(), "seats", seats);
+		}
+	}
+
+	private static TrainException seatsNotAvailable(int avail) {
+		return TrainException.expected(422, "SEATS_NOT_AVAILABLE",
+				"Only " + avail + " Seats are Available in this Train!");
 	}
 
 	@Override
 	public HistoryBean createHistory(HistoryBean details) throws TrainException {
 		HistoryBean history = null;
-		String query = "INSERT INTO HISTORY VALUES(?,?,?,?,?,?,?,?)";
 		try {
-			Connection con = DBUtil.getConnection();
-			PreparedStatement ps = con.prepareStatement(query);
-			String transactionId = UUID.randomUUID().toString();
-			ps.setString(1, transactionId);
-			ps.setString(2, details.getMailId());
-			ps.setString(3, details.getTr_no());
-			ps.setString(4, details.getDate());
-			ps.setString(5, details.getFrom_stn());
-			ps.setString(6, details.getTo_stn());
-			ps.setLong(7, details.getSeats());
-			ps.setDouble(8, details.getAmount());
-			int response = ps.executeUpdate();
+			String query = DBUtil.isOracle() ? CREATE_HISTORY : CREATE_HISTORY_H2;
+			String transactionId = PnrGenerator.nextPnr();
+			int response = DataAccess.update("BookingService.createHistory", query, ps -> {
+				ps.setString(1, transactionId);
+				ps.setString(2, details.getMailId());
+				ps.setString(3, details.getTr_no());
+				ps.setString(4, details.getDate());
+				ps.setString(5, details.getFrom_stn());
+				ps.setString(6, details.getTo_stn());
+				ps.setLong(7, details.getSeats());
+				ps.setDouble(8, details.getAmount());
+				ps.setString(9, PnrGenerator.nextPnr());
+				ps.setString(10, transactionId);
+				ps.setString(11, OutboxEvent.BOOKING_CONFIRMED);
+				ps.setString(12, toEventPayload(transactionId, details));
+			});
 			if (response > 0) {
 				history = (HistoryBean) details;
 				history.setTransId(transactionId);
 			} else {
 				throw new TrainException(ResponseCode.INTERNAL_SERVER_ERROR);
 			}
-			ps.close();
 		} catch (SQLException e) {
-			System.out.println(e.getMessage());
+			LOG.warn("Statement failed", "query", "BookingService.createHistory", "error", e.getMessage());
 			throw new TrainException(e.getMessage());
 		}
 		return history;
 	}
 
+	@Override
+	public boolean reserveBookingToken(String token, String customerEmailId) throws TrainException {
+		boolean reserved = false;
+		String query = "INSERT INTO BOOKING_TOKEN(TOKEN, MAILID) VALUES(?,?)";
+		try {
+			purgeExpiredTokens();
+			reserved = DataAccess.update("BookingService.reserveBookingToken", query, ps -> {
+				ps.setString(1, token);
+				ps.setString(2, customerEmailId);
+			}) > 0;
+		} catch (SQLException e) {
+			// a unique key violation means the token was used by an earlier submission
+			if (!(e instanceof SQLIntegrityConstraintViolationException)
+					&& !e.getMessage().toUpperCase().contains("ORA-00001")) {
+				LOG.warn("Statement failed", "query", "BookingService.reserveBookingToken", "error", e.getMessage());
+				throw new TrainException(e.getMessage());
+			}
+		}
+		return reserved;
+	}
+
+	@Override
+	public void completeBookingToken(String token, String transId) throws TrainException {
+		String query = "UPDATE BOOKING_TOKEN SET TRANSID=? WHERE TOKEN=?";
+		try {
+			DataAccess.update("BookingService.completeBookingToken", query, ps -> {
+				ps.setString(1, transId);
+				ps.setString(2, token);
+			});
+		} catch (SQLException e) {
+			LOG.warn("Statement failed", "query", "BookingService.completeBookingToken", "error", e.getMessage());
+			throw new TrainException(e.getMessage());
+		}
+	}
+
+	// Only a token that did not book anything, so the same form or key can be sent again
+	@Override
+	public void releaseBookingToken(String token) throws TrainException {
+		String query = "DELETE FROM BOOKING_TOKEN WHERE TOKEN=? AND TRANSID IS NULL";
+		try {
+			DataAccess.update("BookingService.releaseBookingToken", query, ps -> ps.setString(1, token));
+		} catch (SQLException e) {
+			LOG.warn("Statement failed", "query", "BookingService.releaseBookingToken", "error", e.getMessage());
+			throw new TrainException(e.getMessage());
+		}
+	}
+
+	@Override
+	public HistoryBean getBookingByToken(String token) throws TrainException {
+		String query = "SELECT " + HISTORY_COLUMNS
+				+ " FROM HISTORY H JOIN BOOKING_TOKEN B ON H.TRANSID = B.TRANSID WHERE B.TOKEN=?";
+		try {
+			return DataAccess.queryFirst("BookingService.getBookingByToken", query, ps -> ps.setString(1, token),
+					BookingServiceImpl::toHistory);
+		} catch (SQLException e) {
+			LOG.warn("Statement failed", "query", "BookingService.getBookingByToken", "error", e.getMessage());
+			throw new TrainException(e.getMessage());
+		}
+	}
+
+	// At most once per TOKEN_PURGE_INTERVAL, on the thread of the reservation that finds it due
+	private static void purgeExpiredTokens() throws TrainException {
+		long now = System.currentTimeMillis();
+		long nextPurge = NEXT_TOKEN_PURGE.get();
+		if (now < nextPurge || !NEXT_TOKEN_PURGE.compareAndSet(nextPurge, now + TOKEN_PURGE_INTERVAL)) {
+			return;
+		}
+		try {
+			int purged = DataAccess.update("BookingService.purgeBookingTokens", PURGE_BOOKING_TOKENS,
+					ps -> ps.setInt(1, BookingTokenCache.TOKEN_MAX_AGE));
+			if (purged > 0) {
+				LOG.info("Purged expired booking tokens", "tokens", purged);
+			}
+		} catch (SQLException e) {
+			// the next reservation after the interval tries again
+			LOG.warn("Statement failed", "query", "BookingService.purgeBookingTokens", "error", e.getMessage());
+		}
+	}
+
+	// Row mapper, the columns are read by position in the order of HISTORY_COLUMNS
+	private static HistoryBean toHistory(ResultSet rs) throws SQLException {
+		HistoryBean transaction = new HistoryBean();
+		transaction.setTransId(rs.getString(1));
+		transaction.setMailId(rs.getString(2));
+		transaction.setTr_no(rs.getString(3));
+		transaction.setDate(rs.getString(4));
+		transaction.setFrom_stn(rs.getString(5));
+		transaction.setTo_stn(rs.getString(6));
+		transaction.setSeats(rs.getInt(7));
+		transaction.setAmount(rs.getDouble(8));
+		return transaction;
+	}
+
+	private static String toEventPayload(String transactionId, HistoryBean details) {
+		StringWriter payload = new StringWriter();
+		try {
+			new JsonWriter(payload).beginObject().name("transId").value(transactionId).name("mailId")
+					.value(details.getMailId()).name("trainNo").value(details.getTr_no()).name("date")
+					.value(details.getDate()).name("fromStn").value(details.getFrom_stn()).name("toStn")
+					.value(details.getTo_stn()).name("seats").value(details.getSeats()).name("amount")
+					.value(details.getAmount()).endObject();
+		} catch (IOException e) {
+			// a StringWriter does not fail
+			throw new UncheckedIOException(e);
+		}
+		return payload.toString();
+	}
+
 }
@@ -0,0 +1,73 @@
+package com.shashi.service.impl;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+import com.shashi.beans.OutboxEvent;
+import com.shashi.beans.TrainException;
+import com.shashi.service.OutboxService;
+import com.shashi.utility.DataAccess;
+import com.shashi.utility.Log;
+import com.shashi.utility.Metrics;
+
+//Service Implementation class for the booking event outbox
+//Events are written together with the booking history and read back here by the relay
+public class OutboxServiceImpl implements OutboxService {
+
+	private static final Log LOG = Log.get(OutboxServiceImpl.class);
+
+	@Override
+	public List<OutboxEvent> getPendingEvents(int limit) throws TrainException {
+		String query = "SELECT * FROM (SELECT EVENTID, TRANSID, EVENT_TYPE, PAYLOAD FROM BOOKING_OUTBOX"
+				+ " WHERE DELIVERED IS NULL ORDER BY EVENTID) WHERE ROWNUM <= ?";
+		try {
+			// the whole batch in one round trip
+			return DataAccess.query("OutboxService.getPendingEvents", query, limit, ps -> ps.setInt(1, limit),
+					OutboxServiceImpl::toEvent);
+		} catch (SQLException e) {
+			LOG.warn("Statement failed", "query", "OutboxService.getPendingEvents", "error", e.getMessage());
+			throw new TrainException(e.getMessage());
+		}
+	}
+
+	@Override
+	public int markDelivered(List<OutboxEvent> events) throws TrainException {
+		int delivered = 0;
+		if (events.isEmpty()) {
+			return delivered;
+		}
+		String query = "UPDATE BOOKING_OUTBOX SET DELIVERED=SYSDATE WHERE EVENTID=?";
+		try {
+			int[] responses = DataAccess.execute(query, ps -> {
+				for (OutboxEvent event : events) {
+					ps.setString(1, event.getEventId());
+					ps.addBatch();
+				}
+				return Metrics.timeQuery("OutboxService.markDelivered", ps::executeBatch);
+			});
+			for (int response : responses) {
+				// drivers may report SUCCESS_NO_INFO (-2) for batched updates, EXECUTE_FAILED (-3) stays pending
+				if (response > 0 || response == Statement.SUCCESS_NO_INFO) {
+					delivered++;
+				}
+			}
+		} catch (SQLException e) {
+			LOG.warn("Statement failed", "query", "OutboxService.markDelivered", "error", e.getMessage());
+			throw new TrainException(e.getMessage());
+		}
+		return delivered;
+	}
+
+	// Row mapper, the columns are read by position in the order of the query
+	private static OutboxEvent toEvent(ResultSet rs) throws SQLException {
+		OutboxEvent event = new OutboxEvent();
+		event.setEventId(rs.getString(1));
+		event.setTransId(rs.getString(2));
+		event.setEventType(rs.getString(3));
+		event.setPayload(rs.getString(4));
+		return event;
+	}
+
+}
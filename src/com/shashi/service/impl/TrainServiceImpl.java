@@ -1,38 +1,53 @@
 package com.shashi.service.impl;
 
-import java.sql.Connection;
-import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
 
 import com.shashi.beans.TrainBean;
 import com.shashi.beans.TrainException;
 import com.shashi.constant.ResponseCode;
 import com.shashi.service.TrainService;
-import com.shashi.utility.DBUtil;
+import com.shashi.utility.CatalogSnapshot;
+import com.shashi.utility.CatalogVersion;
+import com.shashi.utility.DataAccess;
+import com.shashi.utility.GuardedConnection;
+import com.shashi.utility.Log;
 
 public class TrainServiceImpl implements TrainService {
 
+	private static final Log LOG = Log.get(TrainServiceImpl.class);
+
+	private static final int IN_LIST_SIZE = 100;
+
+	// every column a train page shows, see toTrain
+	private static final String TRAIN_COLUMNS = "TR_NO, TR_NAME, FROM_STN, TO_STN, SEATS, FARE";
+
+	// what a seat availability answer needs, see toAvailability
+	private static final String AVAILABILITY_COLUMNS = "TR_NO, SEATS, FARE";
+
 	@Override
 	public String addTrain(TrainBean train) {
 		String responseCode = ResponseCode.FAILURE.toString();
 		String query = "INSERT INTO TRAIN VALUES(?,?,?,?,?,?)";
 		try {
-			Connection con = DBUtil.getConnection();
-			PreparedStatement ps = con.prepareStatement(query);
-			ps.setLong(1, train.getTr_no());
-			ps.setString(2, train.getTr_name());
-			ps.setString(3, train.getFrom_stn());
-			ps.setString(4, train.getTo_stn());
-			ps.setLong(5, train.getSeats());
-			ps.setDouble(6, train.getFare());
-			ResultSet rs = ps.executeQuery();
-			if (rs.next()) {
+			int response = DataAccess.update("TrainService.addTrain", query, ps -> {
+				ps.setLong(1, train.getTr_no());
+				ps.setString(2, train.getTr_name());
+				ps.setString(3, train.getFrom_stn());
+				ps.setString(4, train.getTo_stn());
+				ps.setLong(5, train.getSeats());
+				ps.setDouble(6, train.getFare());
+			});
+			if (response > 0) {
+				CatalogVersion.bump();
 				responseCode = ResponseCode.SUCCESS.toString();
 			}
-			ps.close();
 		} catch (SQLException | TrainException e) {
 			responseCode += " : " + e.getMessage();
 		}
@@ -44,14 +59,11 @@ public class TrainServiceImpl implements TrainService {
 		String responseCode = ResponseCode.FAILURE.toString();
 		String query = "DELETE FROM TRAIN WHERE TR_NO=?";
 		try {
-			Connection con = DBUtil.getConnection();
-			PreparedStatement ps = con.prepareStatement(query);
-			ps.setString(1, trainNo);
-			int response = ps.executeUpdate();
+			int response = DataAccess.update("TrainService.deleteTrainById", query, ps -> ps.setString(1, trainNo));
 			if (response > 0) {
+				CatalogVersion.bump();
 				responseCode = ResponseCode.SUCCESS.toString();
 			}
-			ps.close();
 		} catch (SQLException | TrainException e) {
 			responseCode += " : " + e.getMessage();
 		}
@@ -63,19 +75,18 @@ public class TrainServiceImpl implements TrainService {
 		String responseCode = ResponseCode.FAILURE.toString();
 		String query = "UPDATE TRAIN SET TR_NAME=?, FROM_STN=?,TO_STN=?,SEATS=?,FARE=? WHERE TR_NO=?";
 		try {
-			Connection con = DBUtil.getConnection();
-			PreparedStatement ps = con.prepareStatement(query);
-			ps.setString(1, train.getTr_name());
-			ps.setString(2, train.getFrom_stn());
-			ps.setString(3, train.getTo_stn());
-			ps.setLong(4, train.getSeats());
-			ps.setDouble(5, train.getFare());
-			ps.setDouble(6, train.getTr_no());
-			ResultSet rs = ps.executeQuery();
-			if (rs.next()) {
+			int response = DataAccess.update("TrainService.updateTrain", query, ps -> {
+				ps.setString(1, train.getTr_name());
+				ps.setString(2, train.getFrom_stn());
+				ps.setString(3, train.getTo_stn());
+				ps.setLong(4, train.getSeats());
+				ps.setDouble(5, train.getFare());
+				ps.setDouble(6, train.getTr_no());
+			});
+			if (response > 0) {
+				CatalogVersion.bump();
 				responseCode = ResponseCode.SUCCESS.toString();
 			}
-			ps.close();
 		} catch (SQLException | TrainException e) {
 			responseCode += " : " + e.getMessage();
 		}
@@ -84,87 +95,209 @@ public class TrainServiceImpl implements TrainService {
 
 	@Override
 	public TrainBean getTrainById(String trainNo) throws TrainException {
-		TrainBean train = null;
-		String query = "SELECT * FROM TRAIN WHERE TR_NO=?";
-		try {
-			Connection con = DBUtil.getConnection();
-			PreparedStatement ps = con.prepareStatement(query);
-			ps.setString(1, trainNo);
-			ResultSet rs = ps.executeQuery();
-			if (rs.next()) {
-				train = new TrainBean();
-				train.setFare(rs.getDouble("fare"));
-				train.setFrom_stn(rs.getString("from_stn"));
-				train.setTo_stn(rs.getString("to_stn"));
-				train.setTr_name(rs.getString("tr_name"));
-				train.setTr_no(rs.getLong("tr_no"));
-				train.setSeats(rs.getInt("seats"));
-			}
-			ps.close();
-		} catch (SQLException e) {
-			System.out.println(e.getMessage());
-			throw new TrainException(e.getMessage());
+		if (CatalogSnapshot.isWarming()) {
+			return CatalogSnapshot.getTrain(toTrainNo(trainNo));
 		}
+		return readCatalog(() -> queryTrainById(trainNo), trains -> {
+			Long number = toTrainNo(trainNo);
+			for (TrainBean train : trains) {
+				if (train.getTr_no().equals(number)) {
+					return train;
+				}
+			}
+			return null;
+		});
+	}
+
+	@Override
+	public TrainBean getTrainFromDatabase(String trainNo) throws TrainException {
+		// a stale copy would book seats that are gone or write old values back over new ones
+		TrainBean train = queryTrainById(trainNo);
+		CatalogSnapshot.databaseAvailable();
 		return train;
 	}
 
 	@Override
 	public List<TrainBean> getAllTrains() throws TrainException {
-		List<TrainBean> trains = null;
-		String query = "SELECT * FROM TRAIN";
-		try {
-			Connection con = DBUtil.getConnection();
-			PreparedStatement ps = con.prepareStatement(query);
-			ResultSet rs = ps.executeQuery();
-			trains = new ArrayList<TrainBean>();
-			while (rs.next()) {
-				TrainBean train = new TrainBean();
-				train.setFare(rs.getDouble("fare"));
-				train.setFrom_stn(rs.getString("from_stn"));
-				train.setTo_stn(rs.getString("to_stn"));
-				train.setTr_name(rs.getString("tr_name"));
-				train.setTr_no(rs.getLong("tr_no"));
-				train.setSeats(rs.getInt("seats"));
-				trains.add(train);
-			}
-
-			ps.close();
-		} catch (SQLException e) {
-			System.out.println(e.getMessage());
-			throw new TrainException(e.getMessage());
+		if (CatalogSnapshot.isWarming()) {
+			return CatalogSnapshot.getTrains();
 		}
-		return trains;
+		return readCatalog(() -> queryAllTrains(), trains -> trains);
+	}
+
+	// The catalog as the database has it, without the snapshot fallback. CatalogSnapshot copies it
+	public List<TrainBean> getAllTrainsFromDatabase() throws TrainException {
+		return queryAllTrains();
 	}
 
 	@Override
 	public List<TrainBean> getTrainsBetweenStations(String fromStation, String toStation) throws TrainException {
-		List<TrainBean> trains = null;
-		String query = "SELECT * FROM TRAIN WHERE UPPER(FROM_STN) LIKE UPPER(?) AND UPPER(TO_STN) LIKE UPPER(?)";
+		String from = fromStation.toUpperCase();
+		String to = toStation.toUpperCase();
+		return readCatalog(() -> queryTrainsBetweenStations(fromStation, toStation), trains -> {
+			List<TrainBean> found = new ArrayList<TrainBean>();
+			for (TrainBean train : trains) {
+				if (train.getFrom_stn().toUpperCase().contains(from) && train.getTo_stn().toUpperCase().contains(to)) {
+					found.add(train);
+				}
+			}
+			return found;
+		});
+	}
 
+	@Override
+	public List<TrainBean> getTrainsByIds(List<String> trainNos) throws TrainException {
+		return readCatalog(
+				() -> queryTrainsByIds(trainNos, TRAIN_COLUMNS, TrainServiceImpl::toTrain, "TrainService.getTrainsByIds"),
+				trains -> filterByIds(trains, trainNos));
+	}
+
+	@Override
+	public List<TrainBean> getAvailability(List<String> trainNos) throws TrainException {
+		return readCatalog(() -> queryTrainsByIds(trainNos, AVAILABILITY_COLUMNS, TrainServiceImpl::toAvailability,
+				"TrainService.getAvailability"), trains -> filterByIds(trains, trainNos));
+	}
+
+	private static List<TrainBean> filterByIds(List<TrainBean> trains, List<String> trainNos) {
+		Set<Long> numbers = new HashSet<Long>();
+		for (String trainNo : trainNos) {
+			numbers.add(toTrainNo(trainNo));
+		}
+		List<TrainBean> found = new ArrayList<TrainBean>();
+		for (TrainBean train : trains) {
+			if (numbers.contains(train.getTr_no())) {
+				found.add(train);
+			}
+		}
+		return found;
+	}
+
+	// Row mappers, the columns are read by position in the order of TRAIN_COLUMNS and AVAILABILITY_COLUMNS
+	private static TrainBean toTrain(ResultSet rs) throws SQLException {
+		TrainBean train = new TrainBean();
+		train.setTr_no(rs.getLong(1));
+		train.setTr_name(rs.getString(2));
+		train.setFrom_stn(rs.getString(3));
+		train.setTo_stn(rs.getString(4));
+		train.setSeats(rs.getInt(5));
+		train.setFare(rs.getDouble(6));
+		return train;
+	}
+
+	private static TrainBean toAvailability(ResultSet rs) throws SQLException {
+		TrainBean train = new TrainBean();
+		train.setTr_no(rs.getLong(1));
+		train.setSeats(rs.getInt(2));
+		train.setFare(rs.getDouble(3));
+		return train;
+	}
+
+	@FunctionalInterface
+	private interface CatalogRead<T> {
+		T read() throws TrainException;
+	}
+
+	// Reads fall back to the last known good catalog while the database is down, see CatalogSnapshot
+	private static <T> T readCatalog(CatalogRead<T> read, Function<List<TrainBean>, T> fromSnapshot)
+			throws TrainException {
+		T result;
 		try {
-			Connection con = DBUtil.getConnection();
-			PreparedStatement ps = con.prepareStatement(query);
-			ps.setString(1, "%" + fromStation + "%");
-			ps.setString(2, "%" + toStation + "%");
-			ResultSet rs = ps.executeQuery();
-			trains = new ArrayList<TrainBean>();
-			while (rs.next()) {
-				TrainBean train = new TrainBean();
-				train.setFare(rs.getDouble("fare"));
-				train.setFrom_stn(rs.getString("from_stn"));
-				train.setTo_stn(rs.getString("to_stn"));
-				train.setTr_name(rs.getString("tr_name"));
-				train.setTr_no(rs.getLong("tr_no"));
-				train.setSeats(rs.getInt("seats"));
-				trains.add(train);
+			result = read.read();
+		} catch (TrainException e) {
+			if (!CatalogSnapshot.isOutage(e)) {
+				throw e;
 			}
+			return fromSnapshot.apply(CatalogSnapshot.getTrains(e));
+		}
+		CatalogSnapshot.databaseAvailable();
+		return result;
+	}
 
-			ps.close();
+	private static TrainException failure(SQLException e) {
+		TrainException failure;
+		if (GuardedConnection.isOutage(e)) {
+			failure = TrainException.of(ResponseCode.DATABASE_CONNECTION_FAILURE);
+		} else {
+			failure = new TrainException(e.getMessage());
+		}
+		// the SQL state and vendor code of the outage stay in the log of the request
+		failure.initCause(e);
+		return failure;
+	}
+
+	private static Long toTrainNo(String trainNo) {
+		try {
+			return Long.valueOf(trainNo.trim());
+		} catch (NumberFormatException e) {
+			return null;
+		}
+	}
+
+	private TrainBean queryTrainById(String trainNo) throws TrainException {
+		String query = "SELECT " + TRAIN_COLUMNS + " FROM TRAIN WHERE TR_NO=?";
+		try {
+			return DataAccess.queryFirst("TrainService.getTrainById", query, ps -> ps.setString(1, trainNo),
+					TrainServiceImpl::toTrain);
 		} catch (SQLException e) {
-			System.out.println(e.getMessage());
-			throw new TrainException(e.getMessage());
+			LOG.warn("Statement failed", "query", "TrainService.getTrainById", "error", e.getMessage());
+			throw failure(e);
 		}
-		return trains;
 	}
 
+	private List<TrainBean> queryAllTrains() throws TrainException {
+		String query = "SELECT " + TRAIN_COLUMNS + " FROM TRAIN";
+		try {
+			return DataAccess.query("TrainService.getAllTrains", query, null, TrainServiceImpl::toTrain);
+		} catch (SQLException e) {
+			LOG.warn("Statement failed", "query", "TrainService.getAllTrains", "error", e.getMessage());
+			throw failure(e);
+		}
+	}
+
+	private List<TrainBean> queryTrainsBetweenStations(String fromStation, String toStation) throws TrainException {
+		String query = "SELECT " + TRAIN_COLUMNS
+				+ " FROM TRAIN WHERE UPPER(FROM_STN) LIKE UPPER(?) AND UPPER(TO_STN) LIKE UPPER(?)";
+		try {
+			return DataAccess.query("TrainService.getTrainsBetweenStations", query, ps -> {
+				ps.setString(1, "%" + fromStation + "%");
+				ps.setString(2, "%" + toStation + "%");
+			}, TrainServiceImpl::toTrain);
+		} catch (SQLException e) {
+			LOG.warn("Statement failed", "query", "TrainService.getTrainsBetweenStations", "error", e.getMessage());
+			throw failure(e);
+		}
+	}
+
+	// Fetches many trains with IN lists of at most IN_LIST_SIZE numbers instead of a query per train.
+	// The last chunk is padded with its last number so every chunk runs the same prepared statement
+	private List<TrainBean> queryTrainsByIds(List<String> trainNos, String columns,
+			DataAccess.RowMapper<TrainBean> mapper, String name) throws TrainException {
+		List<String> distinct = new ArrayList<String>(new LinkedHashSet<String>(trainNos));
+		if (distinct.isEmpty()) {
+			return new ArrayList<TrainBean>();
+		}
+		int size = Math.min(distinct.size(), IN_LIST_SIZE);
+		StringBuilder query = new StringBuilder("SELECT " + columns + " FROM TRAIN WHERE TR_NO IN (?");
+		for (int i = 1; i < size; i++) {
+			query.append(",?");
+		}
+		query.append(")");
+
+		try {
+			return DataAccess.execute(query.toString(), ps -> {
+				List<TrainBean> trains = new ArrayList<TrainBean>(distinct.size());
+				for (int start = 0; start < distinct.size(); start += size) {
+					int end = Math.min(start + size, distinct.size());
+					for (int i = 0; i < size; i++) {
+						ps.setString(i + 1, distinct.get(Math.min(start + i, end - 1)));
+					}
+					DataAccess.fetch(name, ps, DataAccess.getFetchSize(), mapper, trains);
+				}
+				return trains;
+			});
+		} catch (SQLException e) {
+			LOG.warn("Statement failed", "query", name, "error", e.getMessage());
+			throw failure(e);
+		}
+	}
 }
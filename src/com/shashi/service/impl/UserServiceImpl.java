@@ -1,10 +1,8 @@
 package com.shashi.service.impl;
 
-import java.sql.Connection;
-import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.util.ArrayList;
+import java.sql.SQLIntegrityConstraintViolationException;
 import java.util.List;
 
 import com.shashi.beans.TrainException;
@@ -12,10 +10,16 @@ import com.shashi.beans.UserBean;
 import com.shashi.constant.ResponseCode;
 import com.shashi.constant.UserRole;
 import com.shashi.service.UserService;
-import com.shashi.utility.DBUtil;
+import com.shashi.utility.DataAccess;
+import com.shashi.utility.Log;
 
 public class UserServiceImpl implements UserService {
 
+	private static final Log LOG = Log.get(UserServiceImpl.class);
+
+	// the profile without PWORD, see toUser
+	private static final String USER_COLUMNS = "MAILID, FNAME, LNAME, ADDR, PHNO";
+
 	private final String TABLE_NAME;
 
 	public UserServiceImpl(UserRole userRole) {
@@ -28,57 +32,33 @@ public class UserServiceImpl implements UserService {
 	@Override
 	public UserBean getUserByEmailId(String customerEmailId) throws TrainException {
 		UserBean customer = null;
-		String query = "SELECT * FROM " + TABLE_NAME + " WHERE MAILID=?";
+		String query = "SELECT " + USER_COLUMNS + " FROM " + TABLE_NAME + " WHERE MAILID=?";
 		try {
-			Connection con = DBUtil.getConnection();
-			PreparedStatement ps = con.prepareStatement(query);
-			ps.setString(1, customerEmailId);
-			ResultSet rs = ps.executeQuery();
-			if (rs.next()) {
-				customer = new UserBean();
-				customer.setFName(rs.getString("fname"));
-				customer.setLName(rs.getString("lname"));
-				customer.setAddr(rs.getString("addr"));
-				customer.setMailId(rs.getString("mailid"));
-				customer.setPhNo(rs.getLong("phno"));
-			} else {
-				throw new TrainException(ResponseCode.NO_CONTENT);
-			}
-			ps.close();
+			customer = DataAccess.queryFirst("UserService.getUserByEmailId", query,
+					ps -> ps.setString(1, customerEmailId), UserServiceImpl::toUser);
 		} catch (SQLException e) {
-			System.out.println(e.getMessage());
+			LOG.warn("Statement failed", "query", "UserService.getUserByEmailId", "error", e.getMessage());
 			throw new TrainException(e.getMessage());
 		}
+		if (customer == null) {
+			throw TrainException.of(ResponseCode.NO_CONTENT);
+		}
 		return customer;
 	}
 
 	@Override
 	public List<UserBean> getAllUsers() throws TrainException {
 		List<UserBean> customers = null;
-		String query = "SELECT * FROM  " + TABLE_NAME;
+		String query = "SELECT " + USER_COLUMNS + " FROM " + TABLE_NAME;
 		try {
-			Connection con = DBUtil.getConnection();
-			PreparedStatement ps = con.prepareStatement(query);
-			ResultSet rs = ps.executeQuery();
-			customers = new ArrayList<UserBean>();
-			while (rs.next()) {
-				UserBean customer = new UserBean();
-				customer.setFName(rs.getString("fname"));
-				customer.setLName(rs.getString("lname"));
-				customer.setAddr(rs.getString("addr"));
-				customer.setMailId(rs.getString("mailid"));
-				customer.setPhNo(rs.getLong("phno"));
-				customers.add(customer);
-			}
-
-			if (customers.isEmpty()) {
-				throw new TrainException(ResponseCode.NO_CONTENT);
-			}
-			ps.close();
+			customers = DataAccess.query("UserService.getAllUsers", query, null, UserServiceImpl::toUser);
 		} catch (SQLException e) {
-			System.out.println(e.getMessage());
+			LOG.warn("Statement failed", "query", "UserService.getAllUsers", "error", e.getMessage());
 			throw new TrainException(e.getMessage());
 		}
+		if (customers.isEmpty()) {
+			throw TrainException.of(ResponseCode.NO_CONTENT);
+		}
 		return customers;
 	}
 
@@ -87,18 +67,16 @@ public class UserServiceImpl implements UserService {
 		String responseCode = ResponseCode.FAILURE.toString();
 		String query = "UPDATE  " + TABLE_NAME + " SET FNAME=?,LNAME=?,ADDR=?,PHNO=? WHERE MAILID=?";
 		try {
-			Connection con = DBUtil.getConnection();
-			PreparedStatement ps = con.prepareStatement(query);
-			ps.setString(1, customer.getFName());
-			ps.setString(2, customer.getLName());
-			ps.setString(3, customer.getAddr());
-			ps.setLong(4, customer.getPhNo());
-			ps.setString(5, customer.getMailId());
-			int response = ps.executeUpdate();
+			int response = DataAccess.update("UserService.updateUser", query, ps -> {
+				ps.setString(1, customer.getFName());
+				ps.setString(2, customer.getLName());
+				ps.setString(3, customer.getAddr());
+				ps.setLong(4, customer.getPhNo());
+				ps.setString(5, customer.getMailId());
+			});
 			if (response > 0) {
 				responseCode = ResponseCode.SUCCESS.toString();
 			}
-			ps.close();
 		} catch (SQLException | TrainException e) {
 			responseCode += " : " + e.getMessage();
 		}
@@ -110,15 +88,10 @@ public class UserServiceImpl implements UserService {
 		String responseCode = ResponseCode.FAILURE.toString();
 		String query = "DELETE FROM " + TABLE_NAME + " WHERE MAILID=?";
 		try {
-			Connection con = DBUtil.getConnection();
-			PreparedStatement ps = con.prepareStatement(query);
-			ps.setString(1, customer.getMailId());
-
-			int response = ps.executeUpdate();
+			int response = DataAccess.update("UserService.deleteUser", query, ps -> ps.setString(1, customer.getMailId()));
 			if (response > 0) {
 				responseCode = ResponseCode.SUCCESS.toString();
 			}
-			ps.close();
 		} catch (SQLException | TrainException e) {
 			responseCode += " : " + e.getMessage();
 		}
@@ -130,21 +103,20 @@ public class UserServiceImpl implements UserService {
 		String responseCode = ResponseCode.FAILURE.toString();
 		String query = "INSERT INTO " + TABLE_NAME + " VALUES(?,?,?,?,?,?)";
 		try {
-			Connection con = DBUtil.getConnection();
-			PreparedStatement ps = con.prepareStatement(query);
-			ps.setString(1, customer.getMailId());
-			ps.setString(2, customer.getPWord());
-			ps.setString(3, customer.getFName());
-			ps.setString(4, customer.getLName());
-			ps.setString(5, customer.getAddr());
-			ps.setLong(6, customer.getPhNo());
-			ResultSet rs = ps.executeQuery();
-			if (rs.next()) {
+			int response = DataAccess.update("UserService.registerUser", query, ps -> {
+				ps.setString(1, customer.getMailId());
+				ps.setString(2, customer.getPWord());
+				ps.setString(3, customer.getFName());
+				ps.setString(4, customer.getLName());
+				ps.setString(5, customer.getAddr());
+				ps.setLong(6, customer.getPhNo());
+			});
+			if (response > 0) {
 				responseCode = ResponseCode.SUCCESS.toString();
 			}
-			ps.close();
 		} catch (SQLException | TrainException e) {
-			if (e.getMessage().toUpperCase().contains("ORA-00001")) {
+			if (e instanceof SQLIntegrityConstraintViolationException
+					|| e.getMessage().toUpperCase().contains("ORA-00001")) {
 				responseCode += " : " + "User With Id: " + customer.getMailId() + " is already registered ";
 			} else {
 				responseCode += " : " + e.getMessage();
@@ -156,30 +128,32 @@ public class UserServiceImpl implements UserService {
 	@Override
 	public UserBean loginUser(String username, String password) throws TrainException {
 		UserBean customer = null;
-		String query = "SELECT * FROM " + TABLE_NAME + " WHERE MAILID=? AND PWORD=?";
+		String query = "SELECT " + USER_COLUMNS + " FROM " + TABLE_NAME + " WHERE MAILID=? AND PWORD=?";
 		try {
-			Connection con = DBUtil.getConnection();
-			PreparedStatement ps = con.prepareStatement(query);
-			ps.setString(1, username);
-			ps.setString(2, password);
-			ResultSet rs = ps.executeQuery();
-			if (rs.next()) {
-				customer = new UserBean();
-				customer.setFName(rs.getString("fname"));
-				customer.setLName(rs.getString("lname"));
-				customer.setAddr(rs.getString("addr"));
-				customer.setMailId(rs.getString("mailid"));
-				customer.setPhNo(rs.getLong("phno"));
-				customer.setPWord(rs.getString("pword"));
-			} else {
-				throw new TrainException(ResponseCode.UNAUTHORIZED);
-			}
-			ps.close();
+			customer = DataAccess.queryFirst("UserService.loginUser", query, ps -> {
+				ps.setString(1, username);
+				ps.setString(2, password);
+			}, UserServiceImpl::toUser);
 		} catch (SQLException e) {
-			System.out.println(e.getMessage());
+			LOG.warn("Statement failed", "query", "UserService.loginUser", "error", e.getMessage());
 			throw new TrainException(e.getMessage());
 		}
+		if (customer == null) {
+			throw TrainException.of(ResponseCode.UNAUTHORIZED);
+		}
+		// the password just matched, it is not read back from the database
+		customer.setPWord(password);
 		return customer;
 	}
 
+	// Row mapper, the columns are read by position in the order of USER_COLUMNS
+	private static UserBean toUser(ResultSet rs) throws SQLException {
+		UserBean customer = new UserBean();
+		customer.setMailId(rs.getString(1));
+		customer.setFName(rs.getString(2));
+		customer.setLName(rs.getString(3));
+		customer.setAddr(rs.getString(4));
+		customer.setPhNo(rs.getLong(5));
+		return customer;
+	}
 }
@@ -3,7 +3,6 @@ package com.shashi.servlets;
 import java.io.IOException;
 import java.io.PrintWriter;
 
-import javax.servlet.RequestDispatcher;
 import javax.servlet.ServletException;
 import javax.servlet.annotation.WebServlet;
 import javax.servlet.http.HttpServlet;
@@ -16,6 +15,7 @@ import com.shashi.constant.ResponseCode;
 import com.shashi.constant.UserRole;
 import com.shashi.service.TrainService;
 import com.shashi.service.impl.TrainServiceImpl;
+import com.shashi.utility.PageFragments;
 import com.shashi.utility.TrainUtil;
 
 @WebServlet("/adminaddtrain")
@@ -49,16 +49,14 @@ public class AdminAddTrain extends HttpServlet {
 			train.setFare(Double.parseDouble(req.getParameter("fare")));
 			String message = trainService.addTrain(train);
 			if (ResponseCode.SUCCESS.toString().equalsIgnoreCase(message)) {
-				RequestDispatcher rd = req.getRequestDispatcher("AddTrains.html");
-				rd.include(req, res);
+				PageFragments.include(req, res, "AddTrains.html");
 				pw.println("<div class='tab'><p1 class='menu'>Train Added Successfully!</p1></div>");
 			} else {
-				RequestDispatcher rd = req.getRequestDispatcher("AddTrains.html");
-				rd.include(req, res);
+				PageFragments.include(req, res, "AddTrains.html");
 				pw.println("<div class='tab'><p1 class='menu'>Error in filling the train Detail</p1></div>");
 			}
 		} catch (Exception e) {
-			throw new TrainException(422, this.getClass().getName() + "_FAILED", e.getMessage());
+			throw TrainException.failed(getClass(), e);
 		}
 
 	}
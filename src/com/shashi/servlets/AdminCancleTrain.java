@@ -3,7 +3,6 @@ package com.shashi.servlets;
 import java.io.IOException;
 import java.io.PrintWriter;
 
-import javax.servlet.RequestDispatcher;
 import javax.servlet.ServletException;
 import javax.servlet.annotation.WebServlet;
 import javax.servlet.http.HttpServlet;
@@ -15,6 +14,7 @@ import com.shashi.constant.ResponseCode;
 import com.shashi.constant.UserRole;
 import com.shashi.service.TrainService;
 import com.shashi.service.impl.TrainServiceImpl;
+import com.shashi.utility.PageFragments;
 import com.shashi.utility.TrainUtil;
 
 @WebServlet("/admincancletrain")
@@ -41,17 +41,15 @@ public class AdminCancleTrain extends HttpServlet {
 			String trainNo = req.getParameter("trainno");
 			String message = trainService.deleteTrainById(trainNo);
 			if (ResponseCode.SUCCESS.toString().equalsIgnoreCase(message)) {
-				RequestDispatcher rd = req.getRequestDispatcher("CancleTrain.html");
-				rd.include(req, res);
+				PageFragments.include(req, res, "CancleTrain.html");
 				pw.println("<div class='main'><p1 class='menu'>Train number " + trainNo
 						+ " has been Deleted Successfully.</p1></div>");
 			} else {
-				RequestDispatcher rd = req.getRequestDispatcher("CancleTrain.html");
-				rd.include(req, res);
+				PageFragments.include(req, res, "CancleTrain.html");
 				pw.println("<div class='tab'><p1 class='menu'>Train No." + trainNo + " is Not Available !</p1></div>");
 			}
 		} catch (Exception e) {
-			throw new TrainException(422, this.getClass().getName() + "_FAILED", e.getMessage());
+			throw TrainException.failed(getClass(), e);
 		}
 
 	}
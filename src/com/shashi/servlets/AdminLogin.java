@@ -3,7 +3,6 @@ package com.shashi.servlets;
 import java.io.IOException;
 import java.io.PrintWriter;
 
-import javax.servlet.RequestDispatcher;
 import javax.servlet.ServletException;
 import javax.servlet.annotation.WebServlet;
 import javax.servlet.http.HttpServlet;
@@ -12,6 +11,7 @@ import javax.servlet.http.HttpServletResponse;
 
 import com.shashi.beans.TrainException;
 import com.shashi.constant.UserRole;
+import com.shashi.utility.PageFragments;
 import com.shashi.utility.TrainUtil;
 
 @SuppressWarnings("serial")
@@ -34,19 +34,17 @@ public class AdminLogin extends HttpServlet {
 			String message = TrainUtil.login(req, res, UserRole.ADMIN, uName, pWord);
 			if ("SUCCESS".equalsIgnoreCase(message)) {
 
-				RequestDispatcher rd = req.getRequestDispatcher("AdminHome.html");
-				rd.include(req, res);
+				PageFragments.include(req, res, "AdminHome.html");
 				pw.println("<div class='main'><p1 class='menu'>Hello, " + uName + " ! Welcome </p1></div>");
 				pw.println("<div class='tab'>Hi ! Here You can Manage Train Information as per Your Requirement</div>");
 
 			} else {
-				RequestDispatcher rd = req.getRequestDispatcher("AdminLogin.html");
-				rd.include(req, res);
+				PageFragments.include(req, res, "AdminLogin.html");
 				pw.println("<div class='tab'><p1 class='menu'>" + message + "</p1></div>");
 
 			}
 		} catch (Exception e) {
-			throw new TrainException(422, this.getClass().getName() + "_FAILED", e.getMessage());
+			throw TrainException.failed(getClass(), e);
 		}
 	}
 }
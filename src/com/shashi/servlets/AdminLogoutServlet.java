@@ -3,7 +3,6 @@ package com.shashi.servlets;
 import java.io.IOException;
 import java.io.PrintWriter;
 
-import javax.servlet.RequestDispatcher;
 import javax.servlet.ServletException;
 import javax.servlet.annotation.WebServlet;
 import javax.servlet.http.HttpServlet;
@@ -11,6 +10,7 @@ import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
 import com.shashi.constant.UserRole;
+import com.shashi.utility.PageFragments;
 import com.shashi.utility.TrainUtil;
 
 @SuppressWarnings("serial")
@@ -29,12 +29,10 @@ public class AdminLogoutServlet extends HttpServlet {
 		PrintWriter pw = res.getWriter();
 		if (TrainUtil.isLoggedIn(req, UserRole.ADMIN)) {
 			TrainUtil.logout(res);
-			RequestDispatcher rd = req.getRequestDispatcher("AdminLogin.html");
-			rd.include(req, res);
+			PageFragments.include(req, res, "AdminLogin.html");
 			pw.println("<div class='tab'><p1 class='menu'>You have been successfully logged out !</p1></div>");
 		} else {
-			RequestDispatcher rd = req.getRequestDispatcher("AdminLogin.html");
-			rd.include(req, res);
+			PageFragments.include(req, res, "AdminLogin.html");
 			pw.println("<div class='tab'><p1 class='menu'>You are Already Logged Out !</p1></div>");
 		}
 	}
@@ -0,0 +1,60 @@
+package com.shashi.servlets;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Date;
+import java.util.List;
+
+import javax.servlet.ServletException;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import com.shashi.constant.UserRole;
+import com.shashi.utility.HtmlTemplate;
+import com.shashi.utility.PageFragments;
+import com.shashi.utility.SqlProfiler;
+import com.shashi.utility.TrainUtil;
+
+//Top statements by total db time, from SqlProfiler. GET /sqlprofile?top=20, POST starts counting afresh
+@SuppressWarnings("serial")
+@WebServlet("/sqlprofile")
+public class AdminSqlProfile extends HttpServlet {
+
+	private static final HtmlTemplate SHAPE_ROW = HtmlTemplate.compile(
+			"<tr><td>{}</td><td>{}</td><td>{}</td><td>{}</td><td>{}</td><td>{}</td><td>{}</td><td>{}</td></tr>");
+
+	protected void doGet(HttpServletRequest req, HttpServletResponse res) throws IOException, ServletException {
+		res.setContentType("text/html");
+		PrintWriter pw = res.getWriter();
+		TrainUtil.validateUserAuthorization(req, UserRole.ADMIN);
+		int top = 20;
+		if (req.getParameter("top") != null && req.getParameter("top").matches("\\d{1,3}")) {
+			top = Integer.parseInt(req.getParameter("top"));
+		}
+
+		PageFragments.include(req, res, "AdminHome.html");
+		List<SqlProfiler.ShapeStats> shapes = SqlProfiler.top(top);
+		pw.println("<div class='main'><p1 class='menu'>Top " + shapes.size() + " of " + SqlProfiler.shapeCount()
+				+ " statements by db time since " + new Date(SqlProfiler.getSince()) + "</p1></div>");
+		pw.println("<div class='tab'><table><tr><th>Total ms</th><th>Executions</th><th>Errors</th>"
+				+ "<th>Avg ms</th><th>Max ms</th><th>Rows</th><th>Round trips</th><th>Statement</th></tr>");
+		for (SqlProfiler.ShapeStats shape : shapes) {
+			long executions = Math.max(1, shape.getExecutions());
+			SHAPE_ROW.write(pw, shape.getTotalNanos() / 1000000, shape.getExecutions(), shape.getErrors(),
+					String.format("%.2f", shape.getTotalNanos() / 1e6 / executions),
+					String.format("%.2f", shape.getMaxNanos() / 1e6), shape.getRows(), shape.getRoundTrips(),
+					shape.getShape());
+		}
+		pw.println("</table></div>");
+		pw.println("<div class='tab'><form action='sqlprofile' method='post'>"
+				+ "<input type='submit' value=' RESET '></form></div>");
+	}
+
+	protected void doPost(HttpServletRequest req, HttpServletResponse res) throws IOException, ServletException {
+		TrainUtil.validateUserAuthorization(req, UserRole.ADMIN);
+		SqlProfiler.reset();
+		res.sendRedirect("sqlprofile");
+	}
+}
@@ -3,7 +3,6 @@ package com.shashi.servlets;
 import java.io.IOException;
 import java.io.PrintWriter;
 
-import javax.servlet.RequestDispatcher;
 import javax.servlet.ServletException;
 import javax.servlet.annotation.WebServlet;
 import javax.servlet.http.HttpServlet;
@@ -14,6 +13,7 @@ import com.shashi.beans.TrainBean;
 import com.shashi.beans.TrainException;
 import com.shashi.service.TrainService;
 import com.shashi.service.impl.TrainServiceImpl;
+import com.shashi.utility.PageFragments;
 
 @SuppressWarnings("serial")
 @WebServlet("/adminupdatetrain")
@@ -34,10 +34,10 @@ public class AdminTrainUpdate extends HttpServlet {
 
 		try {
 			String trainNo = req.getParameter("trainnumber");
-			TrainBean train = trainService.getTrainById(trainNo);
+			// the form is posted back as a whole, it must not start from a stale copy
+			TrainBean train = trainService.getTrainFromDatabase(trainNo);
 			if (train != null) {
-				RequestDispatcher rd = req.getRequestDispatcher("AdminHome.html");
-				rd.include(req, res);
+				PageFragments.include(req, res, "AdminHome.html");
 				pw.println("<div class='tab'>Train Schedule Update</div>");
 				pw.println("<div class='tab'>" + "<table><form action='updatetrainschedule' method='post'>"
 						+ "<tr><td>Train No :</td><td><input type='text' name='trainno' value='" + train.getTr_no()
@@ -54,12 +54,11 @@ public class AdminTrainUpdate extends HttpServlet {
 						+ "<tr><td></td><td><input type='submit' name='submit' value='Update Train Schedule'></td></tr>"
 						+ "</form></table>" + "</div>");
 			} else {
-				RequestDispatcher rd = req.getRequestDispatcher("AdminUpdateTrain.html");
-				rd.include(req, res);
+				PageFragments.include(req, res, "AdminUpdateTrain.html");
 				pw.println("<div class='tab'>Train Not Available</div>");
 			}
 		} catch (Exception e) {
-			throw new TrainException(422, this.getClass().getName() + "_FAILED", e.getMessage());
+			throw TrainException.failed(getClass(), e);
 
 		}
 
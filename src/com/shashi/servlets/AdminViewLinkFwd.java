@@ -3,7 +3,6 @@ package com.shashi.servlets;
 import java.io.IOException;
 import java.io.PrintWriter;
 
-import javax.servlet.RequestDispatcher;
 import javax.servlet.ServletException;
 import javax.servlet.annotation.WebServlet;
 import javax.servlet.http.HttpServlet;
@@ -15,10 +14,13 @@ import com.shashi.beans.TrainException;
 import com.shashi.constant.UserRole;
 import com.shashi.service.TrainService;
 import com.shashi.service.impl.TrainServiceImpl;
+import com.shashi.utility.CatalogSnapshot;
+import com.shashi.utility.DBExecutor;
+import com.shashi.utility.PageFragments;
 import com.shashi.utility.TrainUtil;
 
 @SuppressWarnings("serial")
-@WebServlet("/viewadmin")
+@WebServlet(value = "/viewadmin", asyncSupported = true)
 public class AdminViewLinkFwd extends HttpServlet {
 
 	TrainService trainService = new TrainServiceImpl();
@@ -33,13 +35,19 @@ public class AdminViewLinkFwd extends HttpServlet {
 	protected void doGet(HttpServletRequest req, HttpServletResponse res) throws IOException, ServletException {
 		res.setContentType("text/html");
 		PrintWriter pw = res.getWriter();
+		// shows the seats left, which the catalog version leaves out, so the page is not tagged
 		TrainUtil.validateUserAuthorization(req, UserRole.ADMIN);
+		String trainNo = req.getParameter("trainNo");
+		DBExecutor.Result<TrainBean> result = DBExecutor.submit(req, () -> trainService.getTrainById(trainNo));
+		if (!result.isDone()) {
+			return;
+		}
+
 		try {
-			String trainNo = req.getParameter("trainNo");
-			TrainBean train = trainService.getTrainById(trainNo);
+			TrainBean train = result.get();
 			if (train != null) {
-				RequestDispatcher rd = req.getRequestDispatcher("AdminHome.html");
-				rd.include(req, res);
+				PageFragments.include(req, res, "AdminHome.html");
+				CatalogSnapshot.writeBanner(res);
 				pw.println("<div class='main'><p1 class='menu'>Selected Train Detail</p1></div>");
 				pw.println("<div class='tab'>" + "<table>" + "<tr><td class='blue'>Train Name :</td><td>"
 						+ train.getTr_name() + "</td></tr>" + "<tr><td class='blue'>Train Number :</td><td>"
@@ -49,13 +57,13 @@ public class AdminViewLinkFwd extends HttpServlet {
 						+ train.getSeats() + "</td></tr>" + "<tr><td class='blue'>Fare (INR) :</td><td>"
 						+ train.getFare() + " RS</td></tr>" + "</table>" + "</div>");
 			} else {
-				RequestDispatcher rd = req.getRequestDispatcher("AdminSearchTrains.html");
-				rd.include(req, res);
+				PageFragments.include(req, res, "AdminSearchTrains.html");
+				CatalogSnapshot.writeBanner(res);
 				pw.println("<div class='tab'><p1 class='menu'>Train No." + req.getParameter("trainnumber")
 						+ " is Not Available !</p1></div>");
 			}
 		} catch (Exception e) {
-			throw new TrainException(422, this.getClass().getName() + "_FAILED", e.getMessage());
+			throw TrainException.failed(getClass(), e);
 
 		}
 
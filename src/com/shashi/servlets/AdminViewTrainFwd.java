@@ -4,7 +4,6 @@ import java.io.IOException;
 import java.io.PrintWriter;
 import java.util.List;
 
-import javax.servlet.RequestDispatcher;
 import javax.servlet.ServletException;
 import javax.servlet.annotation.WebServlet;
 import javax.servlet.http.HttpServlet;
@@ -16,44 +15,55 @@ import com.shashi.beans.TrainException;
 import com.shashi.constant.UserRole;
 import com.shashi.service.TrainService;
 import com.shashi.service.impl.TrainServiceImpl;
+import com.shashi.utility.CatalogSnapshot;
+import com.shashi.utility.DBExecutor;
+import com.shashi.utility.HtmlTemplate;
+import com.shashi.utility.PageFragments;
 import com.shashi.utility.TrainUtil;
 
 @SuppressWarnings("serial")
-@WebServlet("/adminviewtrainfwd")
+@WebServlet(value = "/adminviewtrainfwd", asyncSupported = true)
 public class AdminViewTrainFwd extends HttpServlet {
 
+	private static final HtmlTemplate TRAIN_ROW = HtmlTemplate
+			.compile("<tr> <td><a href='viewadmin?trainNo={}&fromStn={}&toStn={}'>{}</a></td>"
+			+ "<td>{}</td><td>{}</td><td>{}</td><td>{}</td><td>{} RS</td>"
+			+ "<td><a href='adminupdatetrain?trainnumber={}'>Update</a></td></tr>");
+
 	private TrainService trainService = new TrainServiceImpl();
 
 	protected void doGet(HttpServletRequest req, HttpServletResponse res) throws IOException, ServletException {
 		res.setContentType("text/html");
 		PrintWriter pw = res.getWriter();
+		// shows the seats left, which the catalog version leaves out, so the page is not tagged
 		TrainUtil.validateUserAuthorization(req, UserRole.ADMIN);
+		DBExecutor.Result<List<TrainBean>> result = DBExecutor.submit(req, () -> trainService.getAllTrains());
+		if (!result.isDone()) {
+			return;
+		}
+
 		try {
-			List<TrainBean> trains = trainService.getAllTrains();
+			List<TrainBean> trains = result.get();
 			if (trains != null && !trains.isEmpty()) {
-				RequestDispatcher rd = req.getRequestDispatcher("ViewTrains.html");
-				rd.include(req, res);
+				PageFragments.include(req, res, "ViewTrains.html");
+				CatalogSnapshot.writeBanner(res);
 				pw.println("<div class='main'><p1 class='menu'>Running Trains</p1></div>");
 				pw.println("<div class='tab'><table><tr><th>Train Name</th><th>Train Number</th>"
 						+ "<th>From Station</th><th>To Station</th><th>Seats Available</th><th>Fare (INR)</th><th>Action</th></tr>");
 
 				for (TrainBean train : trains) {
-
-					pw.println("" + "<tr> " + "" + "<td><a href='viewadmin?trainNo=" + train.getTr_no() + "&fromStn="
-							+ train.getFrom_stn() + "&toStn=" + train.getTo_stn() + "'>" + train.getTr_name()
-							+ "</a></td>" + "<td>" + train.getTr_no() + "</td>" + "<td>" + train.getFrom_stn() + "</td>"
-							+ "<td>" + train.getTo_stn() + "</td>" + "<td>" + train.getSeats() + "</td>" + "<td>"
-							+ train.getFare() + " RS</td>" + "<td><a href='adminupdatetrain?trainnumber="
-							+ train.getTr_no() + "'>Update</a></td>" + "</tr>");
+					TRAIN_ROW.write(pw, train.getTr_no(), train.getFrom_stn(), train.getTo_stn(), train.getTr_name(),
+							train.getTr_no(), train.getFrom_stn(), train.getTo_stn(), train.getSeats(), train.getFare(),
+							train.getTr_no());
 				}
 				pw.println("</table></div>");
 			} else {
-				RequestDispatcher rd = req.getRequestDispatcher("ViewTrains.html");
-				rd.include(req, res);
+				PageFragments.include(req, res, "ViewTrains.html");
+				CatalogSnapshot.writeBanner(res);
 				pw.println("<div class='main'><p1 class='menu red'> No Running Trains</p1></div>");
 			}
 		} catch (Exception e) {
-			throw new TrainException(422, this.getClass().getName() + "_FAILED", e.getMessage());
+			throw TrainException.failed(getClass(), e);
 
 		}
 
@@ -0,0 +1,101 @@
+package com.shashi.servlets;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.servlet.ServletException;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import com.shashi.beans.TrainBean;
+import com.shashi.beans.TrainException;
+import com.shashi.service.TrainService;
+import com.shashi.service.impl.TrainServiceImpl;
+import com.shashi.utility.CatalogSnapshot;
+import com.shashi.utility.DBExecutor;
+import com.shashi.utility.JsonWriter;
+
+//Seats and fare of many trains in one call, for the agent portal
+//GET or POST /api/availability?trainNos=10001,10002,... (or repeated trainNo=...)
+//All trains are fetched by TrainService.getAvailability with chunked IN lists
+@SuppressWarnings("serial")
+@WebServlet(value = "/api/availability", asyncSupported = true)
+public class AvailabilityApi extends JsonApiServlet {
+
+	private static final int MAX_TRAINS = 500;
+
+	private TrainService trainService = new TrainServiceImpl();
+
+	protected void doGet(HttpServletRequest req, HttpServletResponse res) throws IOException, ServletException {
+		validateApiUser(req);
+		List<String> trainNos = readTrainNos(req);
+		DBExecutor.Result<List<TrainBean>> result = DBExecutor.submit(req,
+				() -> trainService.getAvailability(trainNos));
+		if (!result.isDone()) {
+			return;
+		}
+
+		List<TrainBean> trains = result.get();
+		Set<String> found = new HashSet<String>();
+		CatalogSnapshot.markStale(res);
+		JsonWriter json = startJson(res);
+		json.beginObject().name("trains").beginArray();
+		for (TrainBean train : trains) {
+			found.add(String.valueOf(train.getTr_no()));
+			json.beginObject().name("trainNo").value(train.getTr_no()).name("seats").value(train.getSeats())
+					.name("fare").value(train.getFare()).endObject();
+		}
+		json.endArray().name("notFound").beginArray();
+		for (String trainNo : trainNos) {
+			if (found.add(trainNo)) {
+				json.value(trainNo);
+			}
+		}
+		json.endArray().endObject();
+		json.flush();
+	}
+
+	protected void doPost(HttpServletRequest req, HttpServletResponse res) throws IOException, ServletException {
+		doGet(req, res);
+	}
+
+	private List<String> readTrainNos(HttpServletRequest req) throws TrainException {
+		List<String> trainNos = new ArrayList<String>();
+		String list = req.getParameter("trainNos");
+		if (list != null) {
+			for (String trainNo : list.split(",")) {
+				add(trainNos, trainNo);
+			}
+		}
+		String[] repeated = req.getParameterValues("trainNo");
+		if (repeated != null) {
+			for (String trainNo : repeated) {
+				add(trainNos, trainNo);
+			}
+		}
+		if (trainNos.isEmpty()) {
+			throw TrainException.expected(400, "BAD_REQUEST", "Give the train numbers as trainNos=10001,10002");
+		}
+		if (trainNos.size() > MAX_TRAINS) {
+			throw TrainException.expected(400, "BAD_REQUEST",
+					"At most " + MAX_TRAINS + " trains can be checked in one call");
+		}
+		return trainNos;
+	}
+
+	private void add(List<String> trainNos, String trainNo) throws TrainException {
+		trainNo = trainNo.trim();
+		if (trainNo.isEmpty()) {
+			return;
+		}
+		if (!trainNo.matches("\\d{1,10}")) {
+			throw TrainException.expected(400, "BAD_REQUEST", "Train number must be numeric: " + trainNo);
+		}
+		// numbers are compared with the NUMBER column, drop leading zeros so notFound matches
+		trainNos.add(String.valueOf(Long.parseLong(trainNo)));
+	}
+}
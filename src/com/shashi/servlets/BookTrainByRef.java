@@ -4,7 +4,6 @@ import java.io.IOException;
 import java.io.PrintWriter;
 import java.time.LocalDate;
 
-import javax.servlet.RequestDispatcher;
 import javax.servlet.ServletException;
 import javax.servlet.annotation.WebServlet;
 import javax.servlet.http.HttpServlet;
@@ -12,6 +11,7 @@ import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
 import com.shashi.constant.UserRole;
+import com.shashi.utility.PageFragments;
 import com.shashi.utility.TrainUtil;
 
 @SuppressWarnings("serial")
@@ -27,8 +27,7 @@ public class BookTrainByRef extends HttpServlet {
 		int seat = 1;
 		String fromStn = req.getParameter("fromStn");
 		String toStn = req.getParameter("toStn");
-		RequestDispatcher rd = req.getRequestDispatcher("UserViewTrains.html");
-		rd.include(req, res);
+		PageFragments.include(req, res, "UserViewTrains.html");
 		pw.println("<div class='main'><p1 class='menu'>Your Ticket Booking Information</p1></div>");
 
 		pw.println("<div class='tab'>" + "<form action='payment' method='post'>" + "<table>"
@@ -1,16 +1,19 @@
 package com.shashi.servlets;
 
 import java.io.IOException;
+import java.util.UUID;
 
 import javax.servlet.RequestDispatcher;
-import javax.servlet.ServletContext;
 import javax.servlet.ServletException;
 import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.Cookie;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
+import com.shashi.beans.PaymentBean;
 import com.shashi.constant.UserRole;
+import com.shashi.utility.BookingTokenCache;
 import com.shashi.utility.TrainUtil;
 
 @WebServlet("/payment")
@@ -20,19 +23,27 @@ public class BookTrainPayment extends HttpServlet {
 	 */
 	private static final long serialVersionUID = 1L;
 
+	// session attribute holding the PaymentBean of a booking token, the token follows
+	static final String PAYMENT_ATTRIBUTE = "payment:";
+
 	public void doPost(HttpServletRequest req, HttpServletResponse res) throws IOException, ServletException {
 		res.setContentType("text/html");
 		TrainUtil.validateUserAuthorization(req, UserRole.CUSTOMER);
 
-		int seat = Integer.parseInt(req.getParameter("seats"));
-		String trainNo = req.getParameter("trainnumber");
-		String journeyDate = req.getParameter("journeydate");
-		String seatClass = req.getParameter("class");
-		ServletContext sct = req.getServletContext();
-		sct.setAttribute("seats", seat);
-		sct.setAttribute("trainnumber", trainNo);
-		sct.setAttribute("journeydate", journeyDate);
-		sct.setAttribute("class", seatClass);
+		PaymentBean payment = new PaymentBean();
+		payment.setSeats(Integer.parseInt(req.getParameter("seats")));
+		payment.setTr_no(req.getParameter("trainnumber"));
+		payment.setJourneyDate(req.getParameter("journeydate"));
+		payment.setSeatClass(req.getParameter("class"));
+
+		// One time token picked up by the payment form, lets booktrains detect resubmissions and find
+		// the booking of this payment page among the other tabs of the customer. Dropped with the session
+		String bookingToken = UUID.randomUUID().toString();
+		req.getSession().setAttribute(PAYMENT_ATTRIBUTE + bookingToken, payment);
+		Cookie token = new Cookie(BookingTokenCache.TOKEN_NAME, bookingToken);
+		token.setMaxAge(BookingTokenCache.TOKEN_MAX_AGE);
+		res.addCookie(token);
+
 		RequestDispatcher rd = req.getRequestDispatcher("Payment.html");
 		rd.forward(req, res);
 
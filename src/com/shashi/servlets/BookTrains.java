@@ -2,11 +2,14 @@ package com.shashi.servlets;
 
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
-import javax.servlet.RequestDispatcher;
-import javax.servlet.ServletContext;
 import javax.servlet.ServletException;
 import javax.servlet.annotation.WebServlet;
 import javax.servlet.http.HttpServlet;
@@ -14,107 +17,184 @@ import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
 import com.shashi.beans.HistoryBean;
+import com.shashi.beans.PaymentBean;
 import com.shashi.beans.TrainBean;
 import com.shashi.beans.TrainException;
-import com.shashi.constant.ResponseCode;
 import com.shashi.constant.UserRole;
 import com.shashi.service.BookingService;
 import com.shashi.service.TrainService;
 import com.shashi.service.impl.BookingServiceImpl;
 import com.shashi.service.impl.TrainServiceImpl;
+import com.shashi.utility.BookingTokenCache;
+import com.shashi.utility.DBExecutor;
+import com.shashi.utility.Log;
+import com.shashi.utility.PageFragments;
 import com.shashi.utility.TrainUtil;
 
 @SuppressWarnings("serial")
-@WebServlet("/booktrains")
+@WebServlet(value = "/booktrains", asyncSupported = true)
 public class BookTrains extends HttpServlet {
 
+	private static final Log LOG = Log.get(BookTrains.class);
+
+	private static final List<String> BOOKING_REFUSED = Arrays.asList("SEATS_NOT_AVAILABLE", "TRANSACTION_DECLINED");
+
 	private TrainService trainService = new TrainServiceImpl();
 	private BookingService bookingService = new BookingServiceImpl();
 
 	public void doPost(HttpServletRequest req, HttpServletResponse res) throws IOException, ServletException {
-		PrintWriter pw = res.getWriter();
 		res.setContentType("text/html");
 		TrainUtil.validateUserAuthorization(req, UserRole.CUSTOMER);
 
-		RequestDispatcher rd = req.getRequestDispatcher("UserHome.html");
-		rd.include(req, res);
+		String userMailId = TrainUtil.getCurrentUserEmail(req);
+		String token = req.getParameter("bookingtoken");
+		if (token == null || token.isEmpty()) {
+			token = TrainUtil.readCookie(req, BookingTokenCache.TOKEN_NAME).orElse(null);
+		}
+		String bookingToken = token;
+		// the booking chosen on the payment page of this token, read before the db executor takes over
+		PaymentBean payment = token == null ? null
+				: (PaymentBean) req.getSession().getAttribute(BookTrainPayment.PAYMENT_ATTRIBUTE + token);
+
+		DBExecutor.Result<String> result = DBExecutor.submit(req, () -> book(payment, bookingToken, userMailId));
+		if (!result.isDone()) {
+			return;
+		}
 
-		ServletContext sct = req.getServletContext();
+		PrintWriter pw = res.getWriter();
+		PageFragments.include(req, res, "UserHome.html");
 
 		try {
-			int seat = (int) sct.getAttribute("seats");
-			String trainNo = (String) sct.getAttribute("trainnumber");
-			String journeyDate = (String) sct.getAttribute("journeydate");
-			String seatClass = (String) sct.getAttribute("class");
-
-			String userMailId = TrainUtil.getCurrentUserEmail(req);
-
-			SimpleDateFormat inputFormat = new SimpleDateFormat("yyyy-MM-dd");
-			SimpleDateFormat outputFormat = new SimpleDateFormat("dd-MMM-yyyy");
-			java.util.Date utilDate;
-			String date = LocalDate.now().toString();
-			utilDate = inputFormat.parse(journeyDate);
-			date = outputFormat.format(utilDate);
-
-			TrainBean train = trainService.getTrainById(trainNo);
-
-			if (train != null) {
-				int avail = train.getSeats();
-				if (seat > avail) {
-					pw.println("<div class='tab'><p1 class='menu red'>Only " + avail
-							+ " Seats are Available in this Train!</p1></div>");
-
-				} else if (seat <= avail) {
-					avail = avail - seat;
-					train.setSeats(avail);
-					String responseCode = trainService.updateTrain(train);
-					if (ResponseCode.SUCCESS.toString().equalsIgnoreCase(responseCode)) {
-
-						HistoryBean bookingDetails = new HistoryBean();
-						Double totalAmount = train.getFare() * seat;
-						bookingDetails.setAmount(totalAmount);
-						bookingDetails.setFrom_stn(train.getFrom_stn());
-						bookingDetails.setTo_stn(train.getTo_stn());
-						bookingDetails.setTr_no(trainNo);
-						bookingDetails.setSeats(seat);
-						bookingDetails.setMailId(userMailId);
-						bookingDetails.setDate(date);
-
-						HistoryBean transaction = bookingService.createHistory(bookingDetails);
-						pw.println("<div class='tab'><p class='menu green'>" + seat
-								+ " Seats Booked Successfully!<br/><br/> Your Transaction Id is: "
-								+ transaction.getTransId() + "</p>" + "</div>");
-						pw.println("<div class='tab'>" + "<p class='menu'>" + "<table>"
-								+ "<tr><td>PNR No: </td><td colspan='3' style='color:blue;'>" + transaction.getTransId()
-								+ "</td></tr><tr><td>Train Name: </td><td>" + train.getTr_name()
-								+ "</td><td>Train No: </td><td>" + transaction.getTr_no()
-								+ "</td></tr><tr><td>Booked From: </td><td>" + transaction.getFrom_stn()
-								+ "</td><td>To Station: </td><td>" + transaction.getTo_stn() + "</td></tr>"
-								+ "<tr><td>Date Of Journey:</td><td>" + transaction.getDate()
-								+ "</td><td>Time(HH:MM):</td><td>11:23</td></tr><tr><td>Passangers: </td><td>"
-								+ transaction.getSeats() + "</td><td>Class: </td><td>" + seatClass + "</td></tr>"
-								+ "<tr><td>Booking Status: </td><td style='color:green;'>CNF/S10/35</td><td>Amount Paid:</td><td>&#8377; "
-								+ transaction.getAmount() + "</td></tr>" + "</table>" + "</p></div>");
-
-					} else {
-						pw.println(
-								"<div class='tab'><p1 class='menu red'>Transaction Declined. Try Again !</p1></div>");
-
-					}
+			pw.println(result.get());
+		} catch (Exception e) {
+			throw TrainException.failed(getClass(), e);
+		}
+	}
+
+	// Runs on the db executor, renders the outcome into a string for the dispatched request
+	private String book(PaymentBean payment, String token, String userMailId) throws Exception {
+		if (payment == null) {
+			// no payment page of this session issued the token
+			return "<div class='tab'><p1 class='menu red'>Your payment session has expired."
+					+ " Please book the train again !</p1></div>";
+		}
+
+		CompletableFuture<String> outcome = new CompletableFuture<String>();
+		CompletableFuture<String> previous = BookingTokenCache.claim(token, outcome);
+		if (previous != null) {
+			// Double click or browser retry, show the outcome of the first submission. Its booking may
+			// still run on another db thread, this one does not wait for it
+			if (previous.isDone() && !previous.isCompletedExceptionally()) {
+				return previous.join();
+			}
+			return "<div class='tab'><p1 class='menu'>This payment is being processed."
+					+ " Check your Booking History in a moment !</p1></div>";
+		}
+
+		StringWriter html = new StringWriter();
+		PrintWriter pw = new PrintWriter(html);
+		HistoryBean transaction = null;
+		boolean reserved = false;
+		try {
+			reserved = bookingService.reserveBookingToken(token, userMailId);
+			if (!reserved) {
+				// Already submitted to another node or before a restart
+				transaction = bookingService.getBookingByToken(token);
+				printReplay(pw, transaction, payment.getSeatClass());
+			} else {
+				transaction = bookTicket(pw, payment.getTr_no(), payment.getSeats(), payment.getJourneyDate(),
+						payment.getSeatClass(), userMailId);
+				if (transaction != null) {
+					bookingService.completeBookingToken(token, transaction.getTransId());
 				}
+			}
+		} catch (Exception e) {
+			outcome.completeExceptionally(e);
+			if (reserved && transaction == null) {
+				releaseToken(token);
 			} else {
-				pw.println("<div class='tab'><p1 class='menu'>Invalid Train Number !</p1></div>");
+				// BOOKING_TOKEN still guards the token, a retry looks the booking up there
+				BookingTokenCache.release(token);
+			}
+			throw e;
+		}
 
+		pw.flush();
+		// duplicates get the same page, the refusal of a booking as well as its ticket
+		String page = html.toString();
+		outcome.complete(page);
+		if (reserved && transaction == null) {
+			// refused, the seats were not taken
+			releaseToken(token);
+		}
+		return page;
+	}
+
+	// Nothing was booked with the token, a resubmit of the same form books again
+	private void releaseToken(String token) {
+		try {
+			bookingService.releaseBookingToken(token);
+		} catch (TrainException e) {
+			// the reservation is purged once the token has expired
+			LOG.warn("Booking token not released", "error", e.getMessage());
+		}
+		BookingTokenCache.release(token);
+	}
+
+	private HistoryBean bookTicket(PrintWriter pw, String trainNo, int seat, String journeyDate, String seatClass,
+			String userMailId) throws TrainException, ParseException {
+		HistoryBean transaction = null;
+
+		SimpleDateFormat inputFormat = new SimpleDateFormat("yyyy-MM-dd");
+		SimpleDateFormat outputFormat = new SimpleDateFormat("dd-MMM-yyyy");
+		java.util.Date utilDate;
+		String date = LocalDate.now().toString();
+		utilDate = inputFormat.parse(journeyDate);
+		date = outputFormat.format(utilDate);
+
+		TrainBean train = trainService.getTrainFromDatabase(trainNo);
+
+		if (train != null) {
+			try {
+				transaction = bookingService.bookTicket(train, seat, date, userMailId);
+				printTicket(pw, transaction, train.getTr_name(), seatClass);
+			} catch (TrainException e) {
+				if (!BOOKING_REFUSED.contains(e.getErrorCode())) {
+					throw e;
+				}
+				pw.println("<div class='tab'><p1 class='menu red'>" + e.getErrorMessage() + "</p1></div>");
 			}
+		} else {
+			pw.println("<div class='tab'><p1 class='menu'>Invalid Train Number !</p1></div>");
 
-		} catch (Exception e) {
-			throw new TrainException(422, this.getClass().getName() + "_FAILED", e.getMessage());
 		}
+		return transaction;
+	}
+
+	private void printReplay(PrintWriter pw, HistoryBean transaction, String seatClass) throws TrainException {
+		if (transaction == null) {
+			pw.println("<div class='tab'><p1 class='menu red'>This payment was already submitted."
+					+ " Check your Booking History before trying again !</p1></div>");
+			return;
+		}
+		TrainBean train = trainService.getTrainById(transaction.getTr_no());
+		printTicket(pw, transaction, train != null ? train.getTr_name() : transaction.getTr_no(), seatClass);
+	}
 
-		sct.removeAttribute("seat");
-		sct.removeAttribute("trainNo");
-		sct.removeAttribute("journeyDate");
-		sct.removeAttribute("class");
+	private void printTicket(PrintWriter pw, HistoryBean transaction, String trainName, String seatClass) {
+		pw.println("<div class='tab'><p class='menu green'>" + transaction.getSeats()
+				+ " Seats Booked Successfully!<br/><br/> Your Transaction Id is: " + transaction.getTransId() + "</p>"
+				+ "</div>");
+		pw.println("<div class='tab'>" + "<p class='menu'>" + "<table>"
+				+ "<tr><td>PNR No: </td><td colspan='3' style='color:blue;'>" + transaction.getTransId()
+				+ "</td></tr><tr><td>Train Name: </td><td>" + trainName + "</td><td>Train No: </td><td>"
+				+ transaction.getTr_no() + "</td></tr><tr><td>Booked From: </td><td>" + transaction.getFrom_stn()
+				+ "</td><td>To Station: </td><td>" + transaction.getTo_stn() + "</td></tr>"
+				+ "<tr><td>Date Of Journey:</td><td>" + transaction.getDate()
+				+ "</td><td>Time(HH:MM):</td><td>11:23</td></tr><tr><td>Passangers: </td><td>"
+				+ transaction.getSeats() + "</td><td>Class: </td><td>" + seatClass + "</td></tr>"
+				+ "<tr><td>Booking Status: </td><td style='color:green;'>CNF/S10/35</td><td>Amount Paid:</td><td>&#8377; "
+				+ transaction.getAmount() + "</td></tr>" + "</table>" + "</p></div>");
 	}
 
 }
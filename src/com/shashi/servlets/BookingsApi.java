@@ -0,0 +1,163 @@
+package com.shashi.servlets;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.List;
+import java.util.UUID;
+
+import javax.servlet.ServletException;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import com.shashi.beans.HistoryBean;
+import com.shashi.beans.TrainBean;
+import com.shashi.beans.TrainException;
+import com.shashi.constant.ResponseCode;
+import com.shashi.constant.UserRole;
+import com.shashi.service.BookingService;
+import com.shashi.service.TrainService;
+import com.shashi.service.impl.BookingServiceImpl;
+import com.shashi.service.impl.TrainServiceImpl;
+import com.shashi.utility.DBExecutor;
+import com.shashi.utility.JsonWriter;
+import com.shashi.utility.Log;
+import com.shashi.utility.TrainUtil;
+
+//GET /api/bookings lists the bookings of the logged in customer
+//POST /api/bookings with trainNo, seats and journeyDate (yyyy-MM-dd) books the seats.
+//An Idempotency-Key header (at most 36 characters) makes a retried POST of the same customer return the
+//first booking instead of booking again, a POST that booked nothing gives the key back for the retry.
+//The key is only compared with keys of the same customer, a replay for another train, seat count or
+//date is refused
+@SuppressWarnings("serial")
+@WebServlet(value = "/api/bookings", asyncSupported = true)
+public class BookingsApi extends JsonApiServlet {
+
+	private static final Log LOG = Log.get(BookingsApi.class);
+
+	private static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+
+	// the width of BOOKING_TOKEN.TOKEN
+	private static final int MAX_KEY_LENGTH = 36;
+
+	private TrainService trainService = new TrainServiceImpl();
+	private BookingService bookingService = new BookingServiceImpl();
+
+	private static class Booked {
+		private final HistoryBean booking;
+		private final boolean replayed;
+
+		private Booked(HistoryBean booking, boolean replayed) {
+			this.booking = booking;
+			this.replayed = replayed;
+		}
+	}
+
+	protected void doGet(HttpServletRequest req, HttpServletResponse res) throws IOException, ServletException {
+		TrainUtil.validateUserAuthorization(req, UserRole.CUSTOMER);
+		String customerId = TrainUtil.getCurrentUserEmail(req);
+		DBExecutor.Result<List<HistoryBean>> result = DBExecutor.submit(req,
+				() -> bookingService.getAllBookingsByCustomerId(customerId));
+		if (!result.isDone()) {
+			return;
+		}
+
+		List<HistoryBean> bookings = result.get();
+		JsonWriter json = startJson(res);
+		json.beginObject().name("bookings").beginArray();
+		if (bookings != null) {
+			for (HistoryBean booking : bookings) {
+				writeBooking(json, booking);
+			}
+		}
+		json.endArray().endObject();
+		json.flush();
+	}
+
+	protected void doPost(HttpServletRequest req, HttpServletResponse res) throws IOException, ServletException {
+		TrainUtil.validateUserAuthorization(req, UserRole.CUSTOMER);
+		String customerId = TrainUtil.getCurrentUserEmail(req);
+		String trainNo = req.getParameter("trainNo");
+		String key = req.getHeader(IDEMPOTENCY_KEY);
+		String isoDate = req.getParameter("journeyDate");
+		int seats;
+		String journeyDate;
+		try {
+			seats = Integer.parseInt(req.getParameter("seats"));
+			SimpleDateFormat inputFormat = new SimpleDateFormat("yyyy-MM-dd");
+			inputFormat.setLenient(false);
+			journeyDate = new SimpleDateFormat("dd-MMM-yyyy").format(inputFormat.parse(isoDate));
+		} catch (NumberFormatException | ParseException | NullPointerException e) {
+			throw TrainException.of(ResponseCode.BAD_REQUEST);
+		}
+		if (trainNo == null || seats <= 0 || (key != null && (key.isEmpty() || key.length() > MAX_KEY_LENGTH))) {
+			throw TrainException.of(ResponseCode.BAD_REQUEST);
+		}
+		String token = key == null ? null : customerToken(customerId, key);
+
+		DBExecutor.Result<Booked> result = DBExecutor.submit(req,
+				() -> book(trainNo, seats, journeyDate, isoDate, customerId, token));
+		if (!result.isDone()) {
+			return;
+		}
+
+		Booked booked = result.get();
+		res.setStatus(booked.replayed ? HttpServletResponse.SC_OK : HttpServletResponse.SC_CREATED);
+		JsonWriter json = startJson(res);
+		writeBooking(json, booked.booking);
+		json.flush();
+	}
+
+	private Booked book(String trainNo, int seats, String journeyDate, String isoDate, String customerId,
+			String key) throws TrainException {
+		if (key != null && !bookingService.reserveBookingToken(key, customerId)) {
+			HistoryBean previous = bookingService.getBookingByToken(key);
+			if (previous == null || !customerId.equals(previous.getMailId())) {
+				throw TrainException.expected(409, "BOOKING_IN_PROGRESS",
+						"A booking with this " + IDEMPOTENCY_KEY + " is already being processed");
+			}
+			if (!trainNo.equals(previous.getTr_no()) || seats != previous.getSeats()
+					|| previous.getDate() == null || !previous.getDate().startsWith(isoDate)) {
+				throw TrainException.expected(422, "IDEMPOTENCY_KEY_REUSED",
+						"This " + IDEMPOTENCY_KEY + " was used for another booking");
+			}
+			return new Booked(previous, true);
+		}
+
+		HistoryBean booking = null;
+		try {
+			TrainBean train = trainService.getTrainFromDatabase(trainNo);
+			if (train == null) {
+				throw TrainException.expected(404, "TRAIN_NOT_FOUND", "Train No." + trainNo + " is Not Available !");
+			}
+			booking = bookingService.bookTicket(train, seats, journeyDate, customerId);
+		} finally {
+			if (booking == null && key != null) {
+				releaseKey(key);
+			}
+		}
+		if (key != null) {
+			bookingService.completeBookingToken(key, booking.getTransId());
+		}
+		return new Booked(booking, false);
+	}
+
+	// The key as stored in BOOKING_TOKEN: the same key of two customers gives two tokens, and any key
+	// fits the column. Name based, so it never equals the random token of a booking form
+	private static String customerToken(String customerId, String key) {
+		return UUID.nameUUIDFromBytes((customerId + "\n" + key).getBytes(StandardCharsets.UTF_8)).toString();
+	}
+
+	// Nothing was booked with the key, a retry books again instead of getting BOOKING_IN_PROGRESS
+	private void releaseKey(String key) {
+		try {
+			bookingService.releaseBookingToken(key);
+		} catch (TrainException e) {
+			// the reservation is purged once the token has expired
+			LOG.warn("Idempotency key not released", "error", e.getMessage());
+		}
+	}
+}
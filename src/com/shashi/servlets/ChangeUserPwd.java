@@ -3,7 +3,6 @@ package com.shashi.servlets;
 import java.io.IOException;
 import java.io.PrintWriter;
 
-import javax.servlet.RequestDispatcher;
 //import javax.servlet.ServletContext;
 import javax.servlet.ServletException;
 import javax.servlet.annotation.WebServlet;
@@ -16,6 +15,7 @@ import com.shashi.beans.UserBean;
 import com.shashi.constant.UserRole;
 import com.shashi.service.UserService;
 import com.shashi.service.impl.UserServiceImpl;
+import com.shashi.utility.PageFragments;
 import com.shashi.utility.TrainUtil;
 
 @SuppressWarnings("serial")
@@ -37,14 +37,12 @@ public class ChangeUserPwd extends HttpServlet {
 					currentUser.setPWord(newPWord);
 					String message = userService.updateUser(currentUser);
 					if ("SUCCESS".equalsIgnoreCase(message)) {
-						RequestDispatcher rd = req.getRequestDispatcher("UserLogin.html");
-						rd.include(req, res);
+						PageFragments.include(req, res, "UserLogin.html");
 						TrainUtil.logout(res);
 						pw.println(
 								"<div class='tab'>Your Username and Password has Been Updated Successfully<br/>Please Login Again !</div>");
 					} else {
-						RequestDispatcher rd = req.getRequestDispatcher("UserHome.html");
-						rd.include(req, res);
+						PageFragments.include(req, res, "UserHome.html");
 						pw.println("<div class='tab'>" + "		<p1 class='menu'>" + "	Hello " + currentUser.getFName()
 								+ " ! Welcome to our new NITRTC Website" + "		</p1>" + "	</div>");
 						pw.println("<div class='main'><p1 class='menu'><a href='viewuserprofile'>View Profile</a></p1>&nbsp;"
@@ -53,16 +51,14 @@ public class ChangeUserPwd extends HttpServlet {
 						pw.println("<div class='tab'>Invalid Username and Old Password !</div>");
 					}
 				} else {
-					RequestDispatcher rd = req.getRequestDispatcher("UserHome.html");
-					rd.include(req, res);
+					PageFragments.include(req, res, "UserHome.html");
 					pw.println("<div class='main'><p1 class='menu'><a href='viewuserprofile'>view Profile</a></p1>"
 							+ "<p1 class='menu'><a href='edituserprofile'>Edit Profile</a></p1>"
 							+ "<p1 class='menu'><a href='changeuserpassword'>Change Password</a></p1>" + "</div>");
 					pw.println("<div class='tab'>Wrong Old PassWord!</div>");
 				}
 			} else {
-				RequestDispatcher rd = req.getRequestDispatcher("UserHome.html");
-				rd.include(req, res);
+				PageFragments.include(req, res, "UserHome.html");
 				pw.println("<div class='main'><p1 class='menu'><a href='viewuserprofile'>view Profile</a></p1>"
 						+ "<p1 class='menu'><a href='edituserprofile'>Edit Profile</a></p1>"
 						+ "<p1 class='menu'><a href='changeuserpassword'>Change Password</a></p1>" + "</div>");
@@ -70,7 +66,7 @@ public class ChangeUserPwd extends HttpServlet {
 			}
 
 		} catch (Exception e) {
-			throw new TrainException(422, this.getClass().getName() + "_FAILED", e.getMessage());
+			throw TrainException.failed(getClass(), e);
 		}
 
 	}
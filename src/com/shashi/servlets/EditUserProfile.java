@@ -3,7 +3,6 @@ package com.shashi.servlets;
 import java.io.IOException;
 import java.io.PrintWriter;
 
-import javax.servlet.RequestDispatcher;
 import javax.servlet.ServletException;
 import javax.servlet.annotation.WebServlet;
 import javax.servlet.http.HttpServlet;
@@ -12,6 +11,7 @@ import javax.servlet.http.HttpServletResponse;
 
 import com.shashi.beans.UserBean;
 import com.shashi.constant.UserRole;
+import com.shashi.utility.PageFragments;
 import com.shashi.utility.TrainUtil;
 
 @SuppressWarnings("serial")
@@ -23,8 +23,7 @@ public class EditUserProfile extends HttpServlet {
 		TrainUtil.validateUserAuthorization(req, UserRole.CUSTOMER);
 
 		UserBean ub = TrainUtil.getCurrentCustomer(req);
-		RequestDispatcher rd = req.getRequestDispatcher("UserHome.html");
-		rd.include(req, res);
+		PageFragments.include(req, res, "UserHome.html");
 		pw.println("<div class='tab'>" + "		<p1 class='menu'>" + "	Hello " + TrainUtil.getCurrentUserName(req)
 				+ " ! Welcome to our new NITRTC Website" + "		</p1>" + "	</div>");
 		pw.println("<div class='main'><p1 class='menu'><a href='viewuserprofile'>View Profile</a></p1>&nbsp;"
@@ -2,9 +2,13 @@ package com.shashi.servlets;
 
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.sql.SQLException;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
-import javax.servlet.RequestDispatcher;
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
@@ -12,7 +16,16 @@ import javax.servlet.http.HttpServletResponse;
 
 import com.shashi.beans.TrainException;
 import com.shashi.constant.ResponseCode;
+import com.shashi.utility.AppConfig;
+import com.shashi.utility.JsonWriter;
+import com.shashi.utility.Log;
+import com.shashi.utility.PageFragments;
 
+//Error page of the application, html for the pages and json for /api
+//
+//Kept cheap for failure storms: the page of an error straight from a ResponseCode is rendered
+//once and reused, and stack traces are only logged for unexpected failures, at most
+//errorStackTracesPerMinute of them
 public class ErrorHandlerServlet extends HttpServlet {
 
 	/**
@@ -20,10 +33,17 @@ public class ErrorHandlerServlet extends HttpServlet {
 	 */
 	private static final long serialVersionUID = 1L;
 
-	public void service(HttpServletRequest req, HttpServletResponse res) throws IOException, ServletException {
-		PrintWriter pw = res.getWriter();
-		res.setContentType("text/html");
+	private static final Log LOG = Log.get(ErrorHandlerServlet.class);
+
+	private static final int STACK_TRACES_PER_MINUTE = AppConfig.getInt("errorStackTracesPerMinute", 10);
+
+	private static final AtomicLong STACK_MINUTE = new AtomicLong();
 
+	private static final AtomicInteger STACKS_THIS_MINUTE = new AtomicInteger();
+
+	private static final Map<ResponseCode, String> PAGES = new ConcurrentHashMap<ResponseCode, String>();
+
+	public void service(HttpServletRequest req, HttpServletResponse res) throws IOException, ServletException {
 		// Fetch the exceptions
 		Throwable throwable = (Throwable) req.getAttribute("javax.servlet.error.exception");
 		Integer statusCode = (Integer) req.getAttribute("javax.servlet.error.status_code");
@@ -46,35 +66,108 @@ public class ErrorHandlerServlet extends HttpServlet {
 				errorMessage = trainException.getMessage();
 				statusCode = trainException.getStatusCode();
 				errorCode = trainException.getErrorCode();
-				trainException.printStackTrace();
 			}
 		} else if (throwable != null) {
 			errorMessage = throwable.getMessage();
 			errorCode = throwable.getLocalizedMessage();
 		}
 
-		System.out.println("======ERROR TRIGGERED========");
-		System.out.println("Servlet Name: " + servletName);
-		System.out.println("Request URI: " + requestUri);
-		System.out.println("Status Code: " + statusCode);
-		System.out.println("Error Code: " + errorCode);
-		System.out.println("Error Message: " + errorMessage);
-		System.out.println("=============================");
+		// one line per error, the stack trace only for failures the application did not raise itself
+		boolean unexpected = throwable != null && isUnexpected(throwable);
+		Log.Level level = unexpected || statusCode >= 500 || statusCode == 0 ? Log.Level.ERROR : Log.Level.WARN;
+		LOG.log(level, "Request failed", unexpected && takeStackTrace() ? throwable : null, "servlet", servletName,
+				"uri", requestUri, "status", statusCode, "errorCode", errorCode, "errorMessage", errorMessage);
 
-		if (statusCode == 401) {
-			RequestDispatcher rd = req.getRequestDispatcher("UserLogin.html");
-			rd.include(req, res);
-			pw.println("<div class='tab'><p1 class='menu'>" + errorMessage + "</p1></div>");
+		if (requestUri != null && requestUri.startsWith(req.getContextPath() + "/api/")) {
+			// api clients get the error as json
+			res.setStatus(statusCode >= 400 ? statusCode : 500);
+			res.setContentType("application/json");
+			res.setCharacterEncoding("UTF-8");
+			JsonWriter json = new JsonWriter(res.getWriter());
+			json.beginObject().name("status").value(statusCode).name("errorCode").value(errorCode).name("message")
+					.value(errorMessage).endObject();
+			json.flush();
+			return;
+		}
+
+		PrintWriter pw = res.getWriter();
+		res.setContentType("text/html");
+
+		ResponseCode responseCode = toResponseCode(errorCode, errorMessage);
+		if (responseCode != null && !PageFragments.isDevMode()) {
+			String page = PAGES.get(responseCode);
+			if (page == null) {
+				page = render(req, statusCode, errorCode, errorMessage);
+				if (page != null) {
+					PAGES.put(responseCode, page);
+				}
+			}
+			if (page != null) {
+				pw.write(page);
+				return;
+			}
+		}
 
+		String page = render(req, statusCode, errorCode, errorMessage);
+		if (page != null) {
+			pw.write(page);
+		} else if (statusCode == 401) {
+			PageFragments.include(req, res, "UserLogin.html");
+			pw.println(message(statusCode, errorCode, errorMessage));
 		} else {
-			RequestDispatcher rd = req.getRequestDispatcher("error.html");
-			rd.include(req, res);
-			pw.println("<div style='margin-top:20%; text-align:center;'>\r\n"
-					+ "	<p class=\"menu\" style='color:red'>" + errorCode + "</p><br>\r\n" + "	<p class=\"menu\">"
-					+ errorMessage + "</p>\r\n" + "  </div>");
+			PageFragments.include(req, res, "error.html");
+			pw.println(message(statusCode, errorCode, errorMessage));
+		}
+
+	}
 
+	// The whole page, null when the page chrome is not a plain file
+	private static String render(HttpServletRequest req, int statusCode, String errorCode, String errorMessage)
+			throws IOException {
+		String chrome = PageFragments.get(req.getServletContext(), statusCode == 401 ? "UserLogin.html" : "error.html");
+		if (chrome == null) {
+			return null;
 		}
+		return chrome + message(statusCode, errorCode, errorMessage) + "\r\n";
+	}
 
+	private static String message(int statusCode, String errorCode, String errorMessage) {
+		if (statusCode == 401) {
+			return "<div class='tab'><p1 class='menu'>" + errorMessage + "</p1></div>";
+		}
+		return "<div style='margin-top:20%; text-align:center;'>\r\n" + "	<p class=\"menu\" style='color:red'>"
+				+ errorCode + "</p><br>\r\n" + "	<p class=\"menu\">" + errorMessage + "</p>\r\n" + "  </div>";
+	}
+
+	private static ResponseCode toResponseCode(String errorCode, String errorMessage) {
+		for (ResponseCode responseCode : ResponseCode.values()) {
+			if (responseCode.name().equals(errorCode) && responseCode.getMessage().equals(errorMessage)) {
+				return responseCode;
+			}
+		}
+		return null;
+	}
+
+	// Decided by the innermost TrainException of the chain: raised by the application, or a database
+	// failure a service turned into a message (the SQLException stays as its cause), is expected. Its
+	// cause being anything else, or no TrainException at all, is a bug or a failure nobody turned into
+	// a message. An outage therefore costs one line per request, not a stack trace
+	private static boolean isUnexpected(Throwable throwable) {
+		for (Throwable t = throwable; t != null; t = t.getCause() == t ? null : t.getCause()) {
+			if (t instanceof TrainException && !(t.getCause() instanceof TrainException)) {
+				return t.getCause() != null && !(t.getCause() instanceof SQLException);
+			}
+		}
+		return true;
+	}
+
+	private static boolean takeStackTrace() {
+		long minute = System.currentTimeMillis() / 60000;
+		long current = STACK_MINUTE.get();
+		if (current != minute && STACK_MINUTE.compareAndSet(current, minute)) {
+			STACKS_THIS_MINUTE.set(0);
+		}
+		return STACKS_THIS_MINUTE.incrementAndGet() <= STACK_TRACES_PER_MINUTE;
 	}
 
 }
@@ -4,7 +4,6 @@ import java.io.IOException;
 import java.io.PrintWriter;
 import java.util.List;
 
-import javax.servlet.RequestDispatcher;
 import javax.servlet.ServletException;
 import javax.servlet.annotation.WebServlet;
 import javax.servlet.http.HttpServlet;
@@ -16,11 +15,25 @@ import com.shashi.beans.TrainException;
 import com.shashi.constant.UserRole;
 import com.shashi.service.TrainService;
 import com.shashi.service.impl.TrainServiceImpl;
+import com.shashi.utility.CatalogSnapshot;
+import com.shashi.utility.DBExecutor;
+import com.shashi.utility.HtmlTemplate;
+import com.shashi.utility.PageFragments;
 import com.shashi.utility.TrainUtil;
 
 @SuppressWarnings("serial")
-@WebServlet("/fareenq")
+@WebServlet(value = "/fareenq", asyncSupported = true)
 public class FareEnq extends HttpServlet {
+	private static final HtmlTemplate HEADER = HtmlTemplate
+			.compile("<div class='main'><p1 class='menu'>Fare for Trains BetWeen Station {} and {} is as below</p1></div>");
+
+	private static final HtmlTemplate TRAIN_ROW = HtmlTemplate.compile("<tr><td>{}</td><td>{}</td><td>{}</td><td>{}</td>"
+			+ "<td>{}</td><td>{}</td><td>{} RS</td>"
+			+ "<td><a href='booktrainbyref?trainNo={}&fromStn={}&toStn={}'><div class='red'>Book Now</div></a></td></tr>");
+
+	private static final HtmlTemplate NO_TRAINS = HtmlTemplate
+			.compile("<div class='tab'><p1 class='menu'>There are no trains Between {} and {}</p1></div>");
+
 	TrainService trainService = new TrainServiceImpl();
 
 	protected void doPost(HttpServletRequest req, HttpServletResponse res) throws IOException, ServletException {
@@ -29,15 +42,20 @@ public class FareEnq extends HttpServlet {
 
 		TrainUtil.validateUserAuthorization(req, UserRole.CUSTOMER);
 
+		String fromStation = req.getParameter("fromstation");
+		String toStation = req.getParameter("tostation");
+		DBExecutor.Result<List<TrainBean>> result = DBExecutor.submit(req,
+				() -> trainService.getTrainsBetweenStations(fromStation, toStation));
+		if (!result.isDone()) {
+			return;
+		}
+
 		try {
-			String fromStation = req.getParameter("fromstation");
-			String toStation = req.getParameter("tostation");
-			List<TrainBean> trains = trainService.getTrainsBetweenStations(fromStation, toStation);
+			List<TrainBean> trains = result.get();
 			if (trains != null && !trains.isEmpty()) {
-				RequestDispatcher rd = req.getRequestDispatcher("UserHome.html");
-				rd.include(req, res);
-				pw.println("<div class='main'><p1 class='menu'>Fare for Trains BetWeen Station " + fromStation + " and "
-						+ toStation + " is as below</p1></div>");
+				PageFragments.include(req, res, "UserHome.html");
+				CatalogSnapshot.writeBanner(res);
+				HEADER.write(pw, fromStation, toStation);
 				pw.println("<div class='tab'><table><tr><th>Train Name</th><th>Train No</th>"
 						+ "<th>From Stn</th><th>To Stn</th><th>Time</th><th>Seats</th><th>Fare (INR)</th><th>Action</th></tr>");
 				for (TrainBean train : trains) {
@@ -45,22 +63,17 @@ public class FareEnq extends HttpServlet {
 					int min = (int) (Math.random() * 60);
 					String time = (hr < 10 ? ("0" + hr) : hr) + ":" + ((min < 10) ? "0" + min : min);
 
-					pw.println("" + "<tr><td>" + train.getTr_name() + "</td>" + "<td>" + train.getTr_no() + "</td>"
-							+ "<td>" + train.getFrom_stn() + "</td>" + "<td>" + train.getTo_stn() + "</td>" + "<td>"
-							+ time + "</td>" + "<td>" + train.getSeats() + "</td>" + "<td>" + train.getFare()
-							+ " RS</td><td><a href='booktrainbyref?trainNo=" + train.getTr_no() + "&fromStn="
-							+ train.getFrom_stn() + "&toStn=" + train.getTo_stn()
-							+ "'><div class='red'>Book Now</div></a></td>" + "</tr>");
+					TRAIN_ROW.write(pw, train.getTr_name(), train.getTr_no(), train.getFrom_stn(), train.getTo_stn(), time,
+							train.getSeats(), train.getFare(), train.getTr_no(), train.getFrom_stn(), train.getTo_stn());
 				}
 				pw.println("</table></div>");
 			} else {
-				RequestDispatcher rd = req.getRequestDispatcher("TrainBwStn.html");
-				rd.include(req, res);
-				pw.println("<div class='tab'><p1 class='menu'>There are no trains Between " + fromStation + " and "
-						+ toStation + "</p1></div>");
+				PageFragments.include(req, res, "TrainBwStn.html");
+				CatalogSnapshot.writeBanner(res);
+				NO_TRAINS.write(pw, fromStation, toStation);
 			}
 		} catch (Exception e) {
-			throw new TrainException(422, this.getClass().getName() + "_FAILED", e.getMessage());
+			throw TrainException.failed(getClass(), e);
 		}
 
 	}
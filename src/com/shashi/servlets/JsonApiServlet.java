@@ -0,0 +1,69 @@
+package com.shashi.servlets;
+
+import java.io.IOException;
+
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import com.shashi.beans.HistoryBean;
+import com.shashi.beans.TrainBean;
+import com.shashi.beans.TrainException;
+import com.shashi.constant.ResponseCode;
+import com.shashi.constant.UserRole;
+import com.shashi.utility.JsonWriter;
+import com.shashi.utility.TrainUtil;
+
+//Base of the /api servlets, which answer in json instead of html pages
+//Failures are thrown as TrainException like in the page servlets, ErrorHandlerServlet
+//writes them as a json error for every url under /api/
+@SuppressWarnings("serial")
+abstract class JsonApiServlet extends HttpServlet {
+
+	protected JsonWriter startJson(HttpServletResponse res) throws IOException {
+		res.setContentType("application/json");
+		res.setCharacterEncoding("UTF-8");
+		return new JsonWriter(res.getWriter());
+	}
+
+	// The catalog is open to the customers and the admins, logged in through the usual login pages
+	protected void validateApiUser(HttpServletRequest req) throws TrainException {
+		if (!TrainUtil.isLoggedIn(req, UserRole.CUSTOMER) && !TrainUtil.isLoggedIn(req, UserRole.ADMIN)) {
+			throw TrainException.of(ResponseCode.SESSION_EXPIRED);
+		}
+	}
+
+	// Catalog fields only, the answers are tagged with the catalog version and bookings do not change
+	// it. Seats come from /api/availability
+	protected static void writeTrain(JsonWriter json, TrainBean train) throws IOException {
+		json.beginObject();
+		json.name("trainNo").value(train.getTr_no());
+		json.name("name").value(train.getTr_name());
+		json.name("from").value(train.getFrom_stn());
+		json.name("to").value(train.getTo_stn());
+		json.name("fare").value(train.getFare());
+		json.endObject();
+	}
+
+	protected static void writeTrains(JsonWriter json, Iterable<TrainBean> trains) throws IOException {
+		json.beginObject().name("trains").beginArray();
+		if (trains != null) {
+			for (TrainBean train : trains) {
+				writeTrain(json, train);
+			}
+		}
+		json.endArray().endObject();
+	}
+
+	protected static void writeBooking(JsonWriter json, HistoryBean booking) throws IOException {
+		json.beginObject();
+		json.name("transId").value(booking.getTransId());
+		json.name("trainNo").value(booking.getTr_no());
+		json.name("from").value(booking.getFrom_stn());
+		json.name("to").value(booking.getTo_stn());
+		json.name("date").value(booking.getDate());
+		json.name("seats").value(booking.getSeats());
+		json.name("amount").value(booking.getAmount());
+		json.endObject();
+	}
+}
@@ -0,0 +1,48 @@
+package com.shashi.servlets;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+import javax.servlet.ServletException;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import com.shashi.constant.UserRole;
+import com.shashi.utility.AppConfig;
+import com.shashi.utility.Metrics;
+import com.shashi.utility.TrainUtil;
+
+//Request and query latencies plus the pool gauges, in the Prometheus text format for scraping
+//Only for a logged in admin, like /sqlprofile, or for a scraper sending metricsToken as its bearer token
+@SuppressWarnings("serial")
+@WebServlet("/metrics")
+public class MetricsServlet extends HttpServlet {
+
+	private static final String TOKEN = AppConfig.getString("metricsToken", "");
+
+	protected void doGet(HttpServletRequest req, HttpServletResponse res) throws IOException, ServletException {
+		if (!Metrics.ENABLED) {
+			res.sendError(HttpServletResponse.SC_NOT_FOUND);
+			return;
+		}
+		if (!isScraper(req)) {
+			TrainUtil.validateUserAuthorization(req, UserRole.ADMIN);
+		}
+		res.setContentType("text/plain; version=0.0.4");
+		res.setCharacterEncoding("UTF-8");
+		Metrics.writePrometheus(res.getWriter());
+	}
+
+	private static boolean isScraper(HttpServletRequest req) {
+		String authorization = req.getHeader("Authorization");
+		if (TOKEN.isEmpty() || authorization == null || !authorization.startsWith("Bearer ")) {
+			return false;
+		}
+		// compared in constant time, the answer must not tell how much of a guess was right
+		return MessageDigest.isEqual(TOKEN.getBytes(StandardCharsets.UTF_8),
+				authorization.substring(7).trim().getBytes(StandardCharsets.UTF_8));
+	}
+}
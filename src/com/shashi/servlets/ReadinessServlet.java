@@ -0,0 +1,28 @@
+package com.shashi.servlets;
+
+import java.io.IOException;
+
+import javax.servlet.ServletException;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import com.shashi.utility.WarmUp;
+
+//Readiness probe for the load balancer: 503 while the node warms up, see WarmUp
+@SuppressWarnings("serial")
+@WebServlet("/ready")
+public class ReadinessServlet extends HttpServlet {
+
+	protected void doGet(HttpServletRequest req, HttpServletResponse res) throws IOException, ServletException {
+		res.setContentType("text/plain");
+		res.setHeader("Cache-Control", "no-store");
+		if (!WarmUp.isReady()) {
+			res.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+			res.getWriter().println("WARMING_UP");
+			return;
+		}
+		res.getWriter().println("READY");
+	}
+}
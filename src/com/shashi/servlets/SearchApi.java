@@ -0,0 +1,52 @@
+package com.shashi.servlets;
+
+import java.io.IOException;
+import java.util.List;
+
+import javax.servlet.ServletException;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import com.shashi.beans.TrainBean;
+import com.shashi.beans.TrainException;
+import com.shashi.constant.ResponseCode;
+import com.shashi.service.TrainService;
+import com.shashi.service.impl.TrainServiceImpl;
+import com.shashi.utility.CatalogSnapshot;
+import com.shashi.utility.CatalogVersion;
+import com.shashi.utility.DBExecutor;
+import com.shashi.utility.JsonWriter;
+
+//GET /api/search?from=X&to=Y lists the trains running between the two stations
+@SuppressWarnings("serial")
+@WebServlet(value = "/api/search", asyncSupported = true)
+public class SearchApi extends JsonApiServlet {
+
+	private TrainService trainService = new TrainServiceImpl();
+
+	protected void doGet(HttpServletRequest req, HttpServletResponse res) throws IOException, ServletException {
+		validateApiUser(req);
+		String from = req.getParameter("from");
+		String to = req.getParameter("to");
+		if (from == null || from.trim().isEmpty() || to == null || to.trim().isEmpty()) {
+			throw TrainException.of(ResponseCode.BAD_REQUEST);
+		}
+		String fromStation = from.trim().toUpperCase();
+		String toStation = to.trim().toUpperCase();
+		if (CatalogVersion.notModified(req, res, "api-search-" + fromStation + "-" + toStation)) {
+			return;
+		}
+		DBExecutor.Result<List<TrainBean>> result = DBExecutor.submit(req,
+				() -> trainService.getTrainsBetweenStations(fromStation, toStation));
+		if (!result.isDone()) {
+			return;
+		}
+
+		List<TrainBean> trains = result.get();
+		CatalogSnapshot.markStale(res);
+		JsonWriter json = startJson(res);
+		writeTrains(json, trains);
+		json.flush();
+	}
+}
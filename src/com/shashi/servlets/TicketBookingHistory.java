@@ -4,7 +4,6 @@ import java.io.IOException;
 import java.io.PrintWriter;
 import java.util.List;
 
-import javax.servlet.RequestDispatcher;
 import javax.servlet.ServletException;
 import javax.servlet.annotation.WebServlet;
 import javax.servlet.http.HttpServlet;
@@ -16,43 +15,50 @@ import com.shashi.beans.TrainException;
 import com.shashi.constant.UserRole;
 import com.shashi.service.BookingService;
 import com.shashi.service.impl.BookingServiceImpl;
+import com.shashi.utility.DBExecutor;
+import com.shashi.utility.HtmlTemplate;
+import com.shashi.utility.PageFragments;
 import com.shashi.utility.TrainUtil;
 
 @SuppressWarnings("serial")
-@WebServlet("/bookingdetails")
+@WebServlet(value = "/bookingdetails", asyncSupported = true)
 public class TicketBookingHistory extends HttpServlet {
 
+	private static final HtmlTemplate HISTORY_ROW = HtmlTemplate.compile(
+			"<tr> <td>{}</td><td>{}</td><td>{}</td><td>{}</td><td>{}</td><td>{}</td><td>{}</td></tr>");
+
 	BookingService bookingService = new BookingServiceImpl();
 
 	protected void doGet(HttpServletRequest req, HttpServletResponse res) throws IOException, ServletException {
 		res.setContentType("text/html");
 		PrintWriter pw = res.getWriter();
 		TrainUtil.validateUserAuthorization(req, UserRole.CUSTOMER);
+		String customerId = TrainUtil.getCurrentUserEmail(req);
+		DBExecutor.Result<List<HistoryBean>> result = DBExecutor.submit(req,
+				() -> bookingService.getAllBookingsByCustomerId(customerId));
+		if (!result.isDone()) {
+			return;
+		}
+
 		try {
-			String customerId = TrainUtil.getCurrentUserEmail(req);
-			List<HistoryBean> details = bookingService.getAllBookingsByCustomerId(customerId);
+			List<HistoryBean> details = result.get();
 			if (details != null && !details.isEmpty()) {
-				RequestDispatcher rd = req.getRequestDispatcher("UserViewTrains.html");
-				rd.include(req, res);
+				PageFragments.include(req, res, "UserViewTrains.html");
 				pw.println("<div class='main'><p1 class='menu'>Booked Ticket History</p1></div>");
 				pw.println("<div class='tab'><table><tr><th>Transaction ID</th><th>Train Number</th>"
 						+ "<th>From Station</th><th>To Station</th><th>Journey Date</th><th>Seat</th><th>Amount Paid</th></tr>");
 
 				for (HistoryBean trans : details) {
-
-					pw.println("" + "<tr> " + "" + "<td>" + trans.getTransId() + "</td>" + "<td>" + trans.getTr_no()
-							+ "</td>" + "<td>" + trans.getFrom_stn() + "</td>" + "<td>" + trans.getTo_stn() + "</td>"
-							+ "<td>" + trans.getDate() + "</td>" + "<td>" + trans.getSeats() + "</td><td>"
-							+ trans.getAmount() + "</td>" + "</tr>");
+					HISTORY_ROW.write(pw, trans.getTransId(), trans.getTr_no(), trans.getFrom_stn(), trans.getTo_stn(),
+							trans.getDate(), trans.getSeats(), trans.getAmount());
 				}
 				pw.println("</table></div>");
 			} else {
-				RequestDispatcher rd = req.getRequestDispatcher("UserViewTrains.html");
-				rd.include(req, res);
+				PageFragments.include(req, res, "UserViewTrains.html");
 				pw.println("<div class='main'><p1 class='menu red'> No any ticket booked, book your first ticket now!!</p1></div>");
 			}
 		} catch (Exception e) {
-			throw new TrainException(422, this.getClass().getName() + "_FAILED", e.getMessage());
+			throw TrainException.failed(getClass(), e);
 		}
 
 	}
@@ -0,0 +1,74 @@
+package com.shashi.servlets;
+
+import java.io.IOException;
+import java.util.List;
+
+import javax.servlet.ServletException;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import com.shashi.beans.TrainBean;
+import com.shashi.beans.TrainException;
+import com.shashi.service.TrainService;
+import com.shashi.service.impl.TrainServiceImpl;
+import com.shashi.utility.CatalogSnapshot;
+import com.shashi.utility.CatalogVersion;
+import com.shashi.utility.DBExecutor;
+import com.shashi.utility.JsonWriter;
+
+//GET /api/trains lists all the trains, GET /api/trains/{trainNo} returns one of them
+@SuppressWarnings("serial")
+@WebServlet(value = "/api/trains/*", asyncSupported = true)
+public class TrainsApi extends JsonApiServlet {
+
+	private TrainService trainService = new TrainServiceImpl();
+
+	protected void doGet(HttpServletRequest req, HttpServletResponse res) throws IOException, ServletException {
+		validateApiUser(req);
+		String pathInfo = req.getPathInfo();
+		if (pathInfo == null || pathInfo.equals("/")) {
+			listTrains(req, res);
+		} else {
+			getTrain(req, res, pathInfo.substring(1));
+		}
+	}
+
+	private void listTrains(HttpServletRequest req, HttpServletResponse res) throws IOException {
+		if (CatalogVersion.notModified(req, res, "api-trains")) {
+			return;
+		}
+		DBExecutor.Result<List<TrainBean>> result = DBExecutor.submit(req, () -> trainService.getAllTrains());
+		if (!result.isDone()) {
+			return;
+		}
+
+		List<TrainBean> trains = result.get();
+		CatalogSnapshot.markStale(res);
+		JsonWriter json = startJson(res);
+		writeTrains(json, trains);
+		json.flush();
+	}
+
+	private void getTrain(HttpServletRequest req, HttpServletResponse res, String trainNo) throws IOException {
+		if (!trainNo.matches("\\d{1,10}")) {
+			throw TrainException.expected(400, "BAD_REQUEST", "Train number must be numeric");
+		}
+		if (CatalogVersion.notModified(req, res, "api-train-" + trainNo)) {
+			return;
+		}
+		DBExecutor.Result<TrainBean> result = DBExecutor.submit(req, () -> trainService.getTrainById(trainNo));
+		if (!result.isDone()) {
+			return;
+		}
+
+		TrainBean train = result.get();
+		if (train == null) {
+			throw TrainException.expected(404, "TRAIN_NOT_FOUND", "Train No." + trainNo + " is Not Available !");
+		}
+		CatalogSnapshot.markStale(res);
+		JsonWriter json = startJson(res);
+		writeTrain(json, train);
+		json.flush();
+	}
+}
@@ -3,7 +3,6 @@ package com.shashi.servlets;
 import java.io.IOException;
 import java.io.PrintWriter;
 
-import javax.servlet.RequestDispatcher;
 import javax.servlet.ServletException;
 import javax.servlet.annotation.WebServlet;
 import javax.servlet.http.HttpServlet;
@@ -14,6 +13,7 @@ import com.shashi.beans.TrainBean;
 import com.shashi.beans.TrainException;
 import com.shashi.service.TrainService;
 import com.shashi.service.impl.TrainServiceImpl;
+import com.shashi.utility.PageFragments;
 
 @SuppressWarnings("serial")
 @WebServlet("/updatetrainschedule")
@@ -37,16 +37,14 @@ public class UpdateTrainSchedule extends HttpServlet {
 
 			String message = trainService.updateTrain(train);
 			if ("SUCCESS".equalsIgnoreCase(message)) {
-				RequestDispatcher rd = req.getRequestDispatcher("AdminUpdateTrain.html");
-				rd.include(req, res);
+				PageFragments.include(req, res, "AdminUpdateTrain.html");
 				pw.println("<div class='tab'><p1 class='menu'>Train Updated Successfully!</p1></div>");
 			} else {
-				RequestDispatcher rd = req.getRequestDispatcher("AdminUpdateTrain.html");
-				rd.include(req, res);
+				PageFragments.include(req, res, "AdminUpdateTrain.html");
 				pw.println("<div class='tab'><p1 class='menu'>Error in filling the train Detail</p1></div>");
 			}
 		} catch (Exception e) {
-			throw new TrainException(422, this.getClass().getName() + "_FAILED", e.getMessage());
+			throw TrainException.failed(getClass(), e);
 		}
 
 	}
@@ -3,7 +3,6 @@ package com.shashi.servlets;
 import java.io.IOException;
 import java.io.PrintWriter;
 
-import javax.servlet.RequestDispatcher;
 import javax.servlet.ServletException;
 import javax.servlet.annotation.WebServlet;
 import javax.servlet.http.HttpServlet;
@@ -15,6 +14,7 @@ import com.shashi.beans.UserBean;
 import com.shashi.constant.UserRole;
 import com.shashi.service.UserService;
 import com.shashi.service.impl.UserServiceImpl;
+import com.shashi.utility.PageFragments;
 import com.shashi.utility.TrainUtil;
 
 @SuppressWarnings("serial")
@@ -46,8 +46,7 @@ public class UpdateUserProfile extends HttpServlet {
 			String message = userService.updateUser(ub);
 			if ("SUCCESS".equalsIgnoreCase(message)) {
 
-				RequestDispatcher rd = req.getRequestDispatcher("UserHome.html");
-				rd.include(req, res);
+				PageFragments.include(req, res, "UserHome.html");
 				pw.println("<div class='tab'>" + "		<p1 class='menu'>" + "	Hello " + ub.getFName()
 						+ " ! Welcome to our new NITRTC Website" + "		</p1>" + "	</div>");
 				pw.println("<div class='main'><p1 class='menu'><a href='viewuserprofile'>view Profile</a></p1>"
@@ -55,15 +54,14 @@ public class UpdateUserProfile extends HttpServlet {
 						+ "<p1 class='menu'><a href='changeuserpassword'>Change Password</a></p1>" + "</div>");
 				pw.println("<div class='tab'>Your Profile has Been Successfully Updated</div>");
 			} else {
-				RequestDispatcher rd = req.getRequestDispatcher("UserHome.html");
-				rd.include(req, res);
+				PageFragments.include(req, res, "UserHome.html");
 				pw.println("<div class='main'><p1 class='menu'><a href='viewuserprofile'>view Profile</a></p1>"
 						+ "<p1 class='menu'><a href='edituserprofile'>Edit Profile</a></p1>"
 						+ "<p1 class='menu'><a href='changeuserpassword'>Change Password</a></p1>" + "</div>");
 				pw.println("<div class='tab'>Please Enter the valid Information</div>");
 			}
 		} catch (Exception e) {
-			throw new TrainException(422, this.getClass().getName() + "_FAILED", e.getMessage());
+			throw TrainException.failed(getClass(), e);
 
 		}
 
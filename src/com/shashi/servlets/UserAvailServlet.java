@@ -3,7 +3,6 @@ package com.shashi.servlets;
 import java.io.IOException;
 import java.io.PrintWriter;
 
-import javax.servlet.RequestDispatcher;
 import javax.servlet.ServletException;
 import javax.servlet.annotation.WebServlet;
 import javax.servlet.http.HttpServlet;
@@ -15,10 +14,13 @@ import com.shashi.beans.TrainException;
 import com.shashi.constant.UserRole;
 import com.shashi.service.TrainService;
 import com.shashi.service.impl.TrainServiceImpl;
+import com.shashi.utility.CatalogSnapshot;
+import com.shashi.utility.DBExecutor;
+import com.shashi.utility.PageFragments;
 import com.shashi.utility.TrainUtil;
 
 @SuppressWarnings("serial")
-@WebServlet("/useravail")
+@WebServlet(value = "/useravail", asyncSupported = true)
 public class UserAvailServlet extends HttpServlet {
 	private TrainService trainService = new TrainServiceImpl();
 
@@ -28,13 +30,17 @@ public class UserAvailServlet extends HttpServlet {
 
 		TrainUtil.validateUserAuthorization(req, UserRole.CUSTOMER);
 
-		try {
+		String trainNo = req.getParameter("trainno");
+		DBExecutor.Result<TrainBean> result = DBExecutor.submit(req, () -> trainService.getTrainById(trainNo));
+		if (!result.isDone()) {
+			return;
+		}
 
-			String trainNo = req.getParameter("trainno");
-			TrainBean train = trainService.getTrainById(trainNo);
+		try {
+			TrainBean train = result.get();
 			if (train != null) {
-				RequestDispatcher rd = req.getRequestDispatcher("UserHome.html");
-				rd.include(req, res);
+				PageFragments.include(req, res, "UserHome.html");
+				CatalogSnapshot.writeBanner(res);
 				pw.println(
 						"<div class='tab'>" + "		<p1 class='menu'>" + "	Hello " + TrainUtil.getCurrentUserName(req)
 								+ " ! Welcome to our new NITRTC Website" + "		</p1>" + "	</div>");
@@ -48,13 +54,13 @@ public class UserAvailServlet extends HttpServlet {
 						+ train.getSeats() + "</td></tr>" + "<tr><td class='blue'>Fare (INR) :</td><td>"
 						+ train.getFare() + " RS</td></tr>" + "</table>" + "</div>");
 			} else {
-				RequestDispatcher rd = req.getRequestDispatcher("Availability.html");
-				rd.include(req, res);
+				PageFragments.include(req, res, "Availability.html");
+				CatalogSnapshot.writeBanner(res);
 
 				pw.println("<div class='tab'><p1 class='menu'>Train No." + trainNo + " is Not Available !</p1></div>");
 			}
 		} catch (Exception e) {
-			throw new TrainException(422, this.getClass().getName() + "_FAILED", e.getMessage());
+			throw TrainException.failed(getClass(), e);
 		}
 
 	}
@@ -3,7 +3,6 @@ package com.shashi.servlets;
 import java.io.IOException;
 import java.io.PrintWriter;
 
-import javax.servlet.RequestDispatcher;
 import javax.servlet.ServletException;
 import javax.servlet.annotation.WebServlet;
 import javax.servlet.http.HttpServlet;
@@ -12,6 +11,7 @@ import javax.servlet.http.HttpServletResponse;
 
 import com.shashi.constant.ResponseCode;
 import com.shashi.constant.UserRole;
+import com.shashi.utility.PageFragments;
 import com.shashi.utility.TrainUtil;
 
 @WebServlet("/userlogin")
@@ -29,8 +29,7 @@ public class UserLoginServlet extends HttpServlet {
 
 		String responseMsg = TrainUtil.login(req, res, UserRole.CUSTOMER, uName, pWord);
 		if (ResponseCode.SUCCESS.toString().equalsIgnoreCase(responseMsg)) {
-			RequestDispatcher rd = req.getRequestDispatcher("UserHome.html");
-			rd.include(req, res);
+			PageFragments.include(req, res, "UserHome.html");
 			pw.println("<div class='main'><p1 class='menu'>Hello " + uName
 					+ " ! Welcome to our new NITRTC Website</p1></div>");
 			pw.println("<div class='tab'>Hello " + uName
@@ -39,8 +38,7 @@ public class UserLoginServlet extends HttpServlet {
 					+ "Explore the Advantages.<br/><br/>Thanks For Being Connected with us!" + "</div>");
 
 		} else {
-			RequestDispatcher rd = req.getRequestDispatcher("UserLogin.html");
-			rd.include(req, res);
+			PageFragments.include(req, res, "UserLogin.html");
 
 			pw.println("<div class='tab'><p1 class='menu'>" + responseMsg + "</p1></div>");
 
@@ -3,7 +3,6 @@ package com.shashi.servlets;
 import java.io.IOException;
 import java.io.PrintWriter;
 
-import javax.servlet.RequestDispatcher;
 import javax.servlet.ServletException;
 import javax.servlet.annotation.WebServlet;
 import javax.servlet.http.HttpServlet;
@@ -11,6 +10,7 @@ import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
 import com.shashi.constant.UserRole;
+import com.shashi.utility.PageFragments;
 import com.shashi.utility.TrainUtil;
 
 @SuppressWarnings("serial")
@@ -22,12 +22,10 @@ public class UserLogoutServlet extends HttpServlet {
 
 		if (TrainUtil.isLoggedIn(req, UserRole.CUSTOMER)) {
 			TrainUtil.logout(res);
-			RequestDispatcher rd = req.getRequestDispatcher("UserLogin.html");
-			rd.include(req, res);
+			PageFragments.include(req, res, "UserLogin.html");
 			pw.println("<div class='tab'><p1 class='menu'>You have been successfully logged out !</p1></div>");
 		} else {
-			RequestDispatcher rd = req.getRequestDispatcher("UserLogin.html");
-			rd.include(req, res);
+			PageFragments.include(req, res, "UserLogin.html");
 
 			pw.println("<div class='tab'><p1 class='menu'>You are Already Logged Out !</p1></div>");
 		}
@@ -3,7 +3,6 @@ package com.shashi.servlets;
 import java.io.IOException;
 import java.io.PrintWriter;
 
-import javax.servlet.RequestDispatcher;
 import javax.servlet.ServletException;
 import javax.servlet.annotation.WebServlet;
 import javax.servlet.http.HttpServlet;
@@ -15,6 +14,7 @@ import com.shashi.beans.UserBean;
 import com.shashi.constant.UserRole;
 import com.shashi.service.UserService;
 import com.shashi.service.impl.UserServiceImpl;
+import com.shashi.utility.PageFragments;
 
 @SuppressWarnings("serial")
 @WebServlet("/userreg")
@@ -36,19 +36,17 @@ public class UserRegServlet extends HttpServlet {
 
 			String message = userService.registerUser(user);
 			if ("SUCCESS".equalsIgnoreCase(message)) {
-				RequestDispatcher rd = req.getRequestDispatcher("UserLogin.html");
-				rd.include(req, res);
+				PageFragments.include(req, res, "UserLogin.html");
 				pw.println("<div class='tab'><p1 class='menu'>User Registered Successfully !</p1></div>");
 
 			} else {
-				RequestDispatcher rd = req.getRequestDispatcher("UserRegister.html");
-				rd.include(req, res);
+				PageFragments.include(req, res, "UserRegister.html");
 				pw.println("<div class='tab'><p1 class='menu'>" + message + "</p1></div>");
 
 			}
 
 		} catch (Exception e) {
-			throw new TrainException(422, this.getClass().getName() + "_FAILED", e.getMessage());
+			throw TrainException.failed(getClass(), e);
 		}
 	}
 
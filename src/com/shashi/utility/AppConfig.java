@@ -0,0 +1,45 @@
+package com.shashi.utility;
+
+import java.util.MissingResourceException;
+import java.util.ResourceBundle;
+
+//Optional settings from application.properties, a system property with the same key wins
+//Unlike the db credentials read by DBUtil, every key here has a default value
+public class AppConfig {
+
+	private static final ResourceBundle BUNDLE = loadBundle();
+
+	private AppConfig() {
+	}
+
+	public static String getString(String key, String defaultValue) {
+		String value = System.getProperty(key);
+		if (value == null && BUNDLE != null && BUNDLE.containsKey(key)) {
+			value = BUNDLE.getString(key);
+		}
+		if (value == null || value.trim().isEmpty()) {
+			return defaultValue;
+		}
+		return value.trim();
+	}
+
+	public static int getInt(String key, int defaultValue) {
+		return Integer.parseInt(getString(key, String.valueOf(defaultValue)));
+	}
+
+	public static long getLong(String key, long defaultValue) {
+		return Long.parseLong(getString(key, String.valueOf(defaultValue)));
+	}
+
+	public static boolean getBoolean(String key, boolean defaultValue) {
+		return Boolean.parseBoolean(getString(key, String.valueOf(defaultValue)));
+	}
+
+	private static ResourceBundle loadBundle() {
+		try {
+			return ResourceBundle.getBundle("application");
+		} catch (MissingResourceException e) {
+			return null;
+		}
+	}
+}
@@ -0,0 +1,212 @@
+package com.shashi.utility;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+//Hands log events from the request threads to one writer thread through a fixed ring buffer
+//
+//A caller claims a slot with one compare-and-set and stores the event, it never waits on the
+//output. The writer thread turns the events into JSON lines and flushes when the ring is
+//drained. With a full ring the event is dropped and counted, or with block=true the caller
+//waits until the writer has freed a slot
+public class AsyncLogWriter {
+
+	private static final long IDLE_PARK_NANOS = 5000000;
+
+	private final Writer out;
+	private final boolean block;
+	private final int mask;
+
+	// slot i is free for the producer of position p when sequence == p, readable when sequence == p + 1
+	private final AtomicLongArray sequences;
+	private final AtomicReferenceArray<Event> events;
+	private final AtomicLong head = new AtomicLong();
+	private long tail;
+
+	private final AtomicLong dropped = new AtomicLong();
+	private final Thread thread;
+	private volatile boolean closed;
+
+	public AsyncLogWriter(Writer out, int capacity, boolean block) {
+		int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+		this.out = out;
+		this.block = block;
+		this.mask = size - 1;
+		this.sequences = new AtomicLongArray(size);
+		this.events = new AtomicReferenceArray<Event>(size);
+		for (int i = 0; i < size; i++) {
+			sequences.set(i, i);
+		}
+		thread = new Thread(this::run, "log-writer");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	// One log call, formatted later on the writer thread
+	public static class Event {
+		final long millis = System.currentTimeMillis();
+		final String thread = Thread.currentThread().getName();
+		final Log.Level level;
+		final String logger;
+		final String message;
+		final Throwable error;
+		final Object[] fields;
+
+		public Event(Log.Level level, String logger, String message, Throwable error, Object[] fields) {
+			this.level = level;
+			this.logger = logger;
+			this.message = message;
+			this.error = error;
+			this.fields = fields;
+		}
+	}
+
+	public void append(Event event) {
+		if (closed) {
+			// after close() there is no writer thread left, write on the caller
+			synchronized (this) {
+				write(event);
+				flush();
+			}
+			return;
+		}
+		while (!offer(event)) {
+			if (!block) {
+				dropped.incrementAndGet();
+				return;
+			}
+			LockSupport.unpark(thread);
+			Thread.yield();
+		}
+	}
+
+	public long getDroppedCount() {
+		return dropped.get();
+	}
+
+	// Stops the writer thread after it has written what is in the ring
+	public void close() {
+		closed = true;
+		LockSupport.unpark(thread);
+		try {
+			thread.join(2000);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		// events offered while the writer was stopping
+		synchronized (this) {
+			drain();
+		}
+	}
+
+	private boolean offer(Event event) {
+		long position = head.get();
+		while (true) {
+			int slot = (int) position & mask;
+			long difference = sequences.get(slot) - position;
+			if (difference == 0) {
+				if (head.compareAndSet(position, position + 1)) {
+					events.set(slot, event);
+					sequences.set(slot, position + 1);
+					return true;
+				}
+				position = head.get();
+			} else if (difference < 0) {
+				// the writer has not freed this slot yet, the ring is full
+				return false;
+			} else {
+				position = head.get();
+			}
+		}
+	}
+
+	private Event poll() {
+		int slot = (int) tail & mask;
+		if (sequences.get(slot) != tail + 1) {
+			return null;
+		}
+		Event event = events.get(slot);
+		events.set(slot, null);
+		sequences.set(slot, tail + mask + 1);
+		tail++;
+		return event;
+	}
+
+	private void run() {
+		while (true) {
+			boolean stopping = closed;
+			boolean wrote;
+			synchronized (this) {
+				wrote = drain();
+			}
+			if (!wrote) {
+				if (stopping) {
+					return;
+				}
+				LockSupport.parkNanos(IDLE_PARK_NANOS);
+			}
+		}
+	}
+
+	// Writes everything readable in the ring, one flush for the lot
+	private boolean drain() {
+		Event event = poll();
+		if (event == null) {
+			return false;
+		}
+		do {
+			write(event);
+		} while ((event = poll()) != null);
+		flush();
+		return true;
+	}
+
+	private void write(Event event) {
+		try {
+			JsonWriter json = new JsonWriter(out);
+			json.beginObject().name("time").value(Instant.ofEpochMilli(event.millis).toString()).name("level")
+					.value(event.level.name()).name("logger").value(event.logger).name("thread")
+					.value(event.thread).name("message").value(event.message);
+			Object[] fields = event.fields;
+			for (int i = 0; fields != null && i + 1 < fields.length; i += 2) {
+				json.name(String.valueOf(fields[i]));
+				Object value = fields[i + 1];
+				if (value instanceof Number) {
+					json.value((Number) value);
+				} else if (value instanceof Boolean) {
+					json.value(((Boolean) value).booleanValue());
+				} else {
+					json.value(value == null ? null : String.valueOf(value));
+				}
+			}
+			if (event.error != null) {
+				json.name("error").value(event.error.toString()).name("stack").value(stackTrace(event.error));
+			}
+			json.endObject();
+			out.write('\n');
+		} catch (IOException | RuntimeException e) {
+			dropped.incrementAndGet();
+		}
+	}
+
+	private void flush() {
+		try {
+			out.flush();
+		} catch (IOException e) {
+			// nothing better to report it to
+		}
+	}
+
+	private static String stackTrace(Throwable error) {
+		StringWriter trace = new StringWriter();
+		error.printStackTrace(new PrintWriter(trace));
+		return trace.toString();
+	}
+}
@@ -0,0 +1,84 @@
+package com.shashi.utility;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+//In memory view of the booking tokens issued by the payment page
+//The first request for a token owns the booking, duplicates show the page it rendered, the ticket
+//or the refusal, once it is there
+//Entries expire with the bookingToken cookie, the BOOKING_TOKEN table is the durable copy.
+//BookingServiceImpl purges its rows after the same TOKEN_MAX_AGE
+public class BookingTokenCache {
+
+	public static final String TOKEN_NAME = "bookingToken";
+
+	public static final int TOKEN_MAX_AGE = 600; // seconds, same as the session cookie
+
+	private static final long TTL = TimeUnit.SECONDS.toMillis(TOKEN_MAX_AGE);
+
+	private static final long PURGE_INTERVAL = TimeUnit.MINUTES.toMillis(1);
+
+	private static final Map<String, Entry> ENTRIES = new ConcurrentHashMap<String, Entry>();
+
+	private static final AtomicLong NEXT_PURGE = new AtomicLong();
+
+	private BookingTokenCache() {
+	}
+
+	private static class Entry {
+		private final CompletableFuture<String> result;
+		private final long expiresAt;
+
+		private Entry(CompletableFuture<String> result, long expiresAt) {
+			this.result = result;
+			this.expiresAt = expiresAt;
+		}
+	}
+
+	/**
+	 * Registers the pending outcome page of a booking for the given token.
+	 *
+	 * @return null if the caller now owns the token and must complete the result,
+	 *         otherwise the result of the request which got there first
+	 */
+	public static CompletableFuture<String> claim(String token, CompletableFuture<String> result) {
+		long now = System.currentTimeMillis();
+		purgeExpired(now);
+		Entry entry = new Entry(result, now + TTL);
+		while (true) {
+			Entry existing = ENTRIES.putIfAbsent(token, entry);
+			if (existing == null) {
+				return null;
+			}
+			if (existing.expiresAt > now) {
+				return existing.result;
+			}
+			ENTRIES.remove(token, existing);
+		}
+	}
+
+	public static void release(String token) {
+		ENTRIES.remove(token);
+	}
+
+	public static int size() {
+		return ENTRIES.size();
+	}
+
+	private static void purgeExpired(long now) {
+		long nextPurge = NEXT_PURGE.get();
+		if (now < nextPurge || !NEXT_PURGE.compareAndSet(nextPurge, now + PURGE_INTERVAL)) {
+			return;
+		}
+		Iterator<Entry> entries = ENTRIES.values().iterator();
+		while (entries.hasNext()) {
+			if (entries.next().expiresAt <= now) {
+				entries.remove();
+			}
+		}
+	}
+}
@@ -0,0 +1,362 @@
+package com.shashi.utility;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.http.HttpServletResponse;
+
+import com.shashi.beans.TrainBean;
+import com.shashi.beans.TrainException;
+import com.shashi.constant.ResponseCode;
+import com.shashi.service.impl.TrainServiceImpl;
+
+//Last known good copy of the train catalog, read by TrainServiceImpl while the database is down
+//
+//A background thread copies the TRAIN table every catalogSnapshotSeconds into catalogSnapshotFile.
+//At startup the file is memory-mapped and answers getAllTrains and getTrainById until the first
+//copy from the database (or a catalog write) reconciles it, so a restarted node is warm before the
+//database is. Only a copy taken within the last few refresh periods warms a node up, and its pages
+//are neither tagged nor kept by the browser: they may be behind the database. While reads are answered from the copy because of an outage the catalog is degraded:
+//the pages show how old the data is. Bookings and train updates never read the copy, they go to
+//the database through TrainService.getTrainFromDatabase and fail while it is down
+//
+//File format 2, big endian:
+//	header	int magic, int format, long takenAt, int count, int stringsOffset
+//	records	count x 32 bytes sorted by train number: long trNo, int seats, double fare,
+//		int name, int from, int to (offsets into the string table)
+//	strings	short length + UTF-8 bytes, every distinct name and station once
+public class CatalogSnapshot {
+
+	private static final Log LOG = Log.get(CatalogSnapshot.class);
+
+	private static final int MAGIC = 0x54524353;
+
+	private static final int FORMAT = 2;
+
+	private static final int HEADER_SIZE = 24;
+
+	private static final int RECORD_SIZE = 32;
+
+	private static final File DEFAULT_FILE = new File(AppConfig.getString("catalogSnapshotFile",
+			new File(System.getProperty("java.io.tmpdir"), "train-catalog.snapshot").getPath()));
+
+	private static volatile File file = DEFAULT_FILE;
+
+	private static final long REFRESH_SECONDS = AppConfig.getLong("catalogSnapshotSeconds", 60);
+
+	// oldest copy a restarted node answers from before the database did
+	private static final long WARM_MAX_AGE = TimeUnit.SECONDS.toMillis(REFRESH_SECONDS * 3);
+
+	private static volatile Snapshot current;
+
+	// time the first read was answered from the copy, 0 while the database answers
+	private static volatile long degradedSince;
+
+	// catalog version the startup copy answers for, -1 once the database took over
+	private static volatile long warmVersion = -1;
+
+	private static ScheduledExecutorService scheduler;
+
+	private CatalogSnapshot() {
+	}
+
+	// Encoded snapshot, read with absolute gets only so threads can share the buffer
+	private static class Snapshot {
+		private final ByteBuffer buffer;
+		private final long takenAt;
+		private final int count;
+		private final int strings;
+
+		private Snapshot(ByteBuffer buffer) throws IOException {
+			if (buffer.limit() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+				throw new IOException("Not a catalog snapshot");
+			}
+			if (buffer.getInt(4) != FORMAT) {
+				throw new IOException("Catalog snapshot format " + buffer.getInt(4) + " is not supported");
+			}
+			this.buffer = buffer;
+			this.takenAt = buffer.getLong(8);
+			this.count = buffer.getInt(16);
+			this.strings = buffer.getInt(20);
+			if (count < 0 || strings != HEADER_SIZE + (long) count * RECORD_SIZE || strings > buffer.limit()) {
+				throw new IOException("Truncated catalog snapshot");
+			}
+		}
+
+		private List<TrainBean> trains() {
+			List<TrainBean> trains = new ArrayList<TrainBean>(count);
+			for (int i = 0; i < count; i++) {
+				trains.add(train(i));
+			}
+			return trains;
+		}
+
+		// Binary search over the records, only the match is decoded
+		private TrainBean find(long trNo) {
+			int low = 0;
+			int high = count - 1;
+			while (low <= high) {
+				int middle = (low + high) >>> 1;
+				long found = buffer.getLong(HEADER_SIZE + middle * RECORD_SIZE);
+				if (found < trNo) {
+					low = middle + 1;
+				} else if (found > trNo) {
+					high = middle - 1;
+				} else {
+					return train(middle);
+				}
+			}
+			return null;
+		}
+
+		private TrainBean train(int index) {
+			int record = HEADER_SIZE + index * RECORD_SIZE;
+			TrainBean train = new TrainBean();
+			train.setTr_no(buffer.getLong(record));
+			train.setSeats(buffer.getInt(record + 8));
+			train.setFare(buffer.getDouble(record + 12));
+			train.setTr_name(string(buffer.getInt(record + 20)));
+			train.setFrom_stn(string(buffer.getInt(record + 24)));
+			train.setTo_stn(string(buffer.getInt(record + 28)));
+			return train;
+		}
+
+		private String string(int offset) {
+			int position = strings + offset;
+			byte[] bytes = new byte[buffer.getShort(position) & 0xffff];
+			for (int i = 0; i < bytes.length; i++) {
+				bytes[i] = buffer.get(position + 2 + i);
+			}
+			return new String(bytes, StandardCharsets.UTF_8);
+		}
+	}
+
+	public static synchronized void start() {
+		if (scheduler != null || REFRESH_SECONDS <= 0) {
+			return;
+		}
+		warmUp();
+		scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread thread = new Thread(r, "catalog-snapshot");
+			thread.setDaemon(true);
+			return thread;
+		});
+		scheduler.scheduleWithFixedDelay(CatalogSnapshot::refresh, 0, REFRESH_SECONDS, TimeUnit.SECONDS);
+	}
+
+	public static synchronized void stop() {
+		if (scheduler != null) {
+			scheduler.shutdownNow();
+			scheduler = null;
+		}
+	}
+
+	// Stops the refresh and forgets the copy and the degraded state. The snapshot is kept in the given
+	// file from then on, the catalogSnapshotFile setting when null
+	public static synchronized void reset(File snapshotFile) {
+		stop();
+		file = snapshotFile == null ? DEFAULT_FILE : snapshotFile;
+		current = null;
+		degradedSince = 0;
+		warmVersion = -1;
+	}
+
+	// Maps the snapshot file left by the previous run and serves catalog reads from it, unless it is
+	// older than a few refresh periods. An older copy is still read during an outage, with the banner
+	public static void warmUp() {
+		Snapshot snapshot = map();
+		if (snapshot != null && System.currentTimeMillis() - snapshot.takenAt > WARM_MAX_AGE) {
+			LOG.info("Catalog snapshot too old to answer before the database", "takenAt",
+					new Date(snapshot.takenAt).toString());
+		} else if (snapshot != null) {
+			current = snapshot;
+			warmVersion = CatalogVersion.current();
+			LOG.info("Catalog served from the snapshot until the database answers", "trains", snapshot.count,
+					"takenAt", new Date(snapshot.takenAt).toString());
+		}
+	}
+
+	// Copies the catalog from the database, an outage keeps the previous copy
+	public static void refresh() {
+		try {
+			List<TrainBean> trains = new TrainServiceImpl().getAllTrainsFromDatabase();
+			databaseAvailable();
+			update(trains);
+		} catch (Exception e) {
+			LOG.warn("Catalog snapshot not refreshed", "error", e.getMessage());
+		} finally {
+			// reconciled, or the database is down and reads find out for themselves
+			warmVersion = -1;
+		}
+	}
+
+	// Stores trains read from the database
+	public static void update(List<TrainBean> trains) throws IOException {
+		byte[] bytes = encode(trains, System.currentTimeMillis());
+		current = new Snapshot(ByteBuffer.wrap(bytes));
+		// written next to the file and moved over it, a reader never sees half a snapshot
+		File target = file;
+		File temp = new File(target.getPath() + ".tmp");
+		Files.write(temp.toPath(), bytes);
+		Files.move(temp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	// True while the startup copy answers and no train was added, updated or deleted since
+	public static boolean isWarming() {
+		return warmVersion == CatalogVersion.current();
+	}
+
+	// Called on every read the database answered
+	public static void databaseAvailable() {
+		if (degradedSince != 0) {
+			LOG.info("Catalog reads are back on the database", "degradedMillis",
+					System.currentTimeMillis() - degradedSince);
+			degradedSince = 0;
+		}
+	}
+
+	// The whole startup copy, only while isWarming
+	public static List<TrainBean> getTrains() {
+		return current.trains();
+	}
+
+	// One train of the startup copy, only while isWarming
+	public static TrainBean getTrain(Long trNo) {
+		return trNo == null ? null : current.find(trNo);
+	}
+
+	// The copy for a read the database could not answer, the failure itself when there is no copy
+	public static List<TrainBean> getTrains(TrainException failure) throws TrainException {
+		Snapshot snapshot = current;
+		if (snapshot == null) {
+			snapshot = load();
+		}
+		if (snapshot == null) {
+			throw failure;
+		}
+		if (degradedSince == 0) {
+			degradedSince = System.currentTimeMillis();
+			LOG.warn("Catalog reads served from the snapshot", "takenAt", new Date(snapshot.takenAt).toString(),
+					"error", failure.getMessage());
+		}
+		return snapshot.trains();
+	}
+
+	// Only outages fall back to the copy, not errors in the request
+	public static boolean isOutage(TrainException e) {
+		return ResponseCode.DATABASE_CONNECTION_FAILURE.name().equals(e.getErrorCode());
+	}
+
+	public static boolean isDegraded() {
+		return degradedSince != 0;
+	}
+
+	public static long getTakenAt() {
+		Snapshot snapshot = current;
+		return snapshot == null ? 0 : snapshot.takenAt;
+	}
+
+	// Staleness banner of the train pages, written after the page chrome
+	public static void writeBanner(HttpServletResponse res) throws IOException {
+		markStale(res);
+		if (!isDegraded()) {
+			return;
+		}
+		PrintWriter pw = res.getWriter();
+		pw.println("<div class='tab'><p1 class='menu red'>Train details as of " + new Date(getTakenAt())
+				+ ", bookings are paused until the reservation system is back</p1></div>");
+	}
+
+	// Stale answers must not be kept by the browser or revalidated against the catalog version.
+	// Neither must a warm answer, the copy of the previous run is not known to match the database yet
+	public static void markStale(HttpServletResponse res) {
+		if (isWarming()) {
+			res.setHeader("Cache-Control", "no-store");
+			return;
+		}
+		if (!isDegraded()) {
+			return;
+		}
+		res.setHeader("Cache-Control", "no-store");
+		String etag = CatalogVersion.etag("stale-" + getTakenAt());
+		if (etag != null) {
+			res.setHeader("ETag", etag);
+		}
+		res.setHeader("Warning", "110 - \"Response is Stale\"");
+	}
+
+	private static synchronized Snapshot load() {
+		if (current == null) {
+			current = map();
+		}
+		return current;
+	}
+
+	private static Snapshot map() {
+		File source = file;
+		if (!source.isFile()) {
+			return null;
+		}
+		try (FileChannel channel = FileChannel.open(source.toPath(), StandardOpenOption.READ)) {
+			// the mapping outlives the channel, pages are read in as records are touched
+			return new Snapshot(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+		} catch (IOException e) {
+			LOG.warn("Catalog snapshot not readable", "file", source.getPath(), "error", e.getMessage());
+			return null;
+		}
+	}
+
+	private static byte[] encode(List<TrainBean> trains, long takenAt) {
+		List<TrainBean> sorted = new ArrayList<TrainBean>(trains);
+		sorted.sort(Comparator.comparing(TrainBean::getTr_no));
+		// station names repeat across trains, the string table holds each once
+		Map<String, Integer> offsets = new HashMap<String, Integer>();
+		List<byte[]> strings = new ArrayList<byte[]>();
+		int stringsSize = 0;
+		int[] refs = new int[sorted.size() * 3];
+		int ref = 0;
+		for (TrainBean train : sorted) {
+			for (String value : new String[] { train.getTr_name(), train.getFrom_stn(), train.getTo_stn() }) {
+				value = value == null ? "" : value;
+				Integer offset = offsets.get(value);
+				if (offset == null) {
+					byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+					offset = stringsSize;
+					offsets.put(value, offset);
+					strings.add(bytes);
+					stringsSize += 2 + bytes.length;
+				}
+				refs[ref++] = offset;
+			}
+		}
+		int stringsOffset = HEADER_SIZE + sorted.size() * RECORD_SIZE;
+		ByteBuffer buffer = ByteBuffer.allocate(stringsOffset + stringsSize);
+		buffer.putInt(MAGIC).putInt(FORMAT).putLong(takenAt).putInt(sorted.size()).putInt(stringsOffset);
+		ref = 0;
+		for (TrainBean train : sorted) {
+			buffer.putLong(train.getTr_no()).putInt(train.getSeats() == null ? 0 : train.getSeats())
+					.putDouble(train.getFare() == null ? 0 : train.getFare()).putInt(refs[ref++]).putInt(refs[ref++])
+					.putInt(refs[ref++]);
+		}
+		for (byte[] bytes : strings) {
+			buffer.putShort((short) bytes.length).put(bytes);
+		}
+		return buffer.array();
+	}
+}
@@ -0,0 +1,119 @@
+package com.shashi.utility;
+
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.servlet.DispatcherType;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import com.shashi.beans.TrainException;
+
+//Version of the train catalog, the ETag of the train pages
+//The database counts every insert and delete of TRAIN, and every update of its name, stations or
+//fare, in the CATALOG_VERSION row with a trigger, whichever node or tool made it. Seat counts are not
+//part of it: bookings would queue on the row and every page tag would change with each of them, the
+//tagged pages leave the seats out instead. So so every node hands out the same tag for the same catalog
+//and a browser asking again with If-None-Match gets a 304 without any rendering work while no train
+//changed. The row is read at most every catalogVersionCheckMillis, a change made on another node is
+//seen that much later. Without the row, or while the database is down, there is no tag and the pages
+//are rendered every time
+public class CatalogVersion {
+
+	// run by the CATALOG_VERSION triggers
+	public static final String BUMP = "UPDATE CATALOG_VERSION SET VERSION=VERSION+1 WHERE ID=1";
+
+	private static final String SELECT = "SELECT VERSION FROM CATALOG_VERSION WHERE ID=1";
+
+	private static final long CHECK_MILLIS = AppConfig.getLong("catalogVersionCheckMillis", 1000);
+
+	private static final long UNKNOWN = -1;
+
+	// writes made by this node, a write reads the shared version again
+	private static final AtomicLong VERSION = new AtomicLong();
+
+	// The shared version as last read, replaced as a whole
+	private static final class Checked {
+		private final long version;
+		private final long at;
+		private final long local;
+
+		private Checked(long version, long at, long local) {
+			this.version = version;
+			this.at = at;
+			this.local = local;
+		}
+	}
+
+	private static volatile Checked checked;
+
+	private CatalogVersion() {
+	}
+
+	// Local count of the catalog writes of this node
+	public static long current() {
+		return VERSION.get();
+	}
+
+	// Called after every TrainService write that changed a row, the trigger already counted it in the database
+	public static void bump() {
+		VERSION.incrementAndGet();
+	}
+
+	// Weak tag: the same page may go out compressed or not. Null when the version is not known
+	public static String etag(String variant) {
+		long version = shared();
+		if (version == UNKNOWN) {
+			return null;
+		}
+		String suffix = variant == null ? "" : "-" + variant.replaceAll("[^A-Za-z0-9]", "_");
+		return "W/\"" + Long.toString(version, 36) + suffix + "\"";
+	}
+
+	// Sets the ETag of the page and answers 304 when the browser already has it.
+	// Only the first pass of an async servlet decides, the tag must not be newer than the data.
+	// A node still answering from its startup copy tags nothing, the copy may be older than the version
+	public static boolean notModified(HttpServletRequest req, HttpServletResponse res, String variant) {
+		if (req.getDispatcherType() == DispatcherType.ASYNC || CatalogSnapshot.isWarming()) {
+			return false;
+		}
+		String etag = etag(variant);
+		if (etag == null) {
+			return false;
+		}
+		res.setHeader("ETag", etag);
+		// the pages are behind a login, only the browser itself may keep them
+		res.setHeader("Cache-Control", "private, no-cache");
+		String ifNoneMatch = req.getHeader("If-None-Match");
+		if (ifNoneMatch == null) {
+			return false;
+		}
+		for (String tag : ifNoneMatch.split(",")) {
+			tag = tag.trim();
+			if (tag.equals(etag) || tag.equals("*") || ("W/" + tag).equals(etag)) {
+				res.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static long shared() {
+		long now = System.currentTimeMillis();
+		long local = VERSION.get();
+		Checked last = checked;
+		if (last != null && last.local == local && now - last.at < CHECK_MILLIS) {
+			return last.version;
+		}
+		long version;
+		try {
+			Long found = DataAccess.queryFirst("CatalogVersion.shared", SELECT, null, rs -> rs.getLong(1));
+			version = found == null ? UNKNOWN : found;
+		} catch (SQLException | TrainException e) {
+			// a failed read is kept as well, the pages do not ask a database that is down on every request
+			version = UNKNOWN;
+		}
+		checked = new Checked(version, now, local);
+		return version;
+	}
+}
@@ -0,0 +1,48 @@
+package com.shashi.utility;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Objects;
+
+import org.h2.api.Trigger;
+
+//Row trigger on TRAIN of the embedded database, counts catalog changes in CATALOG_VERSION
+//The Oracle schema of Dummy-Database.md does the same with a statement trigger. H2 refuses a
+//statement trigger that writes while the triggering statement runs in autocommit. H2 has no
+//UPDATE OF column list either, an update that only moves seats is skipped here: bookings do not
+//change the catalog and must not queue on the CATALOG_VERSION row
+public class CatalogVersionTrigger implements Trigger {
+
+	private int seatsColumn = -1;
+
+	@Override
+	public void init(Connection con, String schemaName, String triggerName, String tableName, boolean before,
+			int type) throws SQLException {
+		try (ResultSet rs = con.getMetaData().getColumns(null, schemaName, tableName, "SEATS")) {
+			if (rs.next()) {
+				seatsColumn = rs.getInt("ORDINAL_POSITION") - 1;
+			}
+		}
+	}
+
+	@Override
+	public void fire(Connection con, Object[] oldRow, Object[] newRow) throws SQLException {
+		if (oldRow != null && newRow != null && sameCatalog(oldRow, newRow)) {
+			return;
+		}
+		try (PreparedStatement ps = con.prepareStatement(CatalogVersion.BUMP)) {
+			ps.executeUpdate();
+		}
+	}
+
+	private boolean sameCatalog(Object[] oldRow, Object[] newRow) {
+		for (int i = 0; i < newRow.length; i++) {
+			if (i != seatsColumn && !Objects.equals(oldRow[i], newRow[i])) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
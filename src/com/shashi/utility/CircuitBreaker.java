@@ -0,0 +1,153 @@
+package com.shashi.utility;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.LongSupplier;
+
+//Circuit breaker in front of the database, used by DBUtil
+//
+//CLOSED: calls go through and their outcome is counted in a sliding window of one second
+//buckets. Once the window holds minimumCalls calls and failureRate percent of them failed, the
+//breaker is OPEN and refuses every call for openMillis. The first call after that goes through
+//as the probe (HALF_OPEN): its success closes the breaker, its failure opens it again
+//
+//Every statement reports to the breaker, so it takes no lock: the state moves by compare and set
+//and the buckets are counters, a virtual thread never blocks or pins its carrier here
+public class CircuitBreaker {
+
+	public enum State {
+		CLOSED, OPEN, HALF_OPEN
+	}
+
+	// The state and when it was entered, replaced as a whole
+	private static final class Phase {
+		private final State state;
+		private final long since;
+
+		private Phase(State state, long since) {
+			this.state = state;
+			this.since = since;
+		}
+	}
+
+	private static final class Bucket {
+		private final long second;
+		private final AtomicInteger calls = new AtomicInteger();
+		private final AtomicInteger failures = new AtomicInteger();
+
+		private Bucket(long second) {
+			this.second = second;
+		}
+	}
+
+	private static final Phase CLOSED = new Phase(State.CLOSED, 0);
+
+	private final int minimumCalls;
+	private final int failureRate;
+	private final long openMillis;
+	private final LongSupplier clock;
+
+	private final AtomicReferenceArray<Bucket> buckets;
+
+	private final AtomicReference<Phase> phase = new AtomicReference<Phase>(CLOSED);
+
+	private final AtomicLong rejected = new AtomicLong();
+
+	public CircuitBreaker(int windowSeconds, int minimumCalls, int failureRate, long openMillis) {
+		this(windowSeconds, minimumCalls, failureRate, openMillis, System::currentTimeMillis);
+	}
+
+	public CircuitBreaker(int windowSeconds, int minimumCalls, int failureRate, long openMillis, LongSupplier clock) {
+		this.minimumCalls = minimumCalls;
+		this.failureRate = failureRate;
+		this.openMillis = openMillis;
+		this.clock = clock;
+		this.buckets = new AtomicReferenceArray<Bucket>(windowSeconds);
+	}
+
+	// False when the call has to be refused right away
+	public boolean tryAcquire() {
+		Phase current = phase.get();
+		if (current.state == State.CLOSED) {
+			return true;
+		}
+		long now = clock.getAsLong();
+		// OPEN long enough, or a probe that never reported back: the caller that swaps the phase probes
+		if (now - current.since >= openMillis && phase.compareAndSet(current, new Phase(State.HALF_OPEN, now))) {
+			return true;
+		}
+		if (phase.get().state == State.CLOSED) {
+			return true;
+		}
+		rejected.incrementAndGet();
+		return false;
+	}
+
+	public void onSuccess() {
+		Phase current = phase.get();
+		if (current.state == State.HALF_OPEN) {
+			if (phase.compareAndSet(current, CLOSED)) {
+				for (int i = 0; i < buckets.length(); i++) {
+					buckets.set(i, null);
+				}
+			}
+			return;
+		}
+		record(clock.getAsLong(), false);
+	}
+
+	public void onFailure() {
+		long now = clock.getAsLong();
+		Phase current = phase.get();
+		if (current.state == State.HALF_OPEN) {
+			phase.compareAndSet(current, new Phase(State.OPEN, now));
+			return;
+		}
+		if (current.state == State.OPEN) {
+			return;
+		}
+		record(now, true);
+		int total = 0;
+		int failed = 0;
+		long second = now / 1000;
+		for (int i = 0; i < buckets.length(); i++) {
+			Bucket bucket = buckets.get(i);
+			if (bucket != null && second - bucket.second < buckets.length()) {
+				total += bucket.calls.get();
+				failed += bucket.failures.get();
+			}
+		}
+		if (total >= minimumCalls && failed * 100L >= (long) failureRate * total) {
+			phase.compareAndSet(current, new Phase(State.OPEN, now));
+		}
+	}
+
+	public State getState() {
+		return phase.get().state;
+	}
+
+	public long getRejectedCount() {
+		return rejected.get();
+	}
+
+	private void record(long now, boolean failed) {
+		long second = now / 1000;
+		int index = (int) (second % buckets.length());
+		Bucket bucket = buckets.get(index);
+		while (bucket == null || bucket.second != second) {
+			// the slot still counts a second that left the window, start it over
+			Bucket fresh = new Bucket(second);
+			if (buckets.compareAndSet(index, bucket, fresh)) {
+				bucket = fresh;
+			} else {
+				bucket = buckets.get(index);
+			}
+		}
+		bucket.calls.incrementAndGet();
+		if (failed) {
+			bucket.failures.incrementAndGet();
+		}
+	}
+}
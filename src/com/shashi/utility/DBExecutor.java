@@ -0,0 +1,288 @@
+package com.shashi.utility;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.DispatcherType;
+import javax.servlet.RequestDispatcher;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import com.shashi.beans.TrainException;
+import com.shashi.constant.ResponseCode;
+
+//Runs the service calls of async servlets on a bounded pool of db threads
+//
+//First pass: submit() puts the request in async mode, hands the call to the pool and the
+//servlet returns, releasing the container thread. When the call is done the request is
+//dispatched back to the same servlet, where submit() now returns the finished result for
+//rendering. A timeout or a full queue is sent to the error page instead.
+//
+//With virtualThreads=true on JDK 21+ every call gets its own virtual thread, and at most
+//dbExecutorThreads of them run against the db at a time
+public class DBExecutor {
+
+	private static final Log LOG = Log.get(DBExecutor.class);
+
+	private static final String RESULT_ATTRIBUTE = DBExecutor.class.getName() + ".result";
+
+	private static final int THREADS = AppConfig.getInt("dbExecutorThreads", 4);
+
+	private static final int QUEUE_SIZE = AppConfig.getInt("dbExecutorQueueSize", 100);
+
+	private static final long TIMEOUT = AppConfig.getLong("dbRequestTimeoutMillis", 10000);
+
+	private static final boolean VIRTUAL_THREADS = AppConfig.getBoolean("virtualThreads", false);
+
+	private static final ExecutorService EXECUTOR = createExecutor();
+
+	private static final AtomicLong REJECTED = new AtomicLong();
+
+	private static final AtomicLong TIMEOUTS = new AtomicLong();
+
+	private DBExecutor() {
+	}
+
+	public static class Result<T> {
+		private final boolean done;
+		private final T value;
+		private final Exception error;
+
+		private Result(boolean done, T value, Exception error) {
+			this.done = done;
+			this.value = value;
+			this.error = error;
+		}
+
+		public boolean isDone() {
+			return done;
+		}
+
+		public T get() throws TrainException {
+			if (error instanceof TrainException) {
+				throw (TrainException) error;
+			} else if (error != null) {
+				throw new TrainException(error.getMessage());
+			}
+			return value;
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	public static <T> Result<T> submit(HttpServletRequest req, Callable<T> call) {
+		Object finished = req.getAttribute(RESULT_ATTRIBUTE);
+		if (finished != null && req.getDispatcherType() == DispatcherType.ASYNC) {
+			return (Result<T>) finished;
+		}
+		if (!req.isAsyncSupported()) {
+			// included or filtered by a non async component, run on the caller thread
+			return execute(call);
+		}
+
+		AsyncContext ac = req.startAsync();
+		ac.setTimeout(TIMEOUT);
+		AtomicBoolean dispatched = new AtomicBoolean();
+		ac.addListener(new AsyncListener() {
+			@Override
+			public void onTimeout(AsyncEvent event) throws IOException {
+				if (dispatched.compareAndSet(false, true)) {
+					TIMEOUTS.incrementAndGet();
+					dispatchError(ac, req, TrainException.of(ResponseCode.GATEWAY_TIMEOUT));
+				}
+			}
+
+			@Override
+			public void onComplete(AsyncEvent event) throws IOException {
+			}
+
+			@Override
+			public void onError(AsyncEvent event) throws IOException {
+			}
+
+			@Override
+			public void onStartAsync(AsyncEvent event) throws IOException {
+			}
+		});
+
+		try {
+			EXECUTOR.execute(() -> {
+				Result<T> result = execute(call);
+				if (dispatched.compareAndSet(false, true)) {
+					req.setAttribute(RESULT_ATTRIBUTE, result);
+					ac.dispatch();
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			REJECTED.incrementAndGet();
+			if (dispatched.compareAndSet(false, true)) {
+				dispatchError(ac, req, TrainException.of(ResponseCode.SERVICE_UNAVAILABLE));
+			}
+		}
+		return new Result<T>(false, null, null);
+	}
+
+	public static void shutdown() {
+		EXECUTOR.shutdownNow();
+	}
+
+	// Starts the pool threads ahead of the first request, virtual threads need nothing
+	public static void prestart() {
+		if (EXECUTOR instanceof ThreadPoolExecutor) {
+			((ThreadPoolExecutor) EXECUTOR).prestartAllCoreThreads();
+		}
+	}
+
+	private static <T> Result<T> execute(Callable<T> call) {
+		try {
+			return new Result<T>(true, call.call(), null);
+		} catch (Exception e) {
+			return new Result<T>(true, null, e);
+		}
+	}
+
+	private static void dispatchError(AsyncContext ac, HttpServletRequest req, TrainException e) {
+		req.setAttribute(RequestDispatcher.ERROR_EXCEPTION, e);
+		req.setAttribute(RequestDispatcher.ERROR_STATUS_CODE, e.getStatusCode());
+		req.setAttribute(RequestDispatcher.ERROR_REQUEST_URI, req.getRequestURI());
+		((HttpServletResponse) ac.getResponse()).setStatus(e.getStatusCode());
+		ac.dispatch("/error");
+	}
+
+	public static boolean isVirtual() {
+		return EXECUTOR instanceof VirtualThreadExecutor;
+	}
+
+	// Calls running against the db right now
+	public static long getActiveCount() {
+		if (EXECUTOR instanceof VirtualThreadExecutor) {
+			return ((VirtualThreadExecutor) EXECUTOR).getActiveCount();
+		}
+		return ((ThreadPoolExecutor) EXECUTOR).getActiveCount();
+	}
+
+	// Calls accepted but still waiting for a thread
+	public static long getQueuedCount() {
+		if (EXECUTOR instanceof VirtualThreadExecutor) {
+			return ((VirtualThreadExecutor) EXECUTOR).getQueuedCount();
+		}
+		return ((ThreadPoolExecutor) EXECUTOR).getQueue().size();
+	}
+
+	public static long getRejectedCount() {
+		return REJECTED.get();
+	}
+
+	public static long getTimeoutCount() {
+		return TIMEOUTS.get();
+	}
+
+	private static ExecutorService createExecutor() {
+		if (VIRTUAL_THREADS) {
+			try {
+				ExecutorService virtual = (ExecutorService) Executors.class
+						.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+				return new VirtualThreadExecutor(virtual, THREADS, QUEUE_SIZE);
+			} catch (ReflectiveOperationException e) {
+				LOG.warn("Virtual threads need JDK 21+, using platform threads");
+			}
+		}
+		AtomicInteger count = new AtomicInteger();
+		return new ThreadPoolExecutor(THREADS, THREADS, 60, TimeUnit.SECONDS,
+				new ArrayBlockingQueue<Runnable>(QUEUE_SIZE), r -> {
+					Thread thread = new Thread(r, "db-executor-" + count.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				});
+	}
+
+	// Thread per task, with the same db concurrency and backlog limits as the platform pool
+	private static class VirtualThreadExecutor extends AbstractExecutorService {
+		private final ExecutorService delegate;
+		private final Semaphore running;
+		private final Semaphore admitted;
+		private final int threads;
+		private final int queueSize;
+
+		private VirtualThreadExecutor(ExecutorService delegate, int threads, int queueSize) {
+			this.delegate = delegate;
+			this.running = new Semaphore(threads);
+			this.admitted = new Semaphore(threads + queueSize);
+			this.threads = threads;
+			this.queueSize = queueSize;
+		}
+
+		private int getActiveCount() {
+			return threads - running.availablePermits();
+		}
+
+		private int getQueuedCount() {
+			return Math.max(0, threads + queueSize - admitted.availablePermits() - getActiveCount());
+		}
+
+		@Override
+		public void execute(Runnable command) {
+			if (!admitted.tryAcquire()) {
+				throw new RejectedExecutionException("DB executor is saturated");
+			}
+			try {
+				delegate.execute(() -> {
+					try {
+						running.acquire();
+						try {
+							command.run();
+						} finally {
+							running.release();
+						}
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					} finally {
+						admitted.release();
+					}
+				});
+			} catch (RejectedExecutionException e) {
+				admitted.release();
+				throw e;
+			}
+		}
+
+		@Override
+		public void shutdown() {
+			delegate.shutdown();
+		}
+
+		@Override
+		public List<Runnable> shutdownNow() {
+			return delegate.shutdownNow();
+		}
+
+		@Override
+		public boolean isShutdown() {
+			return delegate.isShutdown();
+		}
+
+		@Override
+		public boolean isTerminated() {
+			return delegate.isTerminated();
+		}
+
+		@Override
+		public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+			return delegate.awaitTermination(timeout, unit);
+		}
+	}
+}
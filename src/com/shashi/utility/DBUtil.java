@@ -4,39 +4,148 @@ import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
 import java.util.ResourceBundle;
+import java.util.concurrent.locks.ReentrantLock;
 
 import com.shashi.beans.TrainException;
 import com.shashi.constant.ResponseCode;
 
 public class DBUtil {
-	private static Connection con;
+	private static final Log LOG = Log.get(DBUtil.class);
+
+	// statements running longer are cancelled, 0 lets them run
+	private static final int QUERY_TIMEOUT = AppConfig.getInt("dbQueryTimeoutSeconds", 5);
+
+	// idle prepared statements kept per connection, 0 prepares every statement again
+	private static final int STATEMENT_CACHE_SIZE = AppConfig.getInt("dbStatementCacheSize", 50);
+
+	private static final CircuitBreaker BREAKER = new CircuitBreaker(AppConfig.getInt("dbBreakerWindowSeconds", 10),
+			AppConfig.getInt("dbBreakerMinimumCalls", 20), AppConfig.getInt("dbBreakerFailureRate", 50),
+			AppConfig.getLong("dbBreakerOpenMillis", 5000));
+
+	private static volatile Connection con;
+
+	// held by the caller that reconnects, see reconnectIfBroken
+	private static final ReentrantLock RECONNECT = new ReentrantLock();
+
+	private static volatile Boolean oracle;
+
+	private static String driverName;
+	private static String connectionString;
+	private static String username;
+	private static String password;
+	private static boolean embedded;
 
 	static {
 
 		ResourceBundle rb = ResourceBundle.getBundle("application");
 
+		// a system property with the same key wins, e.g. to point the benchmarks at another db
+		driverName = AppConfig.getString("driverName", rb.getString("driverName"));
+		connectionString = AppConfig.getString("connectionString", rb.getString("connectionString"));
+		username = AppConfig.getString("username", rb.getString("username"));
+		password = System.getProperty("password", rb.getString("password"));
+
+		// dbProfile=embedded runs on the in-process H2 database instead, no Oracle instance needed
+		embedded = "embedded".equalsIgnoreCase(AppConfig.getString("dbProfile", "oracle"));
+		if (embedded) {
+			driverName = EmbeddedDatabase.DRIVER;
+			connectionString = AppConfig.getString("embeddedUrl", EmbeddedDatabase.DEFAULT_URL);
+			username = "sa";
+			password = "";
+		}
+
 		try {
-			Class.forName(rb.getString("driverName"));
+			Class.forName(driverName);
 		} catch (ClassNotFoundException e) {
-			e.printStackTrace();
+			LOG.error("Database driver not found", e, "driver", driverName);
 		}
 
-		try {
-			System.out.println(rb.getString("connectionString"));
-			System.out.println(rb.getString("username"));
-			System.out.println(rb.getString("password"));
-			con = DriverManager.getConnection(rb.getString("connectionString"), rb.getString("username"),
-					rb.getString("password"));
-			System.out.println("Connection Success!!");
-		} catch (SQLException e) {
+		DriverManager.setLoginTimeout(QUERY_TIMEOUT);
+		connect();
 
-			e.printStackTrace();
-		}
+		Metrics.gauge("db_breaker_state", "Database circuit breaker, 0 closed, 1 open, 2 half open",
+				() -> BREAKER.getState().ordinal());
+		Metrics.gauge("db_breaker_rejected_total", "Database calls refused while the circuit breaker was open",
+				BREAKER::getRejectedCount);
+		Metrics.gauge("statement_cache_hits_total", "Prepared statements reused from the statement cache",
+				StatementCache::getHitCount);
+		Metrics.gauge("statement_cache_misses_total", "Prepared statements the database had to prepare",
+				StatementCache::getMissCount);
+		Metrics.gauge("statement_cache_evictions_total", "Idle prepared statements closed to make room in the cache",
+				StatementCache::getEvictionCount);
 	}
 
+	// Refuses right away while the database is known to be down, see CircuitBreaker
 	public static Connection getConnection() throws TrainException {
-		if (con == null)
-			throw new TrainException(ResponseCode.DATABASE_CONNECTION_FAILURE);
+		if (!BREAKER.tryAcquire()) {
+			throw TrainException.of(ResponseCode.DATABASE_CONNECTION_FAILURE);
+		}
+		// the probe after an outage checks the connection, and there is none when the db was down at startup
+		if (con == null || BREAKER.getState() == CircuitBreaker.State.HALF_OPEN) {
+			reconnectIfBroken();
+		}
 		return con;
 	}
+
+	// One caller reconnects, the others are refused instead of each waiting out its own login timeout
+	// behind it. They did not reach the database, so they are not counted by the breaker
+	private static void reconnectIfBroken() throws TrainException {
+		if (!RECONNECT.tryLock()) {
+			throw TrainException.of(ResponseCode.DATABASE_CONNECTION_FAILURE);
+		}
+		try {
+			if (con != null) {
+				try {
+					if (con.isValid(QUERY_TIMEOUT)) {
+						return;
+					}
+					con.close();
+				} catch (SQLException e) {
+					// replaced below either way
+				}
+				con = null;
+			}
+			if (!connect()) {
+				BREAKER.onFailure();
+				throw TrainException.of(ResponseCode.DATABASE_CONNECTION_FAILURE);
+			}
+		} finally {
+			RECONNECT.unlock();
+		}
+	}
+
+	// Called from the static initializer and under RECONNECT
+	private static boolean connect() {
+		try {
+			Connection connection = DriverManager.getConnection(connectionString, username, password);
+			if (embedded) {
+				EmbeddedDatabase.setUp(connection);
+			}
+			// statements are prepared once per sql and reused, see StatementCache
+			connection = StatementCache.wrap(connection, STATEMENT_CACHE_SIZE);
+			// query timeouts and outage tracking for the circuit breaker
+			connection = GuardedConnection.wrap(connection, BREAKER, QUERY_TIMEOUT);
+			// every statement of the services is profiled, see SqlProfiler and /sqlprofile
+			con = SqlProfiler.wrap(connection);
+			LOG.info("Connected to the database", "url", connectionString, "user", username);
+			return true;
+		} catch (SQLException e) {
+			LOG.warn("Database connection failed", "url", connectionString, "user", username, "error",
+					e.getMessage());
+			return false;
+		}
+	}
+
+	// The queries are written for Oracle, the few Oracle only statements have a second form
+	// for the other databases (H2 in Oracle mode, used by the embedded profile)
+	public static boolean isOracle() throws TrainException {
+		if (oracle == null) {
+			try {
+				oracle = getConnection().getMetaData().getDatabaseProductName().startsWith("Oracle");
+			} catch (SQLException e) {
+				throw new TrainException(e.getMessage());
+			}
+		}
+		return oracle;
+	}
 }
@@ -0,0 +1,106 @@
+package com.shashi.utility;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.shashi.beans.TrainException;
+
+//Statement lifecycle of the services: prepare, bind, execute, map the rows, close
+//
+//	List<TrainBean> trains = DataAccess.query("TrainService.getAllTrains", "SELECT " + TRAIN_COLUMNS
+//			+ " FROM TRAIN", null, TrainServiceImpl::toTrain);
+//
+//Statements and result sets are closed with try-with-resources on every path, a failed execution or
+//a row that does not map included, so the statement goes back to the StatementCache either way. The
+//connection is the one DBUtil shares between all requests and stays open. Row mappers read their
+//columns by position, in the order of the column list of the query, and queries fetch dbFetchSize
+//rows per round trip. The name is the label of the query in /metrics
+public class DataAccess {
+
+	private static final int FETCH_SIZE = AppConfig.getInt("dbFetchSize", 100);
+
+	private DataAccess() {
+	}
+
+	@FunctionalInterface
+	public interface Binder {
+		void bind(PreparedStatement ps) throws SQLException;
+	}
+
+	@FunctionalInterface
+	public interface RowMapper<T> {
+		T map(ResultSet rs) throws SQLException;
+	}
+
+	@FunctionalInterface
+	public interface StatementCall<T> {
+		T call(PreparedStatement ps) throws SQLException;
+	}
+
+	// Runs the call on a statement prepared from sql and closes the statement afterwards
+	public static <T> T execute(String sql, StatementCall<T> call) throws SQLException, TrainException {
+		try (PreparedStatement ps = DBUtil.getConnection().prepareStatement(sql)) {
+			return call.call(ps);
+		}
+	}
+
+	// Every row, an empty list when there is none
+	public static <T> List<T> query(String name, String sql, Binder binder, RowMapper<T> mapper)
+			throws SQLException, TrainException {
+		return query(name, sql, FETCH_SIZE, binder, mapper);
+	}
+
+	public static <T> List<T> query(String name, String sql, int fetchSize, Binder binder, RowMapper<T> mapper)
+			throws SQLException, TrainException {
+		return execute(sql, ps -> {
+			bind(ps, binder);
+			return fetch(name, ps, fetchSize, mapper, new ArrayList<T>());
+		});
+	}
+
+	// The first row, null when there is none
+	public static <T> T queryFirst(String name, String sql, Binder binder, RowMapper<T> mapper)
+			throws SQLException, TrainException {
+		return execute(sql, ps -> {
+			bind(ps, binder);
+			try (ResultSet rs = Metrics.timeQuery(name, ps::executeQuery)) {
+				return rs.next() ? mapper.map(rs) : null;
+			}
+		});
+	}
+
+	// Rows changed by an insert, update or delete
+	public static int update(String name, String sql, Binder binder) throws SQLException, TrainException {
+		return execute(sql, ps -> {
+			bind(ps, binder);
+			return Metrics.timeQuery(name, ps::executeUpdate);
+		});
+	}
+
+	// Executes an already bound statement and adds its rows, for statements run more than once
+	public static <T> List<T> fetch(String name, PreparedStatement ps, int fetchSize, RowMapper<T> mapper,
+			List<T> rows) throws SQLException {
+		if (fetchSize > 0) {
+			ps.setFetchSize(fetchSize);
+		}
+		try (ResultSet rs = Metrics.timeQuery(name, ps::executeQuery)) {
+			while (rs.next()) {
+				rows.add(mapper.map(rs));
+			}
+		}
+		return rows;
+	}
+
+	public static int getFetchSize() {
+		return FETCH_SIZE;
+	}
+
+	private static void bind(PreparedStatement ps, Binder binder) throws SQLException {
+		if (binder != null) {
+			binder.bind(ps);
+		}
+	}
+}
@@ -0,0 +1,40 @@
+package com.shashi.utility;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.Deflater;
+
+//Reusable Deflaters for the response compression
+//A Deflater holds native zlib buffers of a few hundred KB, so creating one per response is
+//far more expensive than the compression itself. Borrowed deflaters are reset and put back,
+//the ones that don't fit in the pool are ended right away instead of waiting for the GC
+public class DeflaterPool {
+
+	private final BlockingQueue<Deflater> pool;
+
+	private final int level;
+
+	private final boolean nowrap;
+
+	public DeflaterPool(int size, int level, boolean nowrap) {
+		this.pool = new ArrayBlockingQueue<Deflater>(size);
+		this.level = level;
+		this.nowrap = nowrap;
+	}
+
+	public Deflater borrow() {
+		Deflater deflater = pool.poll();
+		return deflater != null ? deflater : new Deflater(level, nowrap);
+	}
+
+	public void release(Deflater deflater) {
+		deflater.reset();
+		if (!pool.offer(deflater)) {
+			deflater.end();
+		}
+	}
+
+	public int size() {
+		return pool.size();
+	}
+}
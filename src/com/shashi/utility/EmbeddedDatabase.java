@@ -0,0 +1,105 @@
+package com.shashi.utility;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+//In-process H2 database (Oracle mode) used with dbProfile=embedded, for load tests without an Oracle instance
+//
+//The tables and demo rows of Dummy-Database.md come from embedded-schema.sql. On top of them
+//synthetic customers, trains and bookings are generated with SYSTEM_RANGE inserts. A file database
+//(embeddedUrl=jdbc:h2:file:...) keeps them, so they are only generated again when a volume changes
+public class EmbeddedDatabase {
+
+	private static final Log LOG = Log.get(EmbeddedDatabase.class);
+
+	public static final String DRIVER = "org.h2.Driver";
+
+	public static final String DEFAULT_URL = "jdbc:h2:mem:reservation;MODE=Oracle;DB_CLOSE_DELAY=-1";
+
+	public static final int STATIONS = 50;
+
+	// after the demo trains of Dummy-Database.md
+	public static final long FIRST_TRAIN_NO = 20001;
+
+	private static final String RUN_SCHEMA = "RUNSCRIPT FROM 'classpath:/embedded-schema.sql'";
+
+	private static final String[] TABLES = { "BOOKING_OUTBOX", "BOOKING_TOKEN", "HISTORY", "TRAIN", "CUSTOMER",
+			"ADMIN", "SEED_VOLUME" };
+
+	private EmbeddedDatabase() {
+	}
+
+	// Volumes from embeddedTrains, embeddedCustomers and embeddedHistory
+	public static void setUp(Connection con) throws SQLException {
+		setUp(con, AppConfig.getInt("embeddedTrains", 1000), AppConfig.getInt("embeddedCustomers", 1000),
+				AppConfig.getInt("embeddedHistory", 10000));
+	}
+
+	// Creates the missing tables and generates the rows unless the database already holds these volumes
+	public static void setUp(Connection con, int trains, int customers, int history) throws SQLException {
+		try (Statement st = con.createStatement()) {
+			st.execute(RUN_SCHEMA);
+			if (isGenerated(con, trains, customers, history)) {
+				return;
+			}
+			long start = System.currentTimeMillis();
+			LOG.info("Generating the embedded database", "trains", trains, "customers", customers, "bookings",
+					history);
+			for (String table : TABLES) {
+				st.execute("DELETE FROM " + table);
+			}
+			st.execute(RUN_SCHEMA);
+			generate(st, trains, customers, history);
+			st.execute("INSERT INTO SEED_VOLUME VALUES(" + trains + ", " + customers + ", " + history + ")");
+			st.execute("CHECKPOINT");
+			LOG.info("Generated the embedded database", "millis", System.currentTimeMillis() - start);
+		}
+	}
+
+	// Mail id and password of the n-th generated customer, from 1
+	public static String customerMail(long n) {
+		return "user" + n + "@demo.com";
+	}
+
+	public static String customerPassword(long n) {
+		return "pw" + n;
+	}
+
+	// The n-th generated train, from 1, runs from station(n) to station(7 * n + 13)
+	public static String station(long n) {
+		return "STN" + (n % STATIONS);
+	}
+
+	private static boolean isGenerated(Connection con, int trains, int customers, int history) throws SQLException {
+		try (PreparedStatement ps = con
+				.prepareStatement("SELECT COUNT(*) FROM SEED_VOLUME WHERE TRAINS=? AND CUSTOMERS=? AND HISTORY=?")) {
+			ps.setInt(1, trains);
+			ps.setInt(2, customers);
+			ps.setInt(3, history);
+			try (ResultSet rs = ps.executeQuery()) {
+				return rs.next() && rs.getInt(1) > 0;
+			}
+		}
+	}
+
+	private static void generate(Statement st, int trains, int customers, int history) throws SQLException {
+		st.execute("INSERT INTO CUSTOMER SELECT 'user' || X || '@demo.com', 'pw' || X, 'First' || MOD(X, 1000),"
+				+ " 'Last' || MOD(X, 997), 'House ' || X || ', Kolkata', 9000000000 + X FROM SYSTEM_RANGE(1, "
+				+ customers + ")");
+		st.execute("INSERT INTO TRAIN SELECT " + (FIRST_TRAIN_NO - 1) + " + X, 'EXPRESS ' || X,"
+				+ " 'STN' || MOD(X, " + STATIONS + "), 'STN' || MOD(X * 7 + 13, " + STATIONS + "),"
+				+ " 500, 100 + MOD(X, 900) + 0.5 FROM SYSTEM_RANGE(1, " + trains + ")");
+		if (customers == 0 || trains == 0) {
+			return;
+		}
+		// bookings spread evenly over the customers, trains and the days of a year
+		st.execute("INSERT INTO HISTORY SELECT 'GEN-' || X, 'user' || (MOD(X, " + customers + ") + 1) || '@demo.com',"
+				+ " " + FIRST_TRAIN_NO + " + MOD(X, " + trains + "), DATE '2024-01-01' + MOD(X, 365),"
+				+ " 'STN' || MOD(MOD(X, " + trains + ") + 1, " + STATIONS + "),"
+				+ " 'STN' || MOD((MOD(X, " + trains + ") + 1) * 7 + 13, " + STATIONS + "),"
+				+ " 1 + MOD(X, 6), 250.5 * (1 + MOD(X, 6)) FROM SYSTEM_RANGE(1, " + history + ")");
+	}
+}
@@ -0,0 +1,40 @@
+package com.shashi.utility;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import com.shashi.beans.OutboxEvent;
+
+//Default OutboxSink, appends one JSON line per event to a local file
+//Stands in for the SMS and accounting queues until they are available
+public class FileOutboxSink implements OutboxSink {
+
+	private final File file;
+
+	public FileOutboxSink() {
+		this(new File(AppConfig.getString("outboxFile",
+				new File(System.getProperty("java.io.tmpdir"), "booking-events.log").getPath())));
+	}
+
+	public FileOutboxSink(File file) {
+		this.file = file;
+	}
+
+	@Override
+	public synchronized void publish(List<OutboxEvent> events) throws IOException {
+		try (Writer writer = new BufferedWriter(
+				new OutputStreamWriter(new FileOutputStream(file, true), StandardCharsets.UTF_8))) {
+			for (OutboxEvent event : events) {
+				writer.write("{\"eventId\":\"" + event.getEventId() + "\",\"type\":\"" + event.getEventType()
+						+ "\",\"payload\":" + event.getPayload() + "}\n");
+			}
+		}
+	}
+
+}
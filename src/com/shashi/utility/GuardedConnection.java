@@ -0,0 +1,101 @@
+package com.shashi.utility;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTimeoutException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.Statement;
+
+//Connection wrapper feeding the CircuitBreaker of DBUtil
+//
+//Every statement gets the query timeout, so a stalled database answers with an error instead of
+//holding the request thread. Executions report to the breaker: lost connections and timeouts as
+//failures, everything else (constraint violations included) as a database that still answers
+public class GuardedConnection {
+
+	// ORA-01013 is a statement cancelled by its query timeout, 17002 and 17008 are lost connections
+	private static final int[] OUTAGE_ERROR_CODES = { 1013, 17002, 17008 };
+
+	private GuardedConnection() {
+	}
+
+	public static Connection wrap(Connection con, CircuitBreaker breaker, int queryTimeoutSeconds) {
+		return (Connection) Proxy.newProxyInstance(GuardedConnection.class.getClassLoader(),
+				new Class<?>[] { Connection.class }, (proxy, method, args) -> {
+					Object result = invoke(con, method, args, breaker);
+					if (result instanceof Statement && method.getReturnType().isInterface()) {
+						Statement statement = (Statement) result;
+						if (queryTimeoutSeconds > 0) {
+							statement.setQueryTimeout(queryTimeoutSeconds);
+						}
+						return Proxy.newProxyInstance(GuardedConnection.class.getClassLoader(),
+								new Class<?>[] { method.getReturnType() }, new StatementHandler(statement, breaker));
+					}
+					return result;
+				});
+	}
+
+	// A failure of the database itself rather than of the statement
+	public static boolean isOutage(SQLException e) {
+		if (e instanceof SQLTimeoutException || e instanceof SQLTransientConnectionException
+				|| e instanceof SQLNonTransientConnectionException || e instanceof SQLRecoverableException) {
+			return true;
+		}
+		if (e.getSQLState() != null && e.getSQLState().startsWith("08")) {
+			return true;
+		}
+		for (int code : OUTAGE_ERROR_CODES) {
+			if (e.getErrorCode() == code) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static Object invoke(Object target, Method method, Object[] args, CircuitBreaker breaker)
+			throws Throwable {
+		try {
+			return method.invoke(target, args);
+		} catch (InvocationTargetException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof SQLException && isOutage((SQLException) cause)) {
+				breaker.onFailure();
+			}
+			throw cause;
+		}
+	}
+
+	private static class StatementHandler implements InvocationHandler {
+		private final Statement statement;
+		private final CircuitBreaker breaker;
+
+		private StatementHandler(Statement statement, CircuitBreaker breaker) {
+			this.statement = statement;
+			this.breaker = breaker;
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			if (!method.getName().startsWith("execute")) {
+				return GuardedConnection.invoke(statement, method, args, breaker);
+			}
+			Object result;
+			try {
+				result = GuardedConnection.invoke(statement, method, args, breaker);
+			} catch (SQLException e) {
+				if (!isOutage(e)) {
+					breaker.onSuccess();
+				}
+				throw e;
+			}
+			breaker.onSuccess();
+			return result;
+		}
+	}
+}
@@ -0,0 +1,122 @@
+package com.shashi.utility;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.net.URLEncoder;
+import java.util.ArrayList;
+import java.util.List;
+
+//Html snippet with {} slots, split once into its literal parts when the servlet is loaded
+//write() streams the parts and the slot values straight into the response writer, so a
+//table row costs no temporary strings. Slot values are html escaped on the way out, and url
+//encoded when the slot is in the query string of a quoted attribute, e.g. href='view?trainNo={}'
+public class HtmlTemplate {
+
+	private static final String SLOT = "{}";
+
+	private final String[] parts;
+
+	// per slot, whether it is a query string value
+	private final boolean[] inQuery;
+
+	private HtmlTemplate(String[] parts, boolean[] inQuery) {
+		this.parts = parts;
+		this.inQuery = inQuery;
+	}
+
+	public static HtmlTemplate compile(String html) {
+		List<String> parts = new ArrayList<String>();
+		List<Boolean> slots = new ArrayList<Boolean>();
+		int start = 0;
+		int slot;
+		while ((slot = html.indexOf(SLOT, start)) >= 0) {
+			parts.add(html.substring(start, slot));
+			slots.add(isInQuery(html, slot));
+			start = slot + SLOT.length();
+		}
+		parts.add(html.substring(start));
+		boolean[] inQuery = new boolean[slots.size()];
+		for (int i = 0; i < inQuery.length; i++) {
+			inQuery[i] = slots.get(i);
+		}
+		return new HtmlTemplate(parts.toArray(new String[parts.size()]), inQuery);
+	}
+
+	// After a '?' of the attribute value the slot is in: the last quote before it opened the value
+	private static boolean isInQuery(String html, int slot) {
+		int quote = Math.max(html.lastIndexOf('\'', slot), html.lastIndexOf('"', slot));
+		int tag = html.lastIndexOf('<', slot);
+		return quote > tag && html.lastIndexOf('?', slot) > quote && html.lastIndexOf('>', slot) < tag;
+	}
+
+	public int getSlotCount() {
+		return parts.length - 1;
+	}
+
+	public void write(Writer out, Object... values) throws IOException {
+		if (values.length != parts.length - 1) {
+			throw new IllegalArgumentException(
+					"Template expects " + (parts.length - 1) + " values but got " + values.length);
+		}
+		for (int i = 0; i < values.length; i++) {
+			out.write(parts[i]);
+			if (inQuery[i]) {
+				encode(out, values[i]);
+			} else {
+				escape(out, values[i]);
+			}
+		}
+		out.write(parts[values.length]);
+	}
+
+	// Url encoded, which leaves nothing to html escape
+	public static void encode(Writer out, Object value) throws IOException {
+		if (value == null) {
+			return;
+		}
+		if (value instanceof Number) {
+			out.write(value.toString());
+			return;
+		}
+		out.write(URLEncoder.encode(value.toString(), "UTF-8"));
+	}
+
+	public static void escape(Writer out, Object value) throws IOException {
+		if (value == null) {
+			return;
+		}
+		if (value instanceof Number) {
+			out.write(value.toString());
+			return;
+		}
+		String text = value.toString();
+		int run = 0;
+		for (int i = 0; i < text.length(); i++) {
+			String entity;
+			switch (text.charAt(i)) {
+			case '<':
+				entity = "&lt;";
+				break;
+			case '>':
+				entity = "&gt;";
+				break;
+			case '&':
+				entity = "&amp;";
+				break;
+			case '"':
+				entity = "&quot;";
+				break;
+			case '\'':
+				entity = "&#39;";
+				break;
+			default:
+				continue;
+			}
+			// copy the run of safe characters in one call, then the entity
+			out.write(text, run, i - run);
+			out.write(entity);
+			run = i + 1;
+		}
+		out.write(text, run, text.length() - run);
+	}
+}
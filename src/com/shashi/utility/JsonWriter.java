@@ -0,0 +1,146 @@
+package com.shashi.utility;
+
+import java.io.IOException;
+import java.io.Writer;
+
+//Streaming JSON output for the /api servlets
+//Names and values go straight to the response writer as they are written, nothing is
+//collected into a tree first. Only tracks whether a comma is due at each nesting level
+public class JsonWriter {
+
+	private static final int MAX_DEPTH = 32;
+
+	private final Writer out;
+
+	private final boolean[] hasValue = new boolean[MAX_DEPTH];
+
+	private int depth;
+
+	private boolean afterName;
+
+	public JsonWriter(Writer out) {
+		this.out = out;
+	}
+
+	public JsonWriter beginObject() throws IOException {
+		return open('{');
+	}
+
+	public JsonWriter endObject() throws IOException {
+		return close('}');
+	}
+
+	public JsonWriter beginArray() throws IOException {
+		return open('[');
+	}
+
+	public JsonWriter endArray() throws IOException {
+		return close(']');
+	}
+
+	public JsonWriter name(String name) throws IOException {
+		separate();
+		string(name);
+		out.write(':');
+		afterName = true;
+		return this;
+	}
+
+	public JsonWriter value(String value) throws IOException {
+		if (value == null) {
+			return nullValue();
+		}
+		separate();
+		string(value);
+		return this;
+	}
+
+	public JsonWriter value(Number value) throws IOException {
+		if (value == null) {
+			return nullValue();
+		}
+		double number = value.doubleValue();
+		if (Double.isNaN(number) || Double.isInfinite(number)) {
+			return nullValue();
+		}
+		separate();
+		out.write(value.toString());
+		return this;
+	}
+
+	public JsonWriter value(boolean value) throws IOException {
+		separate();
+		out.write(value ? "true" : "false");
+		return this;
+	}
+
+	public JsonWriter nullValue() throws IOException {
+		separate();
+		out.write("null");
+		return this;
+	}
+
+	public void flush() throws IOException {
+		out.flush();
+	}
+
+	private JsonWriter open(char bracket) throws IOException {
+		if (depth == MAX_DEPTH - 1) {
+			throw new IllegalStateException("JSON nested deeper than " + MAX_DEPTH + " levels");
+		}
+		separate();
+		out.write(bracket);
+		hasValue[++depth] = false;
+		return this;
+	}
+
+	private JsonWriter close(char bracket) throws IOException {
+		if (depth == 0) {
+			throw new IllegalStateException("No open object or array to close");
+		}
+		out.write(bracket);
+		depth--;
+		return this;
+	}
+
+	// comma before every value of an array or object except the first, none after a name
+	private void separate() throws IOException {
+		if (afterName) {
+			afterName = false;
+			return;
+		}
+		if (hasValue[depth]) {
+			out.write(',');
+		}
+		hasValue[depth] = true;
+	}
+
+	private void string(String text) throws IOException {
+		out.write('"');
+		int run = 0;
+		for (int i = 0; i < text.length(); i++) {
+			char c = text.charAt(i);
+			String escape;
+			if (c == '"') {
+				escape = "\\\"";
+			} else if (c == '\\') {
+				escape = "\\\\";
+			} else if (c == '\n') {
+				escape = "\\n";
+			} else if (c == '\r') {
+				escape = "\\r";
+			} else if (c == '\t') {
+				escape = "\\t";
+			} else if (c < 0x20 || c == '\u2028' || c == '\u2029') {
+				escape = String.format("\\u%04x", (int) c);
+			} else {
+				continue;
+			}
+			out.write(text, run, i - run);
+			out.write(escape);
+			run = i + 1;
+		}
+		out.write(text, run, text.length() - run);
+		out.write('"');
+	}
+}
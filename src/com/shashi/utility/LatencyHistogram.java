@@ -0,0 +1,106 @@
+package com.shashi.utility;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+//Lock free log-linear histogram of latencies (or any positive long), safe to record from many threads
+//
+//Values below 128 get a bucket each, larger ones share 64 buckets per power of two, so a
+//percentile is reported at most 1.6% above the real value. Values above 2^37 count as 2^37
+public class LatencyHistogram {
+
+	private static final int SUB_BITS = 6;
+
+	private static final int SUB_COUNT = 1 << SUB_BITS;
+
+	private static final int MAX_SHIFT = 30;
+
+	private static final long HIGHEST = (2L * SUB_COUNT << MAX_SHIFT) - 1;
+
+	private final AtomicLongArray counts = new AtomicLongArray(bucketOf(HIGHEST) + 1);
+
+	private final AtomicLong count = new AtomicLong();
+
+	private final AtomicLong sum = new AtomicLong();
+
+	private final AtomicLong max = new AtomicLong();
+
+	public void record(long value) {
+		if (value < 0) {
+			value = 0;
+		} else if (value > HIGHEST) {
+			value = HIGHEST;
+		}
+		counts.incrementAndGet(bucketOf(value));
+		count.incrementAndGet();
+		sum.addAndGet(value);
+		long current;
+		while (value > (current = max.get()) && !max.compareAndSet(current, value)) {
+			// another thread raised it in between, try again
+		}
+	}
+
+	public long getCount() {
+		return count.get();
+	}
+
+	public long getSum() {
+		return sum.get();
+	}
+
+	public long getMax() {
+		return max.get();
+	}
+
+	public double getMean() {
+		long n = count.get();
+		return n == 0 ? 0 : (double) sum.get() / n;
+	}
+
+	// Smallest recorded value that percentile % of the values do not exceed, 0 when empty
+	public long getValueAtPercentile(double percentile) {
+		long total = count.get();
+		if (total == 0) {
+			return 0;
+		}
+		long rank = Math.max(1, (long) Math.ceil(total * Math.min(percentile, 100) / 100));
+		long seen = 0;
+		for (int i = 0; i < counts.length(); i++) {
+			seen += counts.get(i);
+			if (seen >= rank) {
+				return Math.min(highestValueOf(i), max.get());
+			}
+		}
+		return max.get();
+	}
+
+	// Number of recorded values up to and including value, as exact as the buckets allow
+	public long getCountAtOrBelow(long value) {
+		if (value < 0) {
+			return 0;
+		}
+		int last = bucketOf(Math.min(value, HIGHEST));
+		long seen = 0;
+		for (int i = 0; i <= last; i++) {
+			seen += counts.get(i);
+		}
+		return seen;
+	}
+
+	static int bucketOf(long value) {
+		if (value < 2 * SUB_COUNT) {
+			return (int) value;
+		}
+		int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BITS;
+		return 2 * SUB_COUNT + (shift - 1) * SUB_COUNT + (int) (value >>> shift) - SUB_COUNT;
+	}
+
+	static long highestValueOf(int bucket) {
+		if (bucket < 2 * SUB_COUNT) {
+			return bucket;
+		}
+		int shift = (bucket - 2 * SUB_COUNT) / SUB_COUNT + 1;
+		long sub = (bucket - 2 * SUB_COUNT) % SUB_COUNT + SUB_COUNT;
+		return ((sub + 1) << shift) - 1;
+	}
+}
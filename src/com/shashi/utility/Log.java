@@ -0,0 +1,90 @@
+package com.shashi.utility;
+
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+
+//Structured logger of the application, one JSON line per event
+//
+//	private static final Log LOG = Log.get(TrainServiceImpl.class);
+//	LOG.warn("Statement failed", "query", "TrainService.getTrainById", "error", e.getMessage());
+//
+//The arguments after the message are name, value pairs. Events below logLevel cost one
+//comparison, the rest are handed to the AsyncLogWriter and written to logFile (stdout by default)
+public class Log {
+
+	public enum Level {
+		DEBUG, INFO, WARN, ERROR
+	}
+
+	private static final Level LEVEL = Level.valueOf(AppConfig.getString("logLevel", "INFO").toUpperCase());
+
+	private static final AsyncLogWriter WRITER = new AsyncLogWriter(openOutput(), AppConfig.getInt("logBufferSize", 8192),
+			"block".equalsIgnoreCase(AppConfig.getString("logOverflow", "drop")));
+
+	private final String name;
+	private final Level level;
+	private final AsyncLogWriter writer;
+
+	public Log(String name, Level level, AsyncLogWriter writer) {
+		this.name = name;
+		this.level = level;
+		this.writer = writer;
+	}
+
+	public static Log get(Class<?> type) {
+		return new Log(type.getSimpleName(), LEVEL, WRITER);
+	}
+
+	// Events lost to a full buffer since startup
+	public static long getDroppedCount() {
+		return WRITER.getDroppedCount();
+	}
+
+	// Writes out what is still buffered, later events are written on the calling thread
+	public static void shutdown() {
+		WRITER.close();
+	}
+
+	public boolean isEnabled(Level level) {
+		return level.compareTo(this.level) >= 0;
+	}
+
+	public void debug(String message, Object... fields) {
+		log(Level.DEBUG, message, null, fields);
+	}
+
+	public void info(String message, Object... fields) {
+		log(Level.INFO, message, null, fields);
+	}
+
+	public void warn(String message, Object... fields) {
+		log(Level.WARN, message, null, fields);
+	}
+
+	public void error(String message, Throwable error, Object... fields) {
+		log(Level.ERROR, message, error, fields);
+	}
+
+	public void log(Level level, String message, Throwable error, Object... fields) {
+		if (isEnabled(level)) {
+			writer.append(new AsyncLogWriter.Event(level, name, message, error, fields));
+		}
+	}
+
+	private static BufferedWriter openOutput() {
+		String file = AppConfig.getString("logFile", null);
+		OutputStream out = System.out;
+		if (file != null) {
+			try {
+				out = new FileOutputStream(file, true);
+			} catch (IOException e) {
+				System.err.println("Unable to open logFile " + file + ", logging to stdout: " + e.getMessage());
+			}
+		}
+		return new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+	}
+}
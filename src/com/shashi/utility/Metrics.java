@@ -0,0 +1,134 @@
+package com.shashi.utility;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.LongSupplier;
+
+//Registry of the latency histograms and gauges served by /metrics in the Prometheus text format
+//
+//Requests are recorded by MetricsFilter per servlet path, db calls by the service classes per
+//query name (Service.method). Latencies are kept in microseconds and exported in seconds
+public class Metrics {
+
+	public static final boolean ENABLED = AppConfig.getBoolean("metricsEnabled", true);
+
+	// distinct paths kept apart, the rest is counted as "other"
+	private static final int MAX_PATHS = AppConfig.getInt("metricsMaxPaths", 200);
+
+	private static final long[] BUCKETS = { 500, 1000, 2500, 5000, 10000, 25000, 50000, 100000, 250000, 500000,
+			1000000, 2500000, 5000000, 10000000 };
+
+	private static final ConcurrentMap<String, LatencyHistogram> REQUESTS =
+			new ConcurrentSkipListMap<String, LatencyHistogram>();
+
+	private static final ConcurrentMap<String, LatencyHistogram> QUERIES =
+			new ConcurrentSkipListMap<String, LatencyHistogram>();
+
+	private static final Map<String, Gauge> GAUGES = new ConcurrentSkipListMap<String, Gauge>();
+
+	static {
+		gauge("db_executor_active", "Service calls running on the db executor", DBExecutor::getActiveCount);
+		gauge("db_executor_queued", "Service calls waiting for a db executor thread", DBExecutor::getQueuedCount);
+		gauge("db_executor_rejected_total", "Requests refused because the db executor queue was full",
+				DBExecutor::getRejectedCount);
+		gauge("db_executor_timeouts_total", "Async requests answered with a timeout", DBExecutor::getTimeoutCount);
+		gauge("booking_tokens_cached", "Booking tokens held by BookingTokenCache", BookingTokenCache::size);
+		gauge("log_dropped_total", "Log events dropped because the log buffer was full", Log::getDroppedCount);
+	}
+
+	private Metrics() {
+	}
+
+	@FunctionalInterface
+	public interface SqlCall<T> {
+		T call() throws SQLException;
+	}
+
+	private static class Gauge {
+		final String help;
+		final LongSupplier value;
+
+		Gauge(String help, LongSupplier value) {
+			this.help = help;
+			this.value = value;
+		}
+	}
+
+	public static void recordRequest(String path, long nanos) {
+		if (!ENABLED) {
+			return;
+		}
+		LatencyHistogram histogram = REQUESTS.get(path);
+		if (histogram == null) {
+			histogram = REQUESTS.size() < MAX_PATHS ? REQUESTS.computeIfAbsent(path, p -> new LatencyHistogram())
+					: REQUESTS.computeIfAbsent("other", p -> new LatencyHistogram());
+		}
+		histogram.record(nanos / 1000);
+	}
+
+	// Runs one statement execution and records its time, failed executions included
+	public static <T> T timeQuery(String name, SqlCall<T> call) throws SQLException {
+		if (!ENABLED) {
+			return call.call();
+		}
+		long start = System.nanoTime();
+		try {
+			return call.call();
+		} finally {
+			QUERIES.computeIfAbsent(name, n -> new LatencyHistogram()).record((System.nanoTime() - start) / 1000);
+		}
+	}
+
+	// Registers (or replaces) a gauge, read on every scrape
+	public static void gauge(String name, String help, LongSupplier value) {
+		GAUGES.put(name, new Gauge(help, value));
+	}
+
+	public static void writePrometheus(Writer out) throws IOException {
+		writeHistograms(out, "trainbook_http_request_duration_seconds", "Time to answer a request, per servlet path",
+				"path", REQUESTS);
+		writeHistograms(out, "trainbook_db_query_duration_seconds", "Time to execute a statement, per query",
+				"query", QUERIES);
+		for (Map.Entry<String, Gauge> entry : GAUGES.entrySet()) {
+			String name = "trainbook_" + entry.getKey();
+			out.write("# HELP " + name + " " + entry.getValue().help + "\n");
+			out.write("# TYPE " + name + (name.endsWith("_total") ? " counter\n" : " gauge\n"));
+			out.write(name + " " + entry.getValue().value.getAsLong() + "\n");
+		}
+		out.flush();
+	}
+
+	private static void writeHistograms(Writer out, String name, String help, String label,
+			Map<String, LatencyHistogram> histograms) throws IOException {
+		out.write("# HELP " + name + " " + help + "\n");
+		out.write("# TYPE " + name + " histogram\n");
+		for (Map.Entry<String, LatencyHistogram> entry : histograms.entrySet()) {
+			LatencyHistogram histogram = entry.getValue();
+			String labels = label + "=\"" + escape(entry.getKey()) + "\"";
+			// the total first, so no bucket of this scrape is above it
+			long count = histogram.getCount();
+			double sum = histogram.getSum() / 1e6;
+			for (long bucket : BUCKETS) {
+				out.write(name + "_bucket{" + labels + ",le=\"" + seconds(bucket) + "\"} "
+						+ Math.min(count, histogram.getCountAtOrBelow(bucket)) + "\n");
+			}
+			out.write(name + "_bucket{" + labels + ",le=\"+Inf\"} " + count + "\n");
+			out.write(name + "_sum{" + labels + "} " + sum + "\n");
+			out.write(name + "_count{" + labels + "} " + count + "\n");
+		}
+	}
+
+	// 500 as "0.0005" rather than "5.0E-4", the le labels are compared as text by the queries
+	private static String seconds(long micros) {
+		return BigDecimal.valueOf(micros, 6).stripTrailingZeros().toPlainString();
+	}
+
+	private static String escape(String value) {
+		return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+	}
+}
@@ -0,0 +1,84 @@
+package com.shashi.utility;
+
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import com.shashi.beans.OutboxEvent;
+import com.shashi.service.OutboxService;
+import com.shashi.service.impl.OutboxServiceImpl;
+
+//Background relay which moves booking events from the BOOKING_OUTBOX table to the OutboxSink
+//Runs on its own thread so the booking request only pays for the outbox insert
+public class OutboxRelay implements Runnable {
+
+	private static final Log LOG = Log.get(OutboxRelay.class);
+
+	private static ScheduledExecutorService scheduler;
+
+	private final OutboxService outboxService;
+	private final OutboxSink sink;
+	private final int batchSize;
+
+	public OutboxRelay(OutboxService outboxService, OutboxSink sink, int batchSize) {
+		this.outboxService = outboxService;
+		this.sink = sink;
+		this.batchSize = batchSize;
+	}
+
+	public static synchronized void start() {
+		if (scheduler != null) {
+			return;
+		}
+		OutboxRelay relay = new OutboxRelay(new OutboxServiceImpl(), createSink(),
+				AppConfig.getInt("outboxBatchSize", 100));
+		long pollMillis = AppConfig.getLong("outboxPollMillis", 2000);
+		scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread thread = new Thread(r, "outbox-relay");
+			thread.setDaemon(true);
+			return thread;
+		});
+		scheduler.scheduleWithFixedDelay(relay, pollMillis, pollMillis, TimeUnit.MILLISECONDS);
+	}
+
+	public static synchronized void stop() {
+		if (scheduler != null) {
+			scheduler.shutdownNow();
+			scheduler = null;
+		}
+	}
+
+	@Override
+	public void run() {
+		try {
+			// keep draining while full batches come back, then wait for the next poll
+			int relayed;
+			do {
+				relayed = relayBatch();
+			} while (relayed == batchSize);
+		} catch (Exception e) {
+			// events stay pending and are retried on the next poll
+			LOG.warn("Outbox relay failed", "error", e.getMessage());
+		}
+	}
+
+	public int relayBatch() throws Exception {
+		List<OutboxEvent> events = outboxService.getPendingEvents(batchSize);
+		if (events.isEmpty()) {
+			return 0;
+		}
+		sink.publish(events);
+		outboxService.markDelivered(events);
+		return events.size();
+	}
+
+	private static OutboxSink createSink() {
+		String sinkClass = AppConfig.getString("outboxSink", FileOutboxSink.class.getName());
+		try {
+			return (OutboxSink) Class.forName(sinkClass).getDeclaredConstructor().newInstance();
+		} catch (ReflectiveOperationException e) {
+			throw new IllegalStateException("Unable to create outbox sink " + sinkClass, e);
+		}
+	}
+}
@@ -0,0 +1,14 @@
+package com.shashi.utility;
+
+import java.io.IOException;
+import java.util.List;
+
+import com.shashi.beans.OutboxEvent;
+
+//Destination of the booking events relayed from the outbox table
+//Implementations must be safe to call again with events they have already seen
+public interface OutboxSink {
+
+	public void publish(List<OutboxEvent> events) throws IOException;
+
+}
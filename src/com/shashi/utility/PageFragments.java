@@ -0,0 +1,93 @@
+package com.shashi.utility;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.servlet.ServletContext;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+//Cache of the static html pages included as page chrome by the servlets
+//Each page is read from WebContent once and then copied straight to the response writer,
+//instead of going through a RequestDispatcher include on every request.
+//With devMode=true a page is read again whenever its file changes.
+public class PageFragments {
+
+	private static final boolean DEV_MODE = AppConfig.getBoolean("devMode", false);
+
+	private static final Map<String, Fragment> FRAGMENTS = new ConcurrentHashMap<String, Fragment>();
+
+	private PageFragments() {
+	}
+
+	private static class Fragment {
+		private final String html;
+		private final long lastModified;
+
+		private Fragment(String html, long lastModified) {
+			this.html = html;
+			this.lastModified = lastModified;
+		}
+	}
+
+	public static void include(HttpServletRequest req, HttpServletResponse res, String page)
+			throws IOException, ServletException {
+		Fragment fragment = getFragment(req.getServletContext(), "/" + page);
+		if (fragment == null) {
+			// not a plain file in WebContent, let the container resolve it
+			req.getRequestDispatcher(page).include(req, res);
+			return;
+		}
+		res.getWriter().write(fragment.html);
+	}
+
+	// The page as text, null when it is not a plain file in WebContent
+	public static String get(ServletContext context, String page) throws IOException {
+		Fragment fragment = getFragment(context, "/" + page);
+		return fragment == null ? null : fragment.html;
+	}
+
+	public static boolean isDevMode() {
+		return DEV_MODE;
+	}
+
+	private static Fragment getFragment(ServletContext context, String path) throws IOException {
+		Fragment fragment = FRAGMENTS.get(path);
+		if (fragment != null && !(DEV_MODE && lastModified(context, path) != fragment.lastModified)) {
+			return fragment;
+		}
+		fragment = load(context, path);
+		if (fragment != null) {
+			FRAGMENTS.put(path, fragment);
+		}
+		return fragment;
+	}
+
+	private static Fragment load(ServletContext context, String path) throws IOException {
+		long lastModified = DEV_MODE ? lastModified(context, path) : 0;
+		try (InputStream in = context.getResourceAsStream(path)) {
+			if (in == null) {
+				return null;
+			}
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			byte[] buffer = new byte[8192];
+			int read;
+			while ((read = in.read(buffer)) != -1) {
+				bytes.write(buffer, 0, read);
+			}
+			// the pages declare ISO-8859-1, which is also the default response encoding
+			return new Fragment(new String(bytes.toByteArray(), StandardCharsets.ISO_8859_1), lastModified);
+		}
+	}
+
+	private static long lastModified(ServletContext context, String path) throws IOException {
+		URL url = context.getResource(path);
+		return url == null ? 0 : url.openConnection().getLastModified();
+	}
+}
@@ -0,0 +1,75 @@
+package com.shashi.utility;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+//Generates compact, time-ordered PNR numbers used as the TRANSID of the HISTORY table
+//Layout of the 64 bit id: 41 bits millis since EPOCH | 10 bits node id | 12 bits sequence
+//The id is rendered as 13 fixed width Crockford base32 characters, so that the string
+//order of the generated PNRs is the same as their numeric (time) order
+public class PnrGenerator {
+
+	private static final long EPOCH = 1704067200000L; // 2024-01-01T00:00:00Z
+
+	private static final int NODE_BITS = 10;
+	private static final int SEQUENCE_BITS = 12;
+
+	private static final long MAX_NODE_ID = (1L << NODE_BITS) - 1;
+	private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+	private static final int PNR_LENGTH = 13;
+	private static final char[] ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+
+	private static final long NODE_ID = checkNodeId(AppConfig.getLong("nodeId", 0));
+
+	// Last issued (timestamp << SEQUENCE_BITS | sequence), advanced only by CAS
+	private static final AtomicLong LAST_STATE = new AtomicLong();
+
+	private PnrGenerator() {
+	}
+
+	public static String nextPnr() {
+		return encode(nextId());
+	}
+
+	public static long nextId() {
+		long next;
+		while (true) {
+			long now = System.currentTimeMillis() - EPOCH;
+			long prev = LAST_STATE.get();
+			if (now > (prev >>> SEQUENCE_BITS)) {
+				next = now << SEQUENCE_BITS;
+			} else {
+				// Same millisecond or clock moved back: keep counting, an exhausted
+				// sequence carries into the timestamp instead of waiting for the clock
+				next = prev + 1;
+			}
+			if (LAST_STATE.compareAndSet(prev, next)) {
+				break;
+			}
+		}
+		long timestamp = next >>> SEQUENCE_BITS;
+		long sequence = next & SEQUENCE_MASK;
+		return (timestamp << (NODE_BITS + SEQUENCE_BITS)) | (NODE_ID << SEQUENCE_BITS) | sequence;
+	}
+
+	public static String encode(long id) {
+		char[] pnr = new char[PNR_LENGTH];
+		for (int i = PNR_LENGTH - 1; i >= 0; i--) {
+			pnr[i] = ALPHABET[(int) (id & 31)];
+			id >>>= 5;
+		}
+		return new String(pnr);
+	}
+
+	public static long getNodeId() {
+		return NODE_ID;
+	}
+
+	// A node id wider than NODE_BITS would be cut down to the id of another node
+	public static long checkNodeId(long nodeId) {
+		if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+			throw new IllegalArgumentException("nodeId must be between 0 and " + MAX_NODE_ID + ", not " + nodeId);
+		}
+		return nodeId;
+	}
+}
@@ -0,0 +1,393 @@
+package com.shashi.utility;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+//JDBC proxy around the DBUtil connection that profiles every statement execution
+//
+//Executions are aggregated per statement shape (the sql with its literals replaced by ?):
+//count, errors, time, rows fetched (or updated) and the fetch round trips, estimated from
+//the fetch size. The time runs from execute until the result set is exhausted or closed.
+//Executions slower than slowQueryMillis are logged with their bind values, the ones bound
+//to a PWORD column are replaced by *** (every value of an insert into a table holding passwords
+//without a column list)
+public class SqlProfiler {
+
+	private static final Log LOG = Log.get(SqlProfiler.class);
+
+	public static final boolean ENABLED = AppConfig.getBoolean("sqlProfiler", true);
+
+	private static final long SLOW_NANOS = AppConfig.getLong("slowQueryMillis", 500) * 1000000;
+
+	private static final int MAX_SHAPES = 500;
+
+	// Oracle's default, for drivers reporting 0
+	private static final int DEFAULT_FETCH_SIZE = 10;
+
+	private static final Pattern LITERALS = Pattern.compile("'(?:[^']|'')*'|\\b\\d+(?:\\.\\d+)?\\b");
+
+	private static final Pattern IN_LIST = Pattern.compile("(?i)\\bIN\\s*\\(\\s*\\?(?:\\s*,\\s*\\?)*\\s*\\)");
+
+	private static final Pattern PASSWORD_BIND = Pattern.compile("(?i)\\bPWORD\\s*(?:=|<>|!=|LIKE)\\s*$");
+
+	private static final Pattern INSERT = Pattern
+			.compile("(?is)^\\s*INSERT\\s+INTO\\s+\"?(\\w+)\"?\\s*(\\(([^)]*)\\))?\\s*VALUES");
+
+	private static final Set<String> PASSWORD_TABLES = new HashSet<String>(Arrays.asList("CUSTOMER", "ADMIN"));
+
+	private static final Set<String> EXECUTE_METHODS = new HashSet<String>(Arrays.asList("execute",
+			"executeQuery", "executeUpdate", "executeLargeUpdate", "executeBatch", "executeLargeBatch"));
+
+	private static final Map<String, ShapeStats> SHAPES = new ConcurrentHashMap<String, ShapeStats>();
+
+	// by sql string, the prepared statements are the same few strings over and over
+	private static final Map<String, String> SHAPE_OF = new ConcurrentHashMap<String, String>();
+
+	private static final Map<String, Set<Integer>> REDACTED = new ConcurrentHashMap<String, Set<Integer>>();
+
+	private static volatile long since = System.currentTimeMillis();
+
+	private SqlProfiler() {
+	}
+
+	public static class ShapeStats {
+		private final String shape;
+		private final AtomicLong executions = new AtomicLong();
+		private final AtomicLong errors = new AtomicLong();
+		private final AtomicLong totalNanos = new AtomicLong();
+		private final AtomicLong maxNanos = new AtomicLong();
+		private final AtomicLong rows = new AtomicLong();
+		private final AtomicLong roundTrips = new AtomicLong();
+
+		private ShapeStats(String shape) {
+			this.shape = shape;
+		}
+
+		private void record(long nanos, long rowCount, long trips, boolean failed) {
+			executions.incrementAndGet();
+			if (failed) {
+				errors.incrementAndGet();
+			}
+			totalNanos.addAndGet(nanos);
+			rows.addAndGet(rowCount);
+			roundTrips.addAndGet(trips);
+			long max;
+			while (nanos > (max = maxNanos.get()) && !maxNanos.compareAndSet(max, nanos)) {
+				// raised by another thread in between, try again
+			}
+		}
+
+		public String getShape() {
+			return shape;
+		}
+
+		public long getExecutions() {
+			return executions.get();
+		}
+
+		public long getErrors() {
+			return errors.get();
+		}
+
+		public long getTotalNanos() {
+			return totalNanos.get();
+		}
+
+		public long getMaxNanos() {
+			return maxNanos.get();
+		}
+
+		public long getRows() {
+			return rows.get();
+		}
+
+		public long getRoundTrips() {
+			return roundTrips.get();
+		}
+	}
+
+	public static Connection wrap(Connection con) {
+		if (!ENABLED || con == null) {
+			return con;
+		}
+		return (Connection) Proxy.newProxyInstance(SqlProfiler.class.getClassLoader(),
+				new Class<?>[] { Connection.class }, new ConnectionHandler(con));
+	}
+
+	// The shapes with the most time spent, slowest first
+	public static List<ShapeStats> top(int n) {
+		List<ShapeStats> shapes = new ArrayList<ShapeStats>(SHAPES.values());
+		Collections.sort(shapes, (a, b) -> Long.compare(b.getTotalNanos(), a.getTotalNanos()));
+		return shapes.subList(0, Math.min(n, shapes.size()));
+	}
+
+	public static int shapeCount() {
+		return SHAPES.size();
+	}
+
+	public static long getSince() {
+		return since;
+	}
+
+	public static void reset() {
+		SHAPES.clear();
+		since = System.currentTimeMillis();
+	}
+
+	public static String shape(String sql) {
+		String shape = LITERALS.matcher(sql.trim().replaceAll("\\s+", " ")).replaceAll("?");
+		return IN_LIST.matcher(shape).replaceAll("IN (?...)");
+	}
+
+	// Bind values (by parameter index, from 1) as logged, password values replaced by ***
+	public static String describeBinds(String sql, Map<Integer, Object> binds) {
+		Set<Integer> redacted = REDACTED.size() < MAX_SHAPES
+				? REDACTED.computeIfAbsent(sql, SqlProfiler::passwordParameters)
+				: passwordParameters(sql);
+		StringBuilder text = new StringBuilder("[");
+		for (Map.Entry<Integer, Object> bind : new TreeMap<Integer, Object>(binds).entrySet()) {
+			if (text.length() > 1) {
+				text.append(", ");
+			}
+			Object value = bind.getValue();
+			if (redacted.contains(bind.getKey()) || redacted.contains(0)) {
+				text.append("***");
+			} else if (value == null) {
+				text.append("NULL");
+			} else if (value instanceof Number) {
+				text.append(value);
+			} else {
+				String string = String.valueOf(value);
+				text.append('\'').append(string.length() > 100 ? string.substring(0, 100) + "..." : string)
+						.append('\'');
+			}
+		}
+		return text.append(']').toString();
+	}
+
+	// Indexes of the parameters holding a password, 0 for all of them
+	private static Set<Integer> passwordParameters(String sql) {
+		Set<Integer> indexes = new HashSet<Integer>();
+		Matcher insert = INSERT.matcher(sql);
+		if (insert.find() && PASSWORD_TABLES.contains(insert.group(1).toUpperCase())) {
+			if (insert.group(3) == null) {
+				indexes.add(0);
+				return indexes;
+			}
+			String[] columns = insert.group(3).split(",");
+			for (int i = 0; i < columns.length; i++) {
+				if (columns[i].replace("\"", "").trim().equalsIgnoreCase("PWORD")) {
+					indexes.add(i + 1);
+				}
+			}
+		}
+		int parameter = 0;
+		boolean quoted = false;
+		for (int i = 0; i < sql.length(); i++) {
+			char c = sql.charAt(i);
+			if (c == '\'') {
+				quoted = !quoted;
+			} else if (c == '?' && !quoted) {
+				parameter++;
+				if (PASSWORD_BIND.matcher(sql.substring(0, i)).find()) {
+					indexes.add(parameter);
+				}
+			}
+		}
+		return indexes;
+	}
+
+	private static ShapeStats stats(String sql) {
+		String shape = SHAPE_OF.get(sql);
+		if (shape == null) {
+			shape = shape(sql);
+			if (SHAPE_OF.size() < MAX_SHAPES) {
+				SHAPE_OF.put(sql, shape);
+			}
+		}
+		ShapeStats stats = SHAPES.get(shape);
+		if (stats == null) {
+			stats = SHAPES.computeIfAbsent(SHAPES.size() < MAX_SHAPES ? shape : "other", ShapeStats::new);
+		}
+		return stats;
+	}
+
+	// One run of a statement, finished once its result set is read to the end or closed
+	private static class Execution {
+		private final String sql;
+		private final Map<Integer, Object> binds;
+		private final long started = System.nanoTime();
+		private long nanos;
+		private long rows;
+		private int fetchSize = DEFAULT_FETCH_SIZE;
+		private boolean query;
+		private boolean finished;
+
+		private Execution(String sql, Map<Integer, Object> binds) {
+			this.sql = sql;
+			this.binds = binds;
+		}
+
+		private synchronized void finish(boolean failed) {
+			if (finished) {
+				return;
+			}
+			finished = true;
+			if (nanos == 0) {
+				nanos = System.nanoTime() - started;
+			}
+			long trips = query ? 1 + rows / fetchSize : 1;
+			stats(sql).record(nanos, rows, trips, failed);
+			if (nanos >= SLOW_NANOS) {
+				LOG.warn("Slow statement", "millis", nanos / 1000000, "rows", rows, "roundTrips", trips, "sql", sql,
+						"binds", describeBinds(sql, binds));
+			}
+		}
+	}
+
+	private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+		try {
+			return method.invoke(target, args);
+		} catch (InvocationTargetException e) {
+			throw e.getCause();
+		}
+	}
+
+	private static class ConnectionHandler implements InvocationHandler {
+		private final Connection con;
+
+		private ConnectionHandler(Connection con) {
+			this.con = con;
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			Object result = SqlProfiler.invoke(con, method, args);
+			if (result instanceof Statement && method.getReturnType().isInterface()) {
+				String sql = method.getName().startsWith("prepare") ? (String) args[0] : null;
+				return Proxy.newProxyInstance(SqlProfiler.class.getClassLoader(),
+						new Class<?>[] { method.getReturnType() }, new StatementHandler((Statement) result, sql));
+			}
+			return result;
+		}
+	}
+
+	private static class StatementHandler implements InvocationHandler {
+		private final Statement statement;
+		private final String preparedSql;
+		private final Map<Integer, Object> binds = new TreeMap<Integer, Object>();
+		private Execution current;
+
+		private StatementHandler(Statement statement, String preparedSql) {
+			this.statement = statement;
+			this.preparedSql = preparedSql;
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			String name = method.getName();
+			if (EXECUTE_METHODS.contains(name)) {
+				return execute(method, args);
+			}
+			if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer) {
+				binds.put((Integer) args[0], name.equals("setNull") ? null : args[1]);
+			} else if (name.equals("clearParameters")) {
+				binds.clear();
+			} else if (name.equals("close")) {
+				finishCurrent();
+			}
+			return SqlProfiler.invoke(statement, method, args);
+		}
+
+		private Object execute(Method method, Object[] args) throws Throwable {
+			finishCurrent();
+			String sql = preparedSql != null ? preparedSql : (String) args[0];
+			Execution execution = new Execution(sql, new TreeMap<Integer, Object>(binds));
+			current = execution;
+			Object result;
+			try {
+				result = SqlProfiler.invoke(statement, method, args);
+			} catch (Throwable e) {
+				execution.finish(true);
+				throw e;
+			}
+			if (result instanceof ResultSet) {
+				ResultSet rs = (ResultSet) result;
+				execution.query = true;
+				execution.nanos = System.nanoTime() - execution.started;
+				int fetchSize = rs.getFetchSize();
+				if (fetchSize > 0) {
+					execution.fetchSize = fetchSize;
+				}
+				return Proxy.newProxyInstance(SqlProfiler.class.getClassLoader(), new Class<?>[] { ResultSet.class },
+						new ResultSetHandler(rs, execution));
+			}
+			if (result instanceof Number) {
+				execution.rows = Math.max(0, ((Number) result).longValue());
+			} else if (result instanceof int[]) {
+				for (int count : (int[]) result) {
+					execution.rows += Math.max(0, count);
+				}
+			}
+			execution.finish(false);
+			return result;
+		}
+
+		private void finishCurrent() {
+			if (current != null) {
+				current.finish(false);
+				current = null;
+			}
+		}
+	}
+
+	private static class ResultSetHandler implements InvocationHandler {
+		private final ResultSet rs;
+		private final Execution execution;
+
+		private ResultSetHandler(ResultSet rs, Execution execution) {
+			this.rs = rs;
+			this.execution = execution;
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			String name = method.getName();
+			if (name.equals("next")) {
+				long start = System.nanoTime();
+				boolean more = (Boolean) SqlProfiler.invoke(rs, method, args);
+				synchronized (execution) {
+					execution.nanos += System.nanoTime() - start;
+					if (more) {
+						execution.rows++;
+					}
+				}
+				if (!more) {
+					execution.finish(false);
+				}
+				return more;
+			}
+			if (name.equals("close")) {
+				execution.finish(false);
+			}
+			return SqlProfiler.invoke(rs, method, args);
+		}
+	}
+}
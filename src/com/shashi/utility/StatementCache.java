@@ -0,0 +1,213 @@
+package com.shashi.utility;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+//Prepared statement cache of one physical connection, the innermost wrapper of the DBUtil connection
+//
+//prepareStatement(sql) hands out the idle statement prepared earlier for the same sql instead of
+//preparing it again, and close() puts it back with its parameters cleared. A statement serves one
+//caller at a time: two threads preparing the same sql at once get a statement each, and only one
+//of them is kept when both are closed. At most dbStatementCacheSize statements are kept idle, the
+//least recently used one is closed to make room. Statements that are never closed are never reused
+//
+//Every statement of every request goes through here, so the idle map is guarded by a lock rather
+//than synchronized, and statements are only closed after the lock is released
+public class StatementCache {
+
+	private static final AtomicLong HITS = new AtomicLong();
+	private static final AtomicLong MISSES = new AtomicLong();
+	private static final AtomicLong EVICTIONS = new AtomicLong();
+
+	private final Connection con;
+
+	private final int size;
+
+	// idle statements by sql, least recently used first
+	private final LinkedHashMap<String, PreparedStatement> idle = new LinkedHashMap<String, PreparedStatement>(16,
+			0.75f, true);
+
+	private final ReentrantLock lock = new ReentrantLock();
+
+	private boolean closed;
+
+	private StatementCache(Connection con, int size) {
+		this.con = con;
+		this.size = size;
+	}
+
+	// The connection itself when size is 0
+	public static Connection wrap(Connection con, int size) {
+		if (size <= 0) {
+			return con;
+		}
+		StatementCache cache = new StatementCache(con, size);
+		return (Connection) Proxy.newProxyInstance(StatementCache.class.getClassLoader(),
+				new Class<?>[] { Connection.class }, cache.new ConnectionHandler());
+	}
+
+	public static long getHitCount() {
+		return HITS.get();
+	}
+
+	public static long getMissCount() {
+		return MISSES.get();
+	}
+
+	public static long getEvictionCount() {
+		return EVICTIONS.get();
+	}
+
+	private PreparedStatement checkOut(String sql) throws SQLException {
+		PreparedStatement statement;
+		lock.lock();
+		try {
+			statement = idle.remove(sql);
+		} finally {
+			lock.unlock();
+		}
+		if (statement != null) {
+			HITS.incrementAndGet();
+			return statement;
+		}
+		MISSES.incrementAndGet();
+		return con.prepareStatement(sql);
+	}
+
+	private void checkIn(String sql, PreparedStatement statement) {
+		try {
+			// what close() would have done for the caller
+			ResultSet rs = statement.getResultSet();
+			if (rs != null) {
+				rs.close();
+			}
+			statement.clearParameters();
+			statement.clearBatch();
+		} catch (SQLException e) {
+			closeQuietly(statement);
+			return;
+		}
+		PreparedStatement replaced;
+		PreparedStatement evicted = null;
+		lock.lock();
+		try {
+			if (closed) {
+				replaced = statement;
+			} else {
+				replaced = idle.put(sql, statement);
+				if (idle.size() > size) {
+					Iterator<PreparedStatement> eldest = idle.values().iterator();
+					evicted = eldest.next();
+					eldest.remove();
+				}
+			}
+		} finally {
+			lock.unlock();
+		}
+		if (replaced != null) {
+			closeQuietly(replaced);
+		}
+		if (evicted != null) {
+			EVICTIONS.incrementAndGet();
+			closeQuietly(evicted);
+		}
+	}
+
+	private void closeAll() {
+		List<PreparedStatement> statements;
+		lock.lock();
+		try {
+			closed = true;
+			statements = new ArrayList<PreparedStatement>(idle.values());
+			idle.clear();
+		} finally {
+			lock.unlock();
+		}
+		for (PreparedStatement statement : statements) {
+			closeQuietly(statement);
+		}
+	}
+
+	private static void closeQuietly(PreparedStatement statement) {
+		try {
+			statement.close();
+		} catch (SQLException e) {
+			// the statement is dropped either way
+		}
+	}
+
+	private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+		try {
+			return method.invoke(target, args);
+		} catch (InvocationTargetException e) {
+			throw e.getCause();
+		}
+	}
+
+	private class ConnectionHandler implements InvocationHandler {
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			if (method.getName().equals("prepareStatement") && args.length == 1 && args[0] != null) {
+				String sql = (String) args[0];
+				return Proxy.newProxyInstance(StatementCache.class.getClassLoader(),
+						new Class<?>[] { PreparedStatement.class },
+						new StatementHandler((Connection) proxy, sql, checkOut(sql)));
+			}
+			if (method.getName().equals("close")) {
+				closeAll();
+			}
+			return StatementCache.invoke(con, method, args);
+		}
+	}
+
+	private class StatementHandler implements InvocationHandler {
+		private final Connection connection;
+		private final String sql;
+		private final PreparedStatement statement;
+		private boolean closed;
+
+		private StatementHandler(Connection connection, String sql, PreparedStatement statement) {
+			this.connection = connection;
+			this.sql = sql;
+			this.statement = statement;
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			if (method.getDeclaringClass() == Object.class) {
+				return StatementCache.invoke(statement, method, args);
+			}
+			switch (method.getName()) {
+			case "close":
+				if (!closed) {
+					closed = true;
+					checkIn(sql, statement);
+				}
+				return null;
+			case "isClosed":
+				return closed || statement.isClosed();
+			case "getConnection":
+				return connection;
+			default:
+				// once handed back the statement may already serve another caller
+				if (closed) {
+					throw new SQLException("Statement is closed");
+				}
+				return StatementCache.invoke(statement, method, args);
+			}
+		}
+	}
+}
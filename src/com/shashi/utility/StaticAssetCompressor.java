@@ -0,0 +1,81 @@
+package com.shashi.utility;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+//Build step that writes a .gz twin of every text asset in WebContent, run by the pom before
+//the war is packed. CompressionFilter sends those files as they are to clients accepting gzip.
+//Images are skipped, jpg and png are compressed already
+//
+//Usage: StaticAssetCompressor <WebContent dir> <output dir>
+public class StaticAssetCompressor {
+
+	private static final String[] EXTENSIONS = { ".html", ".css", ".js", ".svg", ".txt", ".json" };
+
+	private static final int MIN_SIZE = 256;
+
+	public static void main(String[] args) throws IOException {
+		if (args.length != 2) {
+			System.out.println("Usage: StaticAssetCompressor <WebContent dir> <output dir>");
+			System.exit(1);
+		}
+		Path source = Paths.get(args[0]);
+		Path target = Paths.get(args[1]);
+		List<Path> assets;
+		try (Stream<Path> files = Files.walk(source)) {
+			assets = files.filter(Files::isRegularFile).filter(StaticAssetCompressor::isCompressible)
+					.collect(Collectors.toList());
+		}
+		int written = 0;
+		for (Path asset : assets) {
+			Path relative = source.relativize(asset);
+			if (relative.startsWith("WEB-INF") || relative.startsWith("META-INF")) {
+				continue;
+			}
+			if (compress(asset, target.resolve(relative.toString() + ".gz"))) {
+				written++;
+			}
+		}
+		System.out.println("Precompressed " + written + " of " + assets.size() + " static assets into " + target);
+	}
+
+	private static boolean isCompressible(Path file) {
+		String name = file.getFileName().toString().toLowerCase();
+		for (String extension : EXTENSIONS) {
+			if (name.endsWith(extension)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	// Writes the gzip twin only when it is actually smaller than the file
+	private static boolean compress(Path file, Path gzip) throws IOException {
+		byte[] content = Files.readAllBytes(file);
+		if (content.length < MIN_SIZE) {
+			return false;
+		}
+		Files.createDirectories(gzip.getParent());
+		try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(gzip)) {
+			{
+				def.setLevel(Deflater.BEST_COMPRESSION);
+			}
+		}) {
+			out.write(content);
+		}
+		if (Files.size(gzip) >= content.length) {
+			Files.delete(gzip);
+			return false;
+		}
+		Files.setLastModifiedTime(gzip, Files.getLastModifiedTime(file));
+		return true;
+	}
+}
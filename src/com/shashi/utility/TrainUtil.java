@@ -65,7 +65,7 @@ public class TrainUtil {
 
 	public static void validateUserAuthorization(HttpServletRequest request, UserRole userRole) throws TrainException {
 		if (!isLoggedIn(request, userRole)) {
-			throw new TrainException(ResponseCode.SESSION_EXPIRED);
+			throw TrainException.of(ResponseCode.SESSION_EXPIRED);
 		}
 	}
 
@@ -0,0 +1,120 @@
+package com.shashi.utility;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import javax.servlet.ServletContext;
+
+import com.shashi.beans.TrainBean;
+import com.shashi.beans.TrainException;
+import com.shashi.service.BookingService;
+import com.shashi.service.impl.BookingServiceImpl;
+import com.shashi.service.impl.TrainServiceImpl;
+
+//Warm-up of a starting node, /ready answers 503 until it is done
+//
+//Runs on its own thread so the container finishes starting: connects to the database (driver
+//loading and the first connection), starts the db executor threads, reads the page fragments
+//into their cache, then sends warmUpIterations rounds of the hot catalog and booking reads to the
+//database so their statements are parsed and the code is compiled before real traffic arrives.
+//The warm-up queries show up in /metrics and /sqlprofile like any other. A database that is down
+//does not hold the node back, it is ready once every step ran
+public class WarmUp {
+
+	private static final Log LOG = Log.get(WarmUp.class);
+
+	private static final int ITERATIONS = AppConfig.getInt("warmUpIterations", 200);
+
+	private static volatile boolean ready;
+
+	private static Thread thread;
+
+	private WarmUp() {
+	}
+
+	public static synchronized void start(ServletContext context) {
+		if (thread != null) {
+			return;
+		}
+		thread = new Thread(() -> run(context), "warm-up");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	public static synchronized void stop() {
+		if (thread != null) {
+			thread.interrupt();
+			thread = null;
+		}
+	}
+
+	public static boolean isReady() {
+		return ready;
+	}
+
+	private static void run(ServletContext context) {
+		long started = System.currentTimeMillis();
+		int calls = 0;
+		try {
+			try {
+				DBUtil.getConnection();
+			} catch (TrainException e) {
+				LOG.warn("Warm-up without a database", "error", e.getMessage());
+			}
+			DBExecutor.prestart();
+			loadPages(context);
+			calls = callServices();
+		} catch (TrainException e) {
+			LOG.warn("Warm-up calls stopped", "error", e.getMessage());
+		} catch (RuntimeException e) {
+			LOG.error("Warm-up stopped", e);
+		} finally {
+			// a failed step leaves the node cold, not out of the load balancer for good
+			ready = !Thread.currentThread().isInterrupted();
+			LOG.info("Warm-up done", "millis", System.currentTimeMillis() - started, "calls", calls);
+		}
+	}
+
+	private static void loadPages(ServletContext context) {
+		Set<String> paths = context.getResourcePaths("/");
+		if (paths == null) {
+			return;
+		}
+		for (String path : paths) {
+			if (path.endsWith(".html")) {
+				try {
+					PageFragments.get(context, path.substring(1));
+				} catch (IOException e) {
+					LOG.warn("Page not cached", "page", path, "error", e.getMessage());
+				}
+			}
+		}
+	}
+
+	// The reads behind the train pages and the booking history, for trains of the catalog itself
+	private static int callServices() throws TrainException {
+		TrainServiceImpl trainService = new TrainServiceImpl();
+		BookingService bookingService = new BookingServiceImpl();
+		List<TrainBean> trains = trainService.getAllTrainsFromDatabase();
+		if (trains.isEmpty()) {
+			return 1;
+		}
+		int calls = 1;
+		for (int i = 0; i < ITERATIONS && !Thread.currentThread().isInterrupted(); i++) {
+			TrainBean train = trains.get(i % trains.size());
+			List<String> trainNos = new ArrayList<String>();
+			for (int j = 0; j < 10; j++) {
+				trainNos.add(trains.get((i + j) % trains.size()).getTr_no().toString());
+			}
+			// getTrainById answers from the startup copy while it warms, the statement is prepared here
+			trainService.getTrainFromDatabase(train.getTr_no().toString());
+			trainService.getTrainsBetweenStations(train.getFrom_stn(), train.getTo_stn());
+			trainService.getTrainsByIds(trainNos);
+			bookingService.getAllBookingsByCustomerId("warm-up@localhost");
+			calls += 4;
+		}
+		return calls;
+	}
+}
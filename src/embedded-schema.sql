@@ -0,0 +1,101 @@
+-- Schema and demo rows of Dummy-Database.md for the embedded database profile (H2 in Oracle mode)
+-- Keep in step with Dummy-Database.md when a table changes
+
+CREATE TABLE IF NOT EXISTS CUSTOMER
+(
+"MAILID" VARCHAR2(40) PRIMARY KEY,
+"PWORD" VARCHAR2(20) NOT NULL,
+"FNAME" VARCHAR2(20) NOT NULL,
+"LNAME" VARCHAR2(20),
+"ADDR" VARCHAR2(100),
+"PHNO" NUMBER(12) NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS ADMIN
+(
+"MAILID" VARCHAR2(40) PRIMARY KEY,
+"PWORD" VARCHAR2(20) NOT NULL,
+"FNAME" VARCHAR2(20) NOT NULL,
+"LNAME" VARCHAR2(20),
+"ADDR" VARCHAR2(100),
+"PHNO" NUMBER(12) NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS TRAIN
+(
+"TR_NO" NUMBER(10) PRIMARY KEY,
+"TR_NAME" VARCHAR2(70) NOT NULL,
+"FROM_STN" VARCHAR2(20) NOT NULL,
+"TO_STN" VARCHAR2(20) NOT NULL,
+"SEATS" NUMBER(4) NOT NULL,
+"FARE" NUMBER(6,2) NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS HISTORY
+(
+"TRANSID" VARCHAR2(36) PRIMARY KEY,
+"MAILID" VARCHAR2(40) REFERENCES CUSTOMER(MAILID),
+"TR_NO" NUMBER(10),
+"DATE" DATE,
+"FROM_STN" VARCHAR2(20) NOT NULL,
+"TO_STN" VARCHAR2(20) NOT NULL,
+"SEATS" NUMBER(3) NOT NULL,
+"AMOUNT" NUMBER(8,2) NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS BOOKING_TOKEN
+(
+"TOKEN" VARCHAR2(36) PRIMARY KEY,
+"MAILID" VARCHAR2(40) REFERENCES CUSTOMER(MAILID),
+"TRANSID" VARCHAR2(36),
+"CREATED" DATE DEFAULT SYSDATE NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS BOOKING_OUTBOX
+(
+"EVENTID" VARCHAR2(36) PRIMARY KEY,
+"TRANSID" VARCHAR2(36) NOT NULL,
+"EVENT_TYPE" VARCHAR2(30) NOT NULL,
+"PAYLOAD" VARCHAR2(1000) NOT NULL,
+"CREATED" DATE DEFAULT SYSDATE NOT NULL,
+"DELIVERED" DATE
+);
+
+-- one row counting every change of the catalog columns of TRAIN, the ETag of the train pages on every node.
+-- Seat counts are not part of it, CatalogVersionTrigger skips updates that only move seats
+CREATE TABLE IF NOT EXISTS CATALOG_VERSION
+(
+"ID" NUMBER(1) PRIMARY KEY,
+"VERSION" NUMBER(19) NOT NULL
+);
+
+-- starts at the creation time, a new in-memory database does not count again from a version handed out before
+INSERT INTO CATALOG_VERSION SELECT 1, EXTRACT(EPOCH FROM CURRENT_TIMESTAMP) * 1000 FROM DUAL
+WHERE NOT EXISTS (SELECT 1 FROM CATALOG_VERSION);
+
+CREATE TRIGGER IF NOT EXISTS TRAIN_CATALOG_VERSION AFTER INSERT, UPDATE, DELETE ON TRAIN FOR EACH ROW
+CALL "com.shashi.utility.CatalogVersionTrigger";
+
+-- volumes of the generated rows, so a file database is only filled once
+CREATE TABLE IF NOT EXISTS SEED_VOLUME
+(
+"TRAINS" NUMBER(10),
+"CUSTOMERS" NUMBER(10),
+"HISTORY" NUMBER(10)
+);
+
+MERGE INTO ADMIN KEY(MAILID) VALUES('admin@demo.com','admin','System','Admin','Demo Address 123 colony','9874561230');
+MERGE INTO CUSTOMER KEY(MAILID) VALUES('shashi@demo.com','shashi','Shashi','Raj','Kolkata, West Bengal',954745222);
+
+MERGE INTO TRAIN KEY(TR_NO) VALUES(10001,'JODHPUR EXP','HOWRAH','JODHPUR', 152, 490.50);
+MERGE INTO TRAIN KEY(TR_NO) VALUES(10002,'YAMUNA EXP','GAYA','DELHI', 52, 550.50);
+MERGE INTO TRAIN KEY(TR_NO) VALUES(10003,'NILANCHAL EXP','GAYA','HOWRAH', 92, 451);
+MERGE INTO TRAIN KEY(TR_NO) VALUES(10004,'JAN SATABDI EXP','RANCHI','PATNA', 182, 550);
+MERGE INTO TRAIN KEY(TR_NO) VALUES(10005,'GANGE EXP','MUMBAI','KERALA', 12, 945);
+MERGE INTO TRAIN KEY(TR_NO) VALUES(10006,'GARIB RATH EXP','PATNA','DELHI', 1, 1450.75);
+MERGE INTO TRAIN KEY(TR_NO) VALUES(10008,'MUMBAI MAIL','HAWRAH','MUMBAI', 100, 2150.75);
+MERGE INTO TRAIN KEY(TR_NO) VALUES(10007,'AJMER-SEALDAH EXP','SEALDAH','AJMER', 120, 1000.50);
+
+MERGE INTO HISTORY KEY(TRANSID) VALUES('BBC374-NSDF-4673','shashi@demo.com',10001,DATE '2024-02-02', 'HOWRAH', 'JODHPUR', 2, 981);
+MERGE INTO HISTORY KEY(TRANSID) VALUES('BBC375-NSDF-4675','shashi@demo.com',10004,DATE '2024-01-12', 'RANCHI', 'PATNA', 1, 550);
+MERGE INTO HISTORY KEY(TRANSID) VALUES('BBC373-NSDF-4674','shashi@demo.com',10006,DATE '2024-07-22', 'PATNA', 'DELHI', 3, 4352.25);
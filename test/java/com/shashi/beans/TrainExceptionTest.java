@@ -0,0 +1,54 @@
+package test.java.com.shashi.beans;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.sql.SQLException;
+
+import org.junit.jupiter.api.Test;
+
+import com.shashi.beans.TrainException;
+import com.shashi.constant.ResponseCode;
+
+class TrainExceptionTest {
+
+    @Test
+    void testFreshInstancePerThrow() {
+        TrainException expired = TrainException.of(ResponseCode.SESSION_EXPIRED);
+        TrainException again = TrainException.of(ResponseCode.SESSION_EXPIRED);
+
+        assertNotSame(expired, again);
+        assertEquals(401, expired.getStatusCode());
+        assertEquals("SESSION_EXPIRED", expired.getErrorCode());
+        assertEquals(ResponseCode.SESSION_EXPIRED.getMessage(), expired.getMessage());
+        assertEquals(0, expired.getStackTrace().length);
+
+        // what one request adds stays with its own exception
+        expired.addSuppressed(new SQLException("ORA-03113"));
+        expired.initCause(new SQLException("ORA-03114"));
+        assertEquals(0, again.getSuppressed().length);
+        assertNull(again.getCause());
+    }
+
+    @Test
+    void testExpectedConditionsHaveNoStackTrace() {
+        TrainException notFound = TrainException.expected(404, "TRAIN_NOT_FOUND", "Train No.1 is Not Available !");
+
+        assertEquals(404, notFound.getStatusCode());
+        assertEquals("TRAIN_NOT_FOUND", notFound.getErrorCode());
+        assertEquals(0, notFound.getStackTrace().length);
+        assertTrue(new TrainException("ORA-00942").getStackTrace().length > 0);
+    }
+
+    @Test
+    void testFailedKeepsTheCause() {
+        SQLException cause = new SQLException("ORA-03113");
+
+        TrainException failed = TrainException.failed(TrainExceptionTest.class, cause);
+
+        assertEquals(422, failed.getStatusCode());
+        assertEquals(TrainExceptionTest.class.getName() + "_FAILED", failed.getErrorCode());
+        assertEquals("ORA-03113", failed.getMessage());
+        assertSame(cause, failed.getCause());
+        assertEquals(0, failed.getStackTrace().length);
+    }
+}
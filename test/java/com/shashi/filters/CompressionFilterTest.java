@@ -0,0 +1,165 @@
+package test.java.com.shashi.filters;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintWriter;
+import java.util.zip.GZIPInputStream;
+
+import javax.servlet.DispatcherType;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.shashi.filters.CompressionFilter;
+
+class CompressionFilterTest {
+
+    private HttpServletRequest mockRequest;
+
+    private HttpServletResponse mockResponse;
+
+    private ByteArrayOutputStream body;
+
+    private CompressionFilter filter;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        mockRequest = mock(HttpServletRequest.class);
+        when(mockRequest.getDispatcherType()).thenReturn(DispatcherType.REQUEST);
+        when(mockRequest.getMethod()).thenReturn("POST");
+        when(mockRequest.getHeader("Accept-Encoding")).thenReturn("gzip, deflate");
+
+        body = new ByteArrayOutputStream();
+        mockResponse = mock(HttpServletResponse.class);
+        when(mockResponse.getStatus()).thenReturn(200);
+        when(mockResponse.getContentType()).thenReturn("text/html");
+        when(mockResponse.getCharacterEncoding()).thenReturn("ISO-8859-1");
+        when(mockResponse.getOutputStream()).thenReturn(new ServletOutputStream() {
+            @Override
+            public void write(int b) {
+                body.write(b);
+            }
+
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+
+            @Override
+            public void setWriteListener(WriteListener writeListener) {
+            }
+        });
+
+        filter = new CompressionFilter();
+    }
+
+    private FilterChain writing(String page) {
+        return (req, res) -> {
+            PrintWriter pw = res.getWriter();
+            pw.print(page);
+        };
+    }
+
+    private String repeat(String text, int times) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < times; i++) {
+            sb.append(text);
+        }
+        return sb.toString();
+    }
+
+    @Test
+    void testAcceptedEncoding() {
+        assertEquals("gzip", CompressionFilter.acceptedEncoding("gzip, deflate, br"));
+        assertEquals("deflate", CompressionFilter.acceptedEncoding("deflate, gzip;q=0"));
+        assertEquals("gzip", CompressionFilter.acceptedEncoding("br;q=1.0, GZIP;q=0.5"));
+        assertNull(CompressionFilter.acceptedEncoding("identity"));
+        assertNull(CompressionFilter.acceptedEncoding(null));
+    }
+
+    @Test
+    void testDoFilter_LargePageIsGzipped() throws Exception {
+        String page = repeat("<tr><td>JODHPUR EXP</td><td>10001</td><td>490.5 RS</td></tr>\n", 200);
+
+        filter.doFilter(mockRequest, mockResponse, writing(page));
+
+        verify(mockResponse).setHeader("Content-Encoding", "gzip");
+        verify(mockResponse).addHeader("Vary", "Accept-Encoding");
+        assertTrue(body.size() < page.length() / 10);
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(body.toByteArray()))) {
+            ByteArrayOutputStream unzipped = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                unzipped.write(buffer, 0, read);
+            }
+            assertEquals(page, new String(unzipped.toByteArray(), "ISO-8859-1"));
+        }
+    }
+
+    @Test
+    void testDoFilter_SmallPageSentAsIs() throws Exception {
+        String page = "<div class='main'><p1 class='menu red'> No Running Trains</p1></div>";
+
+        filter.doFilter(mockRequest, mockResponse, writing(page));
+
+        verify(mockResponse, never()).setHeader(eq("Content-Encoding"), anyString());
+        verify(mockResponse).setContentLength(page.length());
+        verify(mockResponse).addHeader("Vary", "Accept-Encoding");
+        assertEquals(page, body.toString("ISO-8859-1"));
+    }
+
+    @Test
+    void testDoFilter_ImagesAreNotCompressed() throws Exception {
+        when(mockResponse.getContentType()).thenReturn("image/jpeg");
+        String page = repeat("x", 5000);
+
+        filter.doFilter(mockRequest, mockResponse, writing(page));
+
+        verify(mockResponse, never()).setHeader(eq("Content-Encoding"), anyString());
+        verify(mockResponse, never()).addHeader(eq("Vary"), anyString());
+        assertEquals(page, body.toString("ISO-8859-1"));
+    }
+
+    @Test
+    void testDoFilter_NotModifiedKeepsVary() throws Exception {
+        when(mockResponse.getStatus()).thenReturn(HttpServletResponse.SC_NOT_MODIFIED);
+
+        filter.doFilter(mockRequest, mockResponse, (req, res) -> {
+        });
+
+        verify(mockResponse).addHeader("Vary", "Accept-Encoding");
+        assertEquals(0, body.size());
+    }
+
+    @Test
+    void testDoFilter_AsyncStartedLeavesBodyToDispatch() throws Exception {
+        when(mockRequest.isAsyncStarted()).thenReturn(true);
+
+        filter.doFilter(mockRequest, mockResponse, (req, res) -> res.getWriter());
+
+        verify(mockResponse, never()).getOutputStream();
+        assertEquals(0, body.size());
+    }
+
+    @Test
+    void testDoFilter_NoAcceptEncodingPassesThrough() throws Exception {
+        when(mockRequest.getHeader("Accept-Encoding")).thenReturn(null);
+        FilterChain chain = mock(FilterChain.class);
+
+        filter.doFilter(mockRequest, mockResponse, chain);
+
+        verify(chain).doFilter(mockRequest, mockResponse);
+        verify(mockResponse).addHeader("Vary", "Accept-Encoding");
+    }
+}
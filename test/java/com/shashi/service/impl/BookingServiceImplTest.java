@@ -11,7 +11,6 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.List;
-import java.util.UUID;
 
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
@@ -24,10 +23,12 @@ import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import com.shashi.beans.HistoryBean;
+import com.shashi.beans.TrainBean;
 import com.shashi.beans.TrainException;
 import com.shashi.constant.ResponseCode;
 import com.shashi.service.impl.BookingServiceImpl;
 import com.shashi.utility.DBUtil;
+import com.shashi.utility.PnrGenerator;
 
 @ExtendWith(MockitoExtension.class)
 class BookingServiceImplTest {
@@ -45,17 +46,16 @@ class BookingServiceImplTest {
     private BookingServiceImpl bookingService;
 
     private MockedStatic<DBUtil> mockedDBUtil;
-    private MockedStatic<UUID> mockedUUID;
-    private final String testUuidString = "123e4567-e89b-12d3-a456-426614174000";
-    private final UUID testUuid = UUID.fromString(testUuidString);
+    private MockedStatic<PnrGenerator> mockedPnrGenerator;
+    private final String testPnr = "00C8Q9ZN1G02A";
 
     @BeforeEach
     void setUp() throws Exception {
         mockedDBUtil = Mockito.mockStatic(DBUtil.class);
         mockedDBUtil.when(DBUtil::getConnection).thenReturn(mockConnection);
 
-        mockedUUID = Mockito.mockStatic(UUID.class);
-        mockedUUID.when(UUID::randomUUID).thenReturn(testUuid);
+        mockedPnrGenerator = Mockito.mockStatic(PnrGenerator.class);
+        mockedPnrGenerator.when(PnrGenerator::nextPnr).thenReturn(testPnr);
 
 
         when(mockConnection.prepareStatement(anyString())).thenReturn(mockPreparedStatement);
@@ -64,7 +64,7 @@ class BookingServiceImplTest {
     @AfterEach
     void tearDown() {
         mockedDBUtil.close();
-        mockedUUID.close();
+        mockedPnrGenerator.close();
     }
 
     private HistoryBean createSampleHistoryBean() {
@@ -86,14 +86,14 @@ class BookingServiceImplTest {
         when(mockPreparedStatement.executeQuery()).thenReturn(mockResultSet);
         // Simulate two bookings found
         when(mockResultSet.next()).thenReturn(true).thenReturn(true).thenReturn(false);
-        when(mockResultSet.getString("transid")).thenReturn("TXN001", "TXN002");
-        when(mockResultSet.getString("from_stn")).thenReturn("Station A", "Station C");
-        when(mockResultSet.getString("to_stn")).thenReturn("Station B", "Station D");
-        when(mockResultSet.getString("date")).thenReturn("2023-10-26", "2023-10-27");
-        when(mockResultSet.getString("mailid")).thenReturn(customerEmailId); // Both for the same user
-        when(mockResultSet.getInt("seats")).thenReturn(2, 1);
-        when(mockResultSet.getDouble("amount")).thenReturn(200.50, 150.75);
-        when(mockResultSet.getString("tr_no")).thenReturn("T123", "T456");
+        when(mockResultSet.getString(1)).thenReturn("TXN001", "TXN002");
+        when(mockResultSet.getString(5)).thenReturn("Station A", "Station C");
+        when(mockResultSet.getString(6)).thenReturn("Station B", "Station D");
+        when(mockResultSet.getString(4)).thenReturn("2023-10-26", "2023-10-27");
+        when(mockResultSet.getString(2)).thenReturn(customerEmailId); // Both for the same user
+        when(mockResultSet.getInt(7)).thenReturn(2, 1);
+        when(mockResultSet.getDouble(8)).thenReturn(200.50, 150.75);
+        when(mockResultSet.getString(3)).thenReturn("T123", "T456");
 
         List<HistoryBean> bookings = bookingService.getAllBookingsByCustomerId(customerEmailId);
 
@@ -168,7 +168,7 @@ class BookingServiceImplTest {
         HistoryBean createdHistory = bookingService.createHistory(inputDetails);
 
         assertNotNull(createdHistory);
-        assertEquals(testUuidString, createdHistory.getTransId()); // Check if the mocked UUID is set
+        assertEquals(testPnr, createdHistory.getTransId()); // Check if the mocked PNR is set
         assertEquals(inputDetails.getMailId(), createdHistory.getMailId());
         assertEquals(inputDetails.getTr_no(), createdHistory.getTr_no());
         assertEquals(inputDetails.getDate(), createdHistory.getDate());
@@ -177,7 +177,7 @@ class BookingServiceImplTest {
         assertEquals(inputDetails.getSeats(), createdHistory.getSeats());
         assertEquals(inputDetails.getAmount(), createdHistory.getAmount());
 
-        verify(mockPreparedStatement).setString(1, testUuidString); // Verify UUID was used
+        verify(mockPreparedStatement).setString(1, testPnr); // Verify PNR was used
         verify(mockPreparedStatement).setString(2, inputDetails.getMailId());
         verify(mockPreparedStatement).setString(3, inputDetails.getTr_no());
         verify(mockPreparedStatement).setString(4, inputDetails.getDate());
@@ -220,6 +220,77 @@ class BookingServiceImplTest {
         verify(mockPreparedStatement).close();
     }
     
+    private TrainBean createSampleTrain() {
+        TrainBean train = new TrainBean();
+        train.setTr_no(10001L);
+        train.setTr_name("JODHPUR EXP");
+        train.setFrom_stn("HOWRAH");
+        train.setTo_stn("JODHPUR");
+        train.setSeats(10);
+        train.setFare(490.5);
+        return train;
+    }
+
+    @Test
+    void testBookTicket_Success_TakesSeatsAndRecordsBooking() throws SQLException, TrainException {
+        TrainBean train = createSampleTrain();
+        when(mockPreparedStatement.executeUpdate()).thenReturn(1);
+
+        HistoryBean booking = bookingService.bookTicket(train, 2, "27-Oct-2023", "test@example.com");
+
+        assertEquals(testPnr, booking.getTransId());
+        assertEquals("10001", booking.getTr_no());
+        assertEquals(2, booking.getSeats());
+        assertEquals(981.0, booking.getAmount());
+        assertEquals("27-Oct-2023", booking.getDate());
+        // the seats are taken by the database, not written back from what was read
+        verify(mockConnection).prepareStatement("UPDATE TRAIN SET SEATS=SEATS-? WHERE TR_NO=? AND SEATS>=?");
+        verify(mockPreparedStatement, times(2)).setInt(anyInt(), eq(2));
+        verify(mockPreparedStatement).setLong(2, 10001L);
+        verify(mockPreparedStatement, times(2)).executeUpdate();
+    }
+
+    @Test
+    void testBookTicket_SeatsTakenByAnotherBooking() throws SQLException, TrainException {
+        TrainBean train = createSampleTrain();
+        when(mockPreparedStatement.executeUpdate()).thenReturn(0);
+        when(mockPreparedStatement.executeQuery()).thenReturn(mockResultSet);
+        when(mockResultSet.next()).thenReturn(true);
+        when(mockResultSet.getInt(1)).thenReturn(1);
+
+        TrainException exception = assertThrows(TrainException.class,
+                () -> bookingService.bookTicket(train, 2, "27-Oct-2023", "test@example.com"));
+
+        assertEquals("SEATS_NOT_AVAILABLE", exception.getErrorCode());
+        assertEquals("Only 1 Seats are Available in this Train!", exception.getErrorMessage());
+        // nothing is recorded for seats that were not taken
+        verify(mockPreparedStatement, times(1)).executeUpdate();
+        mockedPnrGenerator.verify(PnrGenerator::nextPnr, never());
+    }
+
+    @Test
+    void testBookTicket_HistoryFailureReturnsSeats() throws SQLException, TrainException {
+        TrainBean train = createSampleTrain();
+        when(mockPreparedStatement.executeUpdate()).thenReturn(1).thenReturn(0).thenReturn(1);
+
+        assertThrows(TrainException.class,
+                () -> bookingService.bookTicket(train, 2, "27-Oct-2023", "test@example.com"));
+
+        verify(mockConnection).prepareStatement("UPDATE TRAIN SET SEATS=SEATS+? WHERE TR_NO=?");
+        verify(mockPreparedStatement, times(3)).executeUpdate();
+    }
+
+    @Test
+    void testReleaseBookingToken_OnlyWhenNothingWasBooked() throws SQLException, TrainException {
+        when(mockPreparedStatement.executeUpdate()).thenReturn(1);
+
+        bookingService.releaseBookingToken("token-1");
+
+        verify(mockConnection).prepareStatement("DELETE FROM BOOKING_TOKEN WHERE TOKEN=? AND TRANSID IS NULL");
+        verify(mockPreparedStatement).setString(1, "token-1");
+        verify(mockPreparedStatement).close();
+    }
+
     @Test
     void testCreateHistory_TrainExceptionFromDBUtil() throws TrainException, SQLException {
         HistoryBean inputDetails = createSampleHistoryBean();
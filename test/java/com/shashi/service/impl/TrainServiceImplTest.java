@@ -6,16 +6,23 @@ import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 
+import java.io.RandomAccessFile;
+import java.nio.file.Path;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockedStatic;
@@ -26,6 +33,8 @@ import com.shashi.beans.TrainBean;
 import com.shashi.beans.TrainException;
 import com.shashi.constant.ResponseCode;
 import com.shashi.service.impl.TrainServiceImpl;
+import com.shashi.utility.CatalogSnapshot;
+import com.shashi.utility.CatalogVersion;
 import com.shashi.utility.DBUtil;
 
 @ExtendWith(MockitoExtension.class)
@@ -45,8 +54,14 @@ class TrainServiceImplTest {
 
     private MockedStatic<DBUtil> mockedDBUtil;
 
+    @TempDir
+    Path snapshotDir;
+
     @BeforeEach
     void setUp() throws Exception {
+        // every test starts without a catalog copy and keeps its own off the one of the application
+        CatalogSnapshot.reset(snapshotDir.resolve("train-catalog.snapshot").toFile());
+
         // Mock the static DBUtil.getConnection() method
         mockedDBUtil = Mockito.mockStatic(DBUtil.class);
         mockedDBUtil.when(DBUtil::getConnection).thenReturn(mockConnection);
@@ -59,6 +74,7 @@ class TrainServiceImplTest {
     void tearDown() {
         // Close the static mock
         mockedDBUtil.close();
+        CatalogSnapshot.reset(null);
     }
 
     private TrainBean createSampleTrain() {
@@ -75,8 +91,7 @@ class TrainServiceImplTest {
     @Test
     void testAddTrain_Success() throws SQLException, TrainException {
         TrainBean train = createSampleTrain();
-        when(mockPreparedStatement.executeQuery()).thenReturn(mockResultSet);
-        when(mockResultSet.next()).thenReturn(true); // Simulate successful insertion indication
+        when(mockPreparedStatement.executeUpdate()).thenReturn(1);
 
         String result = trainService.addTrain(train);
 
@@ -87,23 +102,19 @@ class TrainServiceImplTest {
         verify(mockPreparedStatement).setString(4, train.getTo_stn());
         verify(mockPreparedStatement).setLong(5, train.getSeats());
         verify(mockPreparedStatement).setDouble(6, train.getFare());
-        verify(mockPreparedStatement).executeQuery();
+        verify(mockPreparedStatement).executeUpdate();
         verify(mockPreparedStatement).close();
     }
     
     @Test
     void testAddTrain_Failure_NoRowAffected() throws SQLException, TrainException {
-        // This test highlights a potential issue in the original code.
-        // INSERT typically uses executeUpdate() and checks the int return value.
-        // executeQuery() for INSERT is unusual. If rs.next() is false, it means no result set was generated.
         TrainBean train = createSampleTrain();
-        when(mockPreparedStatement.executeQuery()).thenReturn(mockResultSet);
-        when(mockResultSet.next()).thenReturn(false); // Simulate failure or no result set
+        when(mockPreparedStatement.executeUpdate()).thenReturn(0);
 
         String result = trainService.addTrain(train);
 
         assertEquals(ResponseCode.FAILURE.toString(), result);
-        verify(mockPreparedStatement).executeQuery();
+        verify(mockPreparedStatement).executeUpdate();
         verify(mockPreparedStatement).close();
     }
 
@@ -111,7 +122,7 @@ class TrainServiceImplTest {
     @Test
     void testAddTrain_SQLException() throws SQLException, TrainException {
         TrainBean train = createSampleTrain();
-        when(mockPreparedStatement.executeQuery()).thenThrow(new SQLException("DB Error"));
+        when(mockPreparedStatement.executeUpdate()).thenThrow(new SQLException("DB Error"));
 
         String result = trainService.addTrain(train);
 
@@ -179,11 +190,7 @@ class TrainServiceImplTest {
     @Test
     void testUpdateTrain_Success() throws SQLException, TrainException {
         TrainBean train = createSampleTrain();
-        // The original code uses executeQuery and rs.next() for UPDATE, which is unconventional.
-        // Typically, executeUpdate() returning an int (rows affected) is used.
-        // We test the code as is.
-        when(mockPreparedStatement.executeQuery()).thenReturn(mockResultSet);
-        when(mockResultSet.next()).thenReturn(true); // Simulate success indication
+        when(mockPreparedStatement.executeUpdate()).thenReturn(1);
 
         String result = trainService.updateTrain(train);
 
@@ -194,27 +201,29 @@ class TrainServiceImplTest {
         verify(mockPreparedStatement).setLong(4, train.getSeats());
         verify(mockPreparedStatement).setDouble(5, train.getFare());
         verify(mockPreparedStatement).setDouble(6, train.getTr_no()); // Original code uses setDouble for tr_no here
-        verify(mockPreparedStatement).executeQuery();
+        verify(mockPreparedStatement).executeUpdate();
         verify(mockPreparedStatement).close();
     }
     
     @Test
     void testUpdateTrain_Failure_NoRowAffected() throws SQLException, TrainException {
         TrainBean train = createSampleTrain();
-        when(mockPreparedStatement.executeQuery()).thenReturn(mockResultSet);
-        when(mockResultSet.next()).thenReturn(false); 
+        when(mockPreparedStatement.executeUpdate()).thenReturn(0);
+        long version = CatalogVersion.current();
 
         String result = trainService.updateTrain(train);
 
         assertEquals(ResponseCode.FAILURE.toString(), result);
-        verify(mockPreparedStatement).executeQuery();
+        // nothing changed, the shared version is not read again
+        assertEquals(version, CatalogVersion.current());
+        verify(mockPreparedStatement).executeUpdate();
         verify(mockPreparedStatement).close();
     }
 
     @Test
     void testUpdateTrain_SQLException() throws SQLException, TrainException {
         TrainBean train = createSampleTrain();
-        when(mockPreparedStatement.executeQuery()).thenThrow(new SQLException("Update Error"));
+        when(mockPreparedStatement.executeUpdate()).thenThrow(new SQLException("Update Error"));
 
         String result = trainService.updateTrain(train);
 
@@ -229,12 +238,12 @@ class TrainServiceImplTest {
         TrainBean expectedTrain = createSampleTrain();
         when(mockPreparedStatement.executeQuery()).thenReturn(mockResultSet);
         when(mockResultSet.next()).thenReturn(true).thenReturn(false); // Found one row
-        when(mockResultSet.getDouble("fare")).thenReturn(expectedTrain.getFare());
-        when(mockResultSet.getString("from_stn")).thenReturn(expectedTrain.getFrom_stn());
-        when(mockResultSet.getString("to_stn")).thenReturn(expectedTrain.getTo_stn());
-        when(mockResultSet.getString("tr_name")).thenReturn(expectedTrain.getTr_name());
-        when(mockResultSet.getLong("tr_no")).thenReturn(expectedTrain.getTr_no());
-        when(mockResultSet.getInt("seats")).thenReturn(expectedTrain.getSeats());
+        when(mockResultSet.getDouble(6)).thenReturn(expectedTrain.getFare());
+        when(mockResultSet.getString(3)).thenReturn(expectedTrain.getFrom_stn());
+        when(mockResultSet.getString(4)).thenReturn(expectedTrain.getTo_stn());
+        when(mockResultSet.getString(2)).thenReturn(expectedTrain.getTr_name());
+        when(mockResultSet.getLong(1)).thenReturn(expectedTrain.getTr_no());
+        when(mockResultSet.getInt(5)).thenReturn(expectedTrain.getSeats());
 
         TrainBean actualTrain = trainService.getTrainById(trainNo);
 
@@ -262,13 +271,15 @@ class TrainServiceImplTest {
     @Test
     void testGetTrainById_SQLException() throws SQLException {
         String trainNo = "12345";
-        when(mockPreparedStatement.executeQuery()).thenThrow(new SQLException("Fetch Error"));
+        SQLException cause = new SQLException("Fetch Error");
+        when(mockPreparedStatement.executeQuery()).thenThrow(cause);
 
         TrainException exception = assertThrows(TrainException.class, () -> {
             trainService.getTrainById(trainNo);
         });
 
         assertEquals("Fetch Error", exception.getMessage());
+        assertSame(cause, exception.getCause());
         verify(mockPreparedStatement).close(); // Should still try to close
     }
 
@@ -277,12 +288,12 @@ class TrainServiceImplTest {
         when(mockPreparedStatement.executeQuery()).thenReturn(mockResultSet);
         // Simulate two trains
         when(mockResultSet.next()).thenReturn(true).thenReturn(true).thenReturn(false);
-        when(mockResultSet.getDouble("fare")).thenReturn(500.0, 600.0);
-        when(mockResultSet.getString("from_stn")).thenReturn("Station A", "Station C");
-        when(mockResultSet.getString("to_stn")).thenReturn("Station B", "Station D");
-        when(mockResultSet.getString("tr_name")).thenReturn("Express 1", "Express 2");
-        when(mockResultSet.getLong("tr_no")).thenReturn(12345L, 67890L);
-        when(mockResultSet.getInt("seats")).thenReturn(100, 150);
+        when(mockResultSet.getDouble(6)).thenReturn(500.0, 600.0);
+        when(mockResultSet.getString(3)).thenReturn("Station A", "Station C");
+        when(mockResultSet.getString(4)).thenReturn("Station B", "Station D");
+        when(mockResultSet.getString(2)).thenReturn("Express 1", "Express 2");
+        when(mockResultSet.getLong(1)).thenReturn(12345L, 67890L);
+        when(mockResultSet.getInt(5)).thenReturn(100, 150);
 
         List<TrainBean> trains = trainService.getAllTrains();
 
@@ -327,12 +338,12 @@ class TrainServiceImplTest {
         String toStation = "StationY";
         when(mockPreparedStatement.executeQuery()).thenReturn(mockResultSet);
         when(mockResultSet.next()).thenReturn(true).thenReturn(false); // One train found
-        when(mockResultSet.getDouble("fare")).thenReturn(700.0);
-        when(mockResultSet.getString("from_stn")).thenReturn("StationX_Exact");
-        when(mockResultSet.getString("to_stn")).thenReturn("StationY_Exact");
-        when(mockResultSet.getString("tr_name")).thenReturn("Intercity");
-        when(mockResultSet.getLong("tr_no")).thenReturn(11223L);
-        when(mockResultSet.getInt("seats")).thenReturn(200);
+        when(mockResultSet.getDouble(6)).thenReturn(700.0);
+        when(mockResultSet.getString(3)).thenReturn("StationX_Exact");
+        when(mockResultSet.getString(4)).thenReturn("StationY_Exact");
+        when(mockResultSet.getString(2)).thenReturn("Intercity");
+        when(mockResultSet.getLong(1)).thenReturn(11223L);
+        when(mockResultSet.getInt(5)).thenReturn(200);
 
         List<TrainBean> trains = trainService.getTrainsBetweenStations(fromStation, toStation);
 
@@ -374,4 +385,141 @@ class TrainServiceImplTest {
         assertEquals("Search Error", exception.getMessage());
         verify(mockPreparedStatement).close();
     }
+
+    @Test
+    void testGetTrainsByIds_ChunksLargeBatches() throws SQLException, TrainException {
+        List<String> trainNos = new ArrayList<>();
+        for (int i = 0; i < 150; i++) {
+            trainNos.add(String.valueOf(10000 + i));
+        }
+        trainNos.add("10000"); // duplicates are only asked once
+        when(mockPreparedStatement.executeQuery()).thenReturn(mockResultSet);
+        when(mockResultSet.next()).thenReturn(true, false, true, false);
+        when(mockResultSet.getLong(1)).thenReturn(10000L, 10149L);
+
+        List<TrainBean> trains = trainService.getTrainsByIds(trainNos);
+
+        assertEquals(2, trains.size());
+        assertEquals(10149L, trains.get(1).getTr_no());
+        verify(mockConnection, times(1)).prepareStatement(argThat(sql -> sql.split("\\?").length == 101));
+        verify(mockPreparedStatement, times(2)).executeQuery();
+        // the second chunk has 50 numbers, padded to the statement size with the last one
+        verify(mockPreparedStatement).setString(50, "10149");
+        verify(mockPreparedStatement, times(51)).setString(anyInt(), eq("10149"));
+        verify(mockPreparedStatement).close();
+    }
+
+    @Test
+    void testGetAvailability_OnlySeatsAndFare() throws SQLException, TrainException {
+        when(mockPreparedStatement.executeQuery()).thenReturn(mockResultSet);
+        when(mockResultSet.next()).thenReturn(true, false);
+        when(mockResultSet.getLong(1)).thenReturn(12345L);
+        when(mockResultSet.getInt(2)).thenReturn(42);
+        when(mockResultSet.getDouble(3)).thenReturn(500.0);
+
+        List<TrainBean> trains = trainService.getAvailability(Arrays.asList("12345"));
+
+        assertEquals(1, trains.size());
+        assertEquals(42, trains.get(0).getSeats());
+        assertEquals(500.0, trains.get(0).getFare());
+        assertNull(trains.get(0).getTr_name());
+        verify(mockConnection).prepareStatement("SELECT TR_NO, SEATS, FARE FROM TRAIN WHERE TR_NO IN (?)");
+        verify(mockResultSet, never()).getString(anyInt());
+    }
+
+    @Test
+    void testGetTrainsBetweenStations_DatabaseDown_ServedFromSnapshot() throws Exception {
+        TrainBean other = createSampleTrain();
+        other.setTr_no(67890L);
+        other.setFrom_stn("Station C");
+        CatalogSnapshot.update(Arrays.asList(createSampleTrain(), other));
+        when(mockPreparedStatement.executeQuery()).thenThrow(new SQLTimeoutException("ORA-01013"))
+                .thenReturn(mockResultSet);
+        when(mockResultSet.next()).thenReturn(false);
+
+        List<TrainBean> trains = trainService.getTrainsBetweenStations("station a", "B");
+
+        assertEquals(1, trains.size());
+        assertEquals(12345L, trains.get(0).getTr_no());
+        assertTrue(CatalogSnapshot.isDegraded());
+
+        // the next read the database answers ends the degraded mode
+        assertTrue(trainService.getAllTrains().isEmpty());
+        assertFalse(CatalogSnapshot.isDegraded());
+    }
+
+    @Test
+    void testGetTrainById_DatabaseDown_NoSnapshotEntry() throws Exception {
+        CatalogSnapshot.update(Arrays.asList(createSampleTrain()));
+        mockedDBUtil.when(DBUtil::getConnection).thenThrow(TrainException.of(ResponseCode.DATABASE_CONNECTION_FAILURE));
+
+        assertEquals("Test Express", trainService.getTrainById("012345").getTr_name());
+        assertNull(trainService.getTrainById("99999"));
+
+        mockedDBUtil.when(DBUtil::getConnection).thenReturn(mockConnection);
+        when(mockPreparedStatement.executeQuery()).thenReturn(mockResultSet);
+        when(mockResultSet.next()).thenReturn(false);
+        assertNull(trainService.getTrainById("99999"));
+        assertFalse(CatalogSnapshot.isDegraded());
+    }
+
+    @Test
+    void testGetAllTrains_AfterRestart_ServedFromSnapshotFile() throws Exception {
+        TrainBean other = createSampleTrain();
+        other.setTr_no(67890L);
+        other.setTr_name("Other Express");
+        CatalogSnapshot.update(Arrays.asList(other, createSampleTrain()));
+        CatalogSnapshot.warmUp();
+
+        List<TrainBean> trains = trainService.getAllTrains();
+        assertEquals(2, trains.size());
+        assertEquals(12345L, trains.get(0).getTr_no());
+        assertEquals("Station A", trains.get(1).getFrom_stn());
+        assertEquals("Other Express", trainService.getTrainById("67890").getTr_name());
+        assertNull(trainService.getTrainById("99999"));
+        mockedDBUtil.verify(DBUtil::getConnection, never());
+
+        // a catalog write ends the warm start, reads go back to the database
+        CatalogVersion.bump();
+        when(mockPreparedStatement.executeQuery()).thenReturn(mockResultSet);
+        when(mockResultSet.next()).thenReturn(false);
+        assertTrue(trainService.getAllTrains().isEmpty());
+        assertFalse(CatalogSnapshot.isWarming());
+    }
+
+    @Test
+    void testGetAllTrains_AfterRestart_OldSnapshotNotServed() throws Exception {
+        CatalogSnapshot.update(Arrays.asList(createSampleTrain()));
+        // taken an hour ago, the header keeps takenAt at byte 8
+        try (RandomAccessFile file = new RandomAccessFile(snapshotDir.resolve("train-catalog.snapshot").toFile(),
+                "rw")) {
+            file.seek(8);
+            file.writeLong(System.currentTimeMillis() - TimeUnit.HOURS.toMillis(1));
+        }
+        CatalogSnapshot.reset(snapshotDir.resolve("train-catalog.snapshot").toFile());
+        CatalogSnapshot.warmUp();
+
+        assertFalse(CatalogSnapshot.isWarming());
+        when(mockPreparedStatement.executeQuery()).thenReturn(mockResultSet);
+        when(mockResultSet.next()).thenReturn(false);
+        assertTrue(trainService.getAllTrains().isEmpty());
+    }
+
+    @Test
+    void testGetTrainFromDatabase_NeverFromSnapshot() throws Exception {
+        CatalogSnapshot.update(Arrays.asList(createSampleTrain()));
+        CatalogSnapshot.warmUp();
+
+        // the warm copy answers the pages, a booking still reads the database
+        when(mockPreparedStatement.executeQuery()).thenReturn(mockResultSet);
+        when(mockResultSet.next()).thenReturn(false);
+        assertNull(trainService.getTrainFromDatabase("12345"));
+        assertEquals("Test Express", trainService.getTrainById("12345").getTr_name());
+
+        // and an outage fails the booking instead of falling back to the copy
+        mockedDBUtil.when(DBUtil::getConnection).thenThrow(TrainException.of(ResponseCode.DATABASE_CONNECTION_FAILURE));
+        TrainException e = assertThrows(TrainException.class, () -> trainService.getTrainFromDatabase("12345"));
+        assertEquals(ResponseCode.DATABASE_CONNECTION_FAILURE.name(), e.getErrorCode());
+        assertFalse(CatalogSnapshot.isDegraded());
+    }
 }
\ No newline at end of file
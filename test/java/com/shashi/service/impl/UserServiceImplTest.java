@@ -11,6 +11,7 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
 import java.util.List;
 
 import org.junit.jupiter.api.AfterEach;
@@ -48,6 +49,9 @@ class UserServiceImplTest {
 
     private final String CUSTOMER_TABLE_NAME = UserRole.CUSTOMER.toString(); // "CUSTOMER"
 
+    // PWORD is never read back
+    private static final String USER_COLUMNS = "MAILID, FNAME, LNAME, ADDR, PHNO";
+
     @BeforeEach
     void setUp() throws Exception {
         mockedDBUtil = Mockito.mockStatic(DBUtil.class);
@@ -92,16 +96,16 @@ class UserServiceImplTest {
     void testGetUserByEmailId_UserFound() throws SQLException, TrainException {
         String email = "test@example.com";
         UserBean expectedUser = createSampleUser();
-        String expectedQuery = "SELECT * FROM " + CUSTOMER_TABLE_NAME + " WHERE MAILID=?";
+        String expectedQuery = "SELECT " + USER_COLUMNS + " FROM " + CUSTOMER_TABLE_NAME + " WHERE MAILID=?";
 
         when(mockConnection.prepareStatement(expectedQuery)).thenReturn(mockPreparedStatement);
         when(mockPreparedStatement.executeQuery()).thenReturn(mockResultSet);
         when(mockResultSet.next()).thenReturn(true);
-        when(mockResultSet.getString("fname")).thenReturn(expectedUser.getFName());
-        when(mockResultSet.getString("lname")).thenReturn(expectedUser.getLName());
-        when(mockResultSet.getString("addr")).thenReturn(expectedUser.getAddr());
-        when(mockResultSet.getString("mailid")).thenReturn(expectedUser.getMailId());
-        when(mockResultSet.getLong("phno")).thenReturn(expectedUser.getPhNo());
+        when(mockResultSet.getString(2)).thenReturn(expectedUser.getFName());
+        when(mockResultSet.getString(3)).thenReturn(expectedUser.getLName());
+        when(mockResultSet.getString(4)).thenReturn(expectedUser.getAddr());
+        when(mockResultSet.getString(1)).thenReturn(expectedUser.getMailId());
+        when(mockResultSet.getLong(5)).thenReturn(expectedUser.getPhNo());
 
         UserBean actualUser = userService.getUserByEmailId(email);
 
@@ -118,7 +122,7 @@ class UserServiceImplTest {
     @Test
     void testGetUserByEmailId_UserNotFound() throws SQLException {
         String email = "notfound@example.com";
-        String expectedQuery = "SELECT * FROM " + CUSTOMER_TABLE_NAME + " WHERE MAILID=?";
+        String expectedQuery = "SELECT " + USER_COLUMNS + " FROM " + CUSTOMER_TABLE_NAME + " WHERE MAILID=?";
         when(mockConnection.prepareStatement(expectedQuery)).thenReturn(mockPreparedStatement);
         when(mockPreparedStatement.executeQuery()).thenReturn(mockResultSet);
         when(mockResultSet.next()).thenReturn(false);
@@ -134,7 +138,7 @@ class UserServiceImplTest {
     @Test
     void testGetUserByEmailId_SQLException() throws SQLException {
         String email = "test@example.com";
-        String expectedQuery = "SELECT * FROM " + CUSTOMER_TABLE_NAME + " WHERE MAILID=?";
+        String expectedQuery = "SELECT " + USER_COLUMNS + " FROM " + CUSTOMER_TABLE_NAME + " WHERE MAILID=?";
         when(mockConnection.prepareStatement(expectedQuery)).thenReturn(mockPreparedStatement);
         when(mockPreparedStatement.executeQuery()).thenThrow(new SQLException("DB Read Error"));
 
@@ -148,16 +152,16 @@ class UserServiceImplTest {
 
     @Test
     void testGetAllUsers_UsersFound() throws SQLException, TrainException {
-        String expectedQuery = "SELECT * FROM  " + CUSTOMER_TABLE_NAME;
+        String expectedQuery = "SELECT " + USER_COLUMNS + " FROM " + CUSTOMER_TABLE_NAME;
         when(mockConnection.prepareStatement(expectedQuery)).thenReturn(mockPreparedStatement);
         when(mockPreparedStatement.executeQuery()).thenReturn(mockResultSet);
 
         when(mockResultSet.next()).thenReturn(true).thenReturn(true).thenReturn(false); // Two users
-        when(mockResultSet.getString("fname")).thenReturn("User1", "User2");
-        when(mockResultSet.getString("lname")).thenReturn("LN1", "LN2");
-        when(mockResultSet.getString("addr")).thenReturn("Addr1", "Addr2");
-        when(mockResultSet.getString("mailid")).thenReturn("user1@mail.com", "user2@mail.com");
-        when(mockResultSet.getLong("phno")).thenReturn(111L, 222L);
+        when(mockResultSet.getString(2)).thenReturn("User1", "User2");
+        when(mockResultSet.getString(3)).thenReturn("LN1", "LN2");
+        when(mockResultSet.getString(4)).thenReturn("Addr1", "Addr2");
+        when(mockResultSet.getString(1)).thenReturn("user1@mail.com", "user2@mail.com");
+        when(mockResultSet.getLong(5)).thenReturn(111L, 222L);
 
         List<UserBean> users = userService.getAllUsers();
 
@@ -173,7 +177,7 @@ class UserServiceImplTest {
 
     @Test
     void testGetAllUsers_NoUsersFound() throws SQLException {
-        String expectedQuery = "SELECT * FROM  " + CUSTOMER_TABLE_NAME;
+        String expectedQuery = "SELECT " + USER_COLUMNS + " FROM " + CUSTOMER_TABLE_NAME;
         when(mockConnection.prepareStatement(expectedQuery)).thenReturn(mockPreparedStatement);
         when(mockPreparedStatement.executeQuery()).thenReturn(mockResultSet);
         when(mockResultSet.next()).thenReturn(false); // No users
@@ -188,7 +192,7 @@ class UserServiceImplTest {
 
     @Test
     void testGetAllUsers_SQLException() throws SQLException {
-        String expectedQuery = "SELECT * FROM  " + CUSTOMER_TABLE_NAME;
+        String expectedQuery = "SELECT " + USER_COLUMNS + " FROM " + CUSTOMER_TABLE_NAME;
         when(mockConnection.prepareStatement(expectedQuery)).thenReturn(mockPreparedStatement);
         when(mockPreparedStatement.executeQuery()).thenThrow(new SQLException("DB List Error"));
 
@@ -312,8 +316,7 @@ class UserServiceImplTest {
         UserBean newUser = createSampleUser();
         String expectedQuery = "INSERT INTO " + CUSTOMER_TABLE_NAME + " VALUES(?,?,?,?,?,?)";
         when(mockConnection.prepareStatement(expectedQuery)).thenReturn(mockPreparedStatement);
-        when(mockPreparedStatement.executeQuery()).thenReturn(mockResultSet); // As per original code
-        when(mockResultSet.next()).thenReturn(true); // Simulating success for INSERT via executeQuery
+        when(mockPreparedStatement.executeUpdate()).thenReturn(1);
 
         String response = userService.registerUser(newUser);
 
@@ -321,7 +324,7 @@ class UserServiceImplTest {
         verify(mockPreparedStatement).setString(1, newUser.getMailId());
         verify(mockPreparedStatement).setString(2, newUser.getPWord());
         // ... verify other setString/setLong calls
-        verify(mockPreparedStatement).executeQuery();
+        verify(mockPreparedStatement).executeUpdate();
         verify(mockPreparedStatement).close();
     }
 
@@ -330,13 +333,12 @@ class UserServiceImplTest {
         UserBean newUser = createSampleUser();
         String expectedQuery = "INSERT INTO " + CUSTOMER_TABLE_NAME + " VALUES(?,?,?,?,?,?)";
         when(mockConnection.prepareStatement(expectedQuery)).thenReturn(mockPreparedStatement);
-        when(mockPreparedStatement.executeQuery()).thenReturn(mockResultSet);
-        when(mockResultSet.next()).thenReturn(false); // Simulating failure
+        when(mockPreparedStatement.executeUpdate()).thenReturn(0); // Simulating failure
 
         String response = userService.registerUser(newUser);
 
         assertEquals(ResponseCode.FAILURE.toString(), response); // The base response code
-        verify(mockPreparedStatement).executeQuery();
+        verify(mockPreparedStatement).executeUpdate();
         verify(mockPreparedStatement).close();
     }
 
@@ -346,7 +348,7 @@ class UserServiceImplTest {
         String expectedQuery = "INSERT INTO " + CUSTOMER_TABLE_NAME + " VALUES(?,?,?,?,?,?)";
         when(mockConnection.prepareStatement(expectedQuery)).thenReturn(mockPreparedStatement);
         SQLException oraException = new SQLException("ORA-00001: unique constraint violated");
-        when(mockPreparedStatement.executeQuery()).thenThrow(oraException);
+        when(mockPreparedStatement.executeUpdate()).thenThrow(oraException);
 
         String response = userService.registerUser(newUser);
 
@@ -355,13 +357,26 @@ class UserServiceImplTest {
         verify(mockPreparedStatement).close();
     }
 
+    @Test
+    void testRegisterUser_IntegrityViolation_FromOtherDatabases() throws SQLException, TrainException {
+        UserBean newUser = createSampleUser();
+        String expectedQuery = "INSERT INTO " + CUSTOMER_TABLE_NAME + " VALUES(?,?,?,?,?,?)";
+        when(mockConnection.prepareStatement(expectedQuery)).thenReturn(mockPreparedStatement);
+        when(mockPreparedStatement.executeUpdate())
+                .thenThrow(new SQLIntegrityConstraintViolationException("Unique index or primary key violation"));
+
+        String response = userService.registerUser(newUser);
+
+        assertTrue(response.contains("User With Id: " + newUser.getMailId() + " is already registered"));
+    }
+
     @Test
     void testRegisterUser_SQLException_OtherError() throws SQLException, TrainException {
         UserBean newUser = createSampleUser();
         String expectedQuery = "INSERT INTO " + CUSTOMER_TABLE_NAME + " VALUES(?,?,?,?,?,?)";
         when(mockConnection.prepareStatement(expectedQuery)).thenReturn(mockPreparedStatement);
         SQLException otherException = new SQLException("Some other DB error");
-        when(mockPreparedStatement.executeQuery()).thenThrow(otherException);
+        when(mockPreparedStatement.executeUpdate()).thenThrow(otherException);
 
         String response = userService.registerUser(newUser);
 
@@ -378,17 +393,16 @@ class UserServiceImplTest {
         String password = "password123";
         UserBean expectedUser = createSampleUser();
         expectedUser.setPWord(password); // Ensure password matches for login
-        String expectedQuery = "SELECT * FROM " + CUSTOMER_TABLE_NAME + " WHERE MAILID=? AND PWORD=?";
+        String expectedQuery = "SELECT " + USER_COLUMNS + " FROM " + CUSTOMER_TABLE_NAME + " WHERE MAILID=? AND PWORD=?";
 
         when(mockConnection.prepareStatement(expectedQuery)).thenReturn(mockPreparedStatement);
         when(mockPreparedStatement.executeQuery()).thenReturn(mockResultSet);
         when(mockResultSet.next()).thenReturn(true);
-        when(mockResultSet.getString("fname")).thenReturn(expectedUser.getFName());
-        when(mockResultSet.getString("lname")).thenReturn(expectedUser.getLName());
-        when(mockResultSet.getString("addr")).thenReturn(expectedUser.getAddr());
-        when(mockResultSet.getString("mailid")).thenReturn(expectedUser.getMailId());
-        when(mockResultSet.getLong("phno")).thenReturn(expectedUser.getPhNo());
-        when(mockResultSet.getString("pword")).thenReturn(expectedUser.getPWord());
+        when(mockResultSet.getString(2)).thenReturn(expectedUser.getFName());
+        when(mockResultSet.getString(3)).thenReturn(expectedUser.getLName());
+        when(mockResultSet.getString(4)).thenReturn(expectedUser.getAddr());
+        when(mockResultSet.getString(1)).thenReturn(expectedUser.getMailId());
+        when(mockResultSet.getLong(5)).thenReturn(expectedUser.getPhNo());
 
 
         UserBean actualUser = userService.loginUser(username, password);
@@ -408,7 +422,7 @@ class UserServiceImplTest {
     void testLoginUser_Unauthorized() throws SQLException {
         String username = "test@example.com";
         String password = "wrongpassword";
-        String expectedQuery = "SELECT * FROM " + CUSTOMER_TABLE_NAME + " WHERE MAILID=? AND PWORD=?";
+        String expectedQuery = "SELECT " + USER_COLUMNS + " FROM " + CUSTOMER_TABLE_NAME + " WHERE MAILID=? AND PWORD=?";
         when(mockConnection.prepareStatement(expectedQuery)).thenReturn(mockPreparedStatement);
         when(mockPreparedStatement.executeQuery()).thenReturn(mockResultSet);
         when(mockResultSet.next()).thenReturn(false); // Login failed
@@ -425,7 +439,7 @@ class UserServiceImplTest {
     void testLoginUser_SQLException() throws SQLException {
         String username = "test@example.com";
         String password = "password123";
-        String expectedQuery = "SELECT * FROM " + CUSTOMER_TABLE_NAME + " WHERE MAILID=? AND PWORD=?";
+        String expectedQuery = "SELECT " + USER_COLUMNS + " FROM " + CUSTOMER_TABLE_NAME + " WHERE MAILID=? AND PWORD=?";
         when(mockConnection.prepareStatement(expectedQuery)).thenReturn(mockPreparedStatement);
         when(mockPreparedStatement.executeQuery()).thenThrow(new SQLException("DB Login Error"));
 
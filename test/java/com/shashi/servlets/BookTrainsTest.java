@@ -0,0 +1,149 @@
+package test.java.com.shashi.servlets;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.UUID;
+
+import javax.servlet.RequestDispatcher;
+import javax.servlet.ServletContext;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpSession;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+
+import com.shashi.beans.HistoryBean;
+import com.shashi.beans.PaymentBean;
+import com.shashi.beans.TrainBean;
+import com.shashi.beans.TrainException;
+import com.shashi.service.BookingService;
+import com.shashi.service.TrainService;
+import com.shashi.servlets.BookTrains;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class BookTrainsTest {
+
+    private static final String CUSTOMER = "shashi@demo.com";
+
+    @Mock
+    private TrainService trainService;
+
+    @Mock
+    private BookingService bookingService;
+
+    @Mock
+    private HttpSession mockSession;
+
+    @InjectMocks
+    private BookTrains bookTrains;
+
+    private TrainBean train;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        train = new TrainBean();
+        train.setTr_no(10001L);
+        train.setTr_name("JODHPUR EXP");
+        train.setFrom_stn("JODHPUR");
+        train.setTo_stn("HOWRAH");
+        train.setSeats(152);
+        train.setFare(490.5);
+        when(mockSession.getAttribute("mailid")).thenReturn(CUSTOMER);
+        when(trainService.getTrainFromDatabase("10001")).thenReturn(train);
+    }
+
+    // A payment page of the session, as BookTrainPayment leaves it
+    private String payment(String trainNo, int seats) {
+        String token = UUID.randomUUID().toString();
+        PaymentBean payment = new PaymentBean();
+        payment.setTr_no(trainNo);
+        payment.setSeats(seats);
+        payment.setJourneyDate("2026-11-02");
+        payment.setSeatClass("Sleeper(SL)");
+        when(mockSession.getAttribute("payment:" + token)).thenReturn(payment);
+        return token;
+    }
+
+    private String post(String token) throws Exception {
+        HttpServletRequest req = mock(HttpServletRequest.class);
+        HttpServletResponse res = mock(HttpServletResponse.class);
+        when(req.getMethod()).thenReturn("POST");
+        when(req.getCookies()).thenReturn(new Cookie[] { new Cookie("sessionIdForCUSTOMER", "session") });
+        when(req.getSession()).thenReturn(mockSession);
+        when(req.getParameter("bookingtoken")).thenReturn(token);
+        when(req.getServletContext()).thenReturn(mock(ServletContext.class));
+        when(req.getRequestDispatcher(anyString())).thenReturn(mock(RequestDispatcher.class));
+        StringWriter body = new StringWriter();
+        when(res.getWriter()).thenReturn(new PrintWriter(body, true));
+        bookTrains.service(req, res);
+        return body.toString();
+    }
+
+    private HistoryBean ticket(int seats) {
+        HistoryBean ticket = new HistoryBean();
+        ticket.setTransId("PNR-" + seats);
+        ticket.setMailId(CUSTOMER);
+        ticket.setTr_no("10001");
+        ticket.setSeats(seats);
+        ticket.setAmount(490.5 * seats);
+        return ticket;
+    }
+
+    @Test
+    void testPost_BooksThePaymentOfItsOwnToken() throws Exception {
+        String first = payment("10001", 2);
+        String second = payment("10001", 3);
+        when(bookingService.reserveBookingToken(anyString(), eq(CUSTOMER))).thenReturn(true);
+        when(bookingService.bookTicket(train, 2, "02-Nov-2026", CUSTOMER)).thenReturn(ticket(2));
+
+        // the second payment page was opened later, the first form still books its own seats
+        String page = post(first);
+
+        assertTrue(page.contains("2 Seats Booked Successfully"));
+        verify(bookingService).completeBookingToken(first, "PNR-2");
+        verify(bookingService, never()).reserveBookingToken(eq(second), anyString());
+    }
+
+    @Test
+    void testPost_UnknownTokenBooksNothing() throws Exception {
+        String page = post(UUID.randomUUID().toString());
+
+        assertTrue(page.contains("payment session has expired"));
+        verifyNoInteractions(bookingService);
+    }
+
+    @Test
+    void testPost_DuplicateOfRefusedBookingShowsTheRefusal() throws Exception {
+        String token = payment("10001", 2);
+        when(bookingService.reserveBookingToken(token, CUSTOMER)).thenReturn(true);
+        when(bookingService.bookTicket(train, 2, "02-Nov-2026", CUSTOMER))
+                .thenThrow(TrainException.expected(422, "SEATS_NOT_AVAILABLE", "Only 1 Seats are Available in this Train!"));
+        StringWriter duplicate = new StringWriter();
+        // the double click arrives once the refusal is rendered, before the token is given back
+        doAnswer(invocation -> {
+            duplicate.write(post(token));
+            return null;
+        }).when(bookingService).releaseBookingToken(token);
+
+        String page = post(token);
+
+        assertTrue(page.contains("Only 1 Seats are Available"));
+        assertTrue(duplicate.toString().contains("Only 1 Seats are Available"));
+        verify(bookingService, times(1)).bookTicket(any(), anyInt(), anyString(), anyString());
+    }
+}
@@ -0,0 +1,190 @@
+package test.java.com.shashi.servlets;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpSession;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.shashi.beans.HistoryBean;
+import com.shashi.beans.TrainBean;
+import com.shashi.beans.TrainException;
+import com.shashi.constant.ResponseCode;
+import com.shashi.service.BookingService;
+import com.shashi.service.TrainService;
+import com.shashi.servlets.BookingsApi;
+
+@ExtendWith(MockitoExtension.class)
+class BookingsApiTest {
+
+    private static final String CUSTOMER = "shashi@demo.com";
+
+    private static final String KEY = "3f1c2a9e-booking";
+
+    // the key as stored, scoped to the customer
+    private static final String TOKEN = UUID.nameUUIDFromBytes((CUSTOMER + "\n" + KEY).getBytes(StandardCharsets.UTF_8))
+            .toString();
+
+    @Mock
+    private TrainService trainService;
+
+    @Mock
+    private BookingService bookingService;
+
+    @Mock
+    private HttpServletRequest mockRequest;
+
+    @Mock
+    private HttpServletResponse mockResponse;
+
+    @Mock
+    private HttpSession mockSession;
+
+    @InjectMocks
+    private BookingsApi bookingsApi;
+
+    private TrainBean train;
+
+    @BeforeEach
+    void setUp() {
+        when(mockRequest.getMethod()).thenReturn("POST");
+        when(mockRequest.getCookies()).thenReturn(new Cookie[] { new Cookie("sessionIdForCUSTOMER", "session") });
+        when(mockRequest.getSession()).thenReturn(mockSession);
+        when(mockSession.getAttribute("mailid")).thenReturn(CUSTOMER);
+        when(mockRequest.getParameter("trainNo")).thenReturn("10001");
+        when(mockRequest.getParameter("seats")).thenReturn("2");
+        when(mockRequest.getParameter("journeyDate")).thenReturn("2026-11-02");
+        when(mockRequest.getHeader("Idempotency-Key")).thenReturn(KEY);
+
+        train = new TrainBean();
+        train.setTr_no(10001L);
+        train.setTr_name("JODHPUR EXP");
+        train.setSeats(152);
+        train.setFare(490.5);
+    }
+
+    private HistoryBean booking() {
+        HistoryBean booking = new HistoryBean();
+        booking.setTransId("PNR-1");
+        booking.setMailId(CUSTOMER);
+        booking.setTr_no("10001");
+        booking.setSeats(2);
+        booking.setDate("2026-11-02");
+        booking.setAmount(981.0);
+        return booking;
+    }
+
+    @Test
+    void testPost_RetryAfterFailedBookingBooksAgain() throws Exception {
+        when(bookingService.reserveBookingToken(TOKEN, CUSTOMER)).thenReturn(true);
+        when(trainService.getTrainFromDatabase("10001")).thenReturn(train);
+        when(bookingService.bookTicket(train, 2, "02-Nov-2026", CUSTOMER))
+                .thenThrow(TrainException.of(ResponseCode.DATABASE_CONNECTION_FAILURE)).thenReturn(booking());
+
+        TrainException e = assertThrows(TrainException.class, () -> bookingsApi.service(mockRequest, mockResponse));
+        assertEquals(ResponseCode.DATABASE_CONNECTION_FAILURE.name(), e.getErrorCode());
+        verify(bookingService).releaseBookingToken(TOKEN);
+
+        // the key is free again, the retry books instead of answering 409 BOOKING_IN_PROGRESS
+        StringWriter body = new StringWriter();
+        when(mockResponse.getWriter()).thenReturn(new PrintWriter(body));
+        bookingsApi.service(mockRequest, mockResponse);
+
+        verify(mockResponse).setStatus(HttpServletResponse.SC_CREATED);
+        verify(bookingService).completeBookingToken(TOKEN, "PNR-1");
+        verify(bookingService, never()).getBookingByToken(anyString());
+        verify(bookingService, times(1)).releaseBookingToken(TOKEN);
+        assertTrue(body.toString().contains("\"transId\":\"PNR-1\""));
+    }
+
+    @Test
+    void testPost_UnknownTrainReleasesKey() throws Exception {
+        when(bookingService.reserveBookingToken(TOKEN, CUSTOMER)).thenReturn(true);
+        when(trainService.getTrainFromDatabase("10001")).thenReturn(null);
+
+        TrainException e = assertThrows(TrainException.class, () -> bookingsApi.service(mockRequest, mockResponse));
+
+        assertEquals("TRAIN_NOT_FOUND", e.getErrorCode());
+        verify(bookingService).releaseBookingToken(TOKEN);
+    }
+
+    @Test
+    void testPost_KeyOfACompletedBookingIsKept() throws Exception {
+        when(bookingService.reserveBookingToken(TOKEN, CUSTOMER)).thenReturn(true);
+        when(trainService.getTrainFromDatabase("10001")).thenReturn(train);
+        when(bookingService.bookTicket(train, 2, "02-Nov-2026", CUSTOMER)).thenReturn(booking());
+        doThrow(TrainException.of(ResponseCode.DATABASE_CONNECTION_FAILURE)).when(bookingService)
+                .completeBookingToken(TOKEN, "PNR-1");
+
+        assertThrows(TrainException.class, () -> bookingsApi.service(mockRequest, mockResponse));
+
+        // the seats are taken, a retry must not book them a second time
+        verify(bookingService, never()).releaseBookingToken(anyString());
+    }
+
+    @Test
+    void testPost_KeyLongerThanTheTokenColumnRefused() throws Exception {
+        when(mockRequest.getHeader("Idempotency-Key")).thenReturn(KEY + "-0123456789abcdefghij");
+
+        TrainException e = assertThrows(TrainException.class, () -> bookingsApi.service(mockRequest, mockResponse));
+
+        assertEquals(ResponseCode.BAD_REQUEST.name(), e.getErrorCode());
+        verifyNoInteractions(bookingService);
+    }
+
+    @Test
+    void testPost_ReplayReturnsFirstBooking() throws Exception {
+        when(bookingService.reserveBookingToken(TOKEN, CUSTOMER)).thenReturn(false);
+        when(bookingService.getBookingByToken(TOKEN)).thenReturn(booking());
+        StringWriter body = new StringWriter();
+        when(mockResponse.getWriter()).thenReturn(new PrintWriter(body));
+
+        bookingsApi.service(mockRequest, mockResponse);
+
+        verify(mockResponse).setStatus(HttpServletResponse.SC_OK);
+        verify(bookingService, never()).bookTicket(any(), anyInt(), anyString(), anyString());
+        assertTrue(body.toString().contains("\"transId\":\"PNR-1\""));
+    }
+
+    @Test
+    void testPost_ReplayWithAnotherBodyRefused() throws Exception {
+        when(mockRequest.getParameter("seats")).thenReturn("3");
+        when(bookingService.reserveBookingToken(TOKEN, CUSTOMER)).thenReturn(false);
+        when(bookingService.getBookingByToken(TOKEN)).thenReturn(booking());
+
+        TrainException e = assertThrows(TrainException.class, () -> bookingsApi.service(mockRequest, mockResponse));
+
+        assertEquals(422, e.getStatusCode());
+        assertEquals("IDEMPOTENCY_KEY_REUSED", e.getErrorCode());
+        verify(bookingService, never()).bookTicket(any(), anyInt(), anyString(), anyString());
+    }
+
+    @Test
+    void testPost_SameKeyOfAnotherCustomerIsAnotherToken() throws Exception {
+        when(mockSession.getAttribute("mailid")).thenReturn("other@demo.com");
+        when(bookingService.reserveBookingToken(anyString(), eq("other@demo.com"))).thenReturn(true);
+        when(trainService.getTrainFromDatabase("10001")).thenReturn(train);
+        when(bookingService.bookTicket(train, 2, "02-Nov-2026", "other@demo.com")).thenReturn(booking());
+        when(mockResponse.getWriter()).thenReturn(new PrintWriter(new StringWriter()));
+
+        bookingsApi.service(mockRequest, mockResponse);
+
+        verify(bookingService, never()).reserveBookingToken(eq(TOKEN), anyString());
+        verify(mockResponse).setStatus(HttpServletResponse.SC_CREATED);
+    }
+}
@@ -0,0 +1,59 @@
+package test.java.com.shashi.servlets;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.shashi.beans.TrainException;
+import com.shashi.constant.ResponseCode;
+import com.shashi.servlets.MetricsServlet;
+
+class MetricsServletTest {
+
+    private HttpServletRequest mockRequest;
+
+    private HttpServletResponse mockResponse;
+
+    @BeforeEach
+    void setUp() {
+        mockRequest = mock(HttpServletRequest.class);
+        mockResponse = mock(HttpServletResponse.class);
+        when(mockRequest.getMethod()).thenReturn("GET");
+    }
+
+    @Test
+    void testGet_RefusedWithoutAdminLogin() throws Exception {
+        when(mockRequest.getCookies()).thenReturn(new Cookie[] { new Cookie("sessionIdForCUSTOMER", "session") });
+        // no metricsToken is set, a bearer token proves nothing
+        when(mockRequest.getHeader("Authorization")).thenReturn("Bearer ");
+
+        TrainException e = assertThrows(TrainException.class,
+                () -> new MetricsServlet().service(mockRequest, mockResponse));
+
+        assertEquals(ResponseCode.SESSION_EXPIRED.name(), e.getErrorCode());
+        verify(mockResponse, never()).getWriter();
+        verify(mockResponse, never()).setContentType(anyString());
+    }
+
+    @Test
+    void testGet_ServedToAdmin() throws Exception {
+        when(mockRequest.getCookies()).thenReturn(new Cookie[] { new Cookie("sessionIdForADMIN", "session") });
+        StringWriter body = new StringWriter();
+        when(mockResponse.getWriter()).thenReturn(new PrintWriter(body));
+
+        new MetricsServlet().service(mockRequest, mockResponse);
+
+        verify(mockResponse).setContentType("text/plain; version=0.0.4");
+        assertTrue(body.toString().contains("# TYPE"));
+    }
+}
@@ -0,0 +1,84 @@
+package test.java.com.shashi.utility;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.jupiter.api.Test;
+
+import com.shashi.utility.AsyncLogWriter;
+import com.shashi.utility.Log;
+
+class AsyncLogWriterTest {
+
+    @Test
+    void testEventsAreWrittenAsJsonLines() {
+        StringWriter out = new StringWriter();
+        AsyncLogWriter writer = new AsyncLogWriter(out, 16, false);
+        Log log = new Log("Test", Log.Level.INFO, writer);
+
+        log.debug("not written");
+        log.warn("Statement failed", "query", "TrainService.getTrainById", "rows", 0, "error", "ORA-00942 \"TRAIN\"");
+        writer.close();
+
+        String[] lines = out.toString().split("\n");
+        assertEquals(1, lines.length);
+        assertTrue(lines[0].startsWith("{\"time\":\""));
+        assertTrue(lines[0].contains("\"level\":\"WARN\",\"logger\":\"Test\",\"thread\":\""));
+        assertTrue(lines[0].endsWith("\"message\":\"Statement failed\",\"query\":\"TrainService.getTrainById\","
+                + "\"rows\":0,\"error\":\"ORA-00942 \\\"TRAIN\\\"\"}"));
+    }
+
+    @Test
+    void testStackTraceOfErrors() {
+        StringWriter out = new StringWriter();
+        AsyncLogWriter writer = new AsyncLogWriter(out, 16, false);
+
+        new Log("Test", Log.Level.INFO, writer).error("Connection failed", new IllegalStateException("down"));
+        writer.close();
+
+        assertTrue(out.toString().contains("\"error\":\"java.lang.IllegalStateException: down\",\"stack\":\""));
+        assertTrue(out.toString().contains("testStackTraceOfErrors"));
+    }
+
+    @Test
+    void testFullBufferDropsEvents() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        StringWriter text = new StringWriter();
+        // the writer thread stays stuck on the first event until released
+        Writer out = new Writer() {
+            @Override
+            public void write(char[] buffer, int offset, int length) throws IOException {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    throw new IOException(e);
+                }
+                text.write(buffer, offset, length);
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        AsyncLogWriter writer = new AsyncLogWriter(out, 4, false);
+        Log log = new Log("Test", Log.Level.INFO, writer);
+
+        for (int i = 0; i < 20; i++) {
+            log.info("event " + i);
+        }
+        release.countDown();
+        writer.close();
+
+        long written = text.toString().split("\n").length;
+        assertTrue(writer.getDroppedCount() > 0);
+        assertEquals(20, written + writer.getDroppedCount());
+    }
+}
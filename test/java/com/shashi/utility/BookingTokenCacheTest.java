@@ -0,0 +1,49 @@
+package test.java.com.shashi.utility;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.Test;
+
+import com.shashi.utility.BookingTokenCache;
+
+class BookingTokenCacheTest {
+
+    @Test
+    void testClaim_FirstRequestOwnsTheToken() {
+        String token = UUID.randomUUID().toString();
+
+        assertNull(BookingTokenCache.claim(token, new CompletableFuture<String>()));
+    }
+
+    @Test
+    void testClaim_DuplicateGetsTheResultOfTheFirst() {
+        String token = UUID.randomUUID().toString();
+        CompletableFuture<String> first = new CompletableFuture<String>();
+        BookingTokenCache.claim(token, first);
+
+        assertSame(first, BookingTokenCache.claim(token, new CompletableFuture<String>()));
+    }
+
+    @Test
+    void testRelease_TokenCanBeClaimedAgain() {
+        String token = UUID.randomUUID().toString();
+        BookingTokenCache.claim(token, new CompletableFuture<String>());
+        int size = BookingTokenCache.size();
+
+        BookingTokenCache.release(token);
+
+        assertEquals(size - 1, BookingTokenCache.size());
+        assertNull(BookingTokenCache.claim(token, new CompletableFuture<String>()));
+    }
+
+    @Test
+    void testClaim_TokensAreIndependent() {
+        CompletableFuture<String> first = new CompletableFuture<String>();
+        BookingTokenCache.claim(UUID.randomUUID().toString(), first);
+
+        assertNull(BookingTokenCache.claim(UUID.randomUUID().toString(), new CompletableFuture<String>()));
+    }
+}
@@ -0,0 +1,161 @@
+package test.java.com.shashi.utility;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+
+import javax.servlet.DispatcherType;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.MockedStatic;
+
+import com.shashi.beans.TrainBean;
+import com.shashi.utility.CatalogSnapshot;
+import com.shashi.utility.CatalogVersion;
+import com.shashi.utility.DBUtil;
+
+class CatalogVersionTest {
+
+    private MockedStatic<DBUtil> mockedDBUtil;
+
+    private PreparedStatement ps;
+
+    private ResultSet rs;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        Connection con = mock(Connection.class);
+        ps = mock(PreparedStatement.class);
+        rs = mock(ResultSet.class);
+        mockedDBUtil = mockStatic(DBUtil.class);
+        mockedDBUtil.when(DBUtil::getConnection).thenReturn(con);
+        when(con.prepareStatement(anyString())).thenReturn(ps);
+        when(ps.executeQuery()).thenReturn(rs);
+        when(rs.next()).thenReturn(true);
+        when(rs.getLong(1)).thenReturn(41L);
+        // the shared version is read again after a write of this node
+        CatalogVersion.bump();
+    }
+
+    @AfterEach
+    void tearDown() {
+        mockedDBUtil.close();
+    }
+
+    private HttpServletRequest request(String ifNoneMatch) {
+        HttpServletRequest req = mock(HttpServletRequest.class);
+        when(req.getDispatcherType()).thenReturn(DispatcherType.REQUEST);
+        when(req.getHeader("If-None-Match")).thenReturn(ifNoneMatch);
+        return req;
+    }
+
+    @Test
+    void testNotModified_MatchingTag() {
+        HttpServletResponse res = mock(HttpServletResponse.class);
+        String etag = CatalogVersion.etag("user-trains");
+
+        assertTrue(CatalogVersion.notModified(request("\"other\", " + etag), res, "user-trains"));
+
+        verify(res).setHeader("ETag", etag);
+        verify(res).setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+    }
+
+    @Test
+    void testNotModified_NewSharedVersionInvalidatesTag() throws Exception {
+        HttpServletResponse res = mock(HttpServletResponse.class);
+        String etag = CatalogVersion.etag("user-trains");
+
+        when(rs.getLong(1)).thenReturn(42L);
+        CatalogVersion.bump();
+
+        assertFalse(CatalogVersion.notModified(request(etag), res, "user-trains"));
+        verify(res).setHeader("ETag", CatalogVersion.etag("user-trains"));
+        verify(res, never()).setStatus(anyInt());
+    }
+
+    @Test
+    void testEtag_SameForEveryNodeAtTheSameVersion() {
+        // derived from the database row only, not from the start time of this node
+        assertEquals("W/\"" + Long.toString(41, 36) + "-user_trains\"", CatalogVersion.etag("user-trains"));
+    }
+
+    @Test
+    void testEtag_SharedVersionReadOncePerCheckInterval() throws Exception {
+        String etag = CatalogVersion.etag("user-trains");
+
+        assertEquals(etag, CatalogVersion.etag("user-trains"));
+        assertEquals(etag, CatalogVersion.etag("admin-trains").replace("admin", "user"));
+        verify(ps, times(1)).executeQuery();
+    }
+
+    @Test
+    void testNotModified_NoTagWithoutSharedVersion() throws Exception {
+        HttpServletResponse res = mock(HttpServletResponse.class);
+        when(ps.executeQuery()).thenThrow(new SQLException("Connection reset"));
+        CatalogVersion.bump();
+
+        assertNull(CatalogVersion.etag("user-trains"));
+        assertFalse(CatalogVersion.notModified(request("*"), res, "user-trains"));
+        verifyNoInteractions(res);
+    }
+
+    @Test
+    void testNotModified_NoTagWhileWarming(@TempDir Path snapshotDir) throws Exception {
+        CatalogSnapshot.reset(snapshotDir.resolve("train-catalog.snapshot").toFile());
+        try {
+            TrainBean train = new TrainBean();
+            train.setTr_no(12345L);
+            CatalogSnapshot.update(Arrays.asList(train));
+            CatalogSnapshot.warmUp();
+            HttpServletResponse res = mock(HttpServletResponse.class);
+
+            // the copy of the previous run may be older than the shared version
+            assertFalse(CatalogVersion.notModified(request(CatalogVersion.etag("user-trains")), res, "user-trains"));
+            CatalogSnapshot.markStale(res);
+
+            verify(res, never()).setHeader(eq("ETag"), anyString());
+            verify(res).setHeader("Cache-Control", "no-store");
+            verify(res, never()).setStatus(anyInt());
+        } finally {
+            CatalogSnapshot.reset(null);
+        }
+    }
+
+    @Test
+    void testNotModified_NoHeader() {
+        HttpServletResponse res = mock(HttpServletResponse.class);
+
+        assertFalse(CatalogVersion.notModified(request(null), res, "admin-trains"));
+        verify(res, never()).setStatus(anyInt());
+    }
+
+    @Test
+    void testNotModified_AsyncRedispatchKeepsFirstTag() {
+        HttpServletRequest req = mock(HttpServletRequest.class);
+        HttpServletResponse res = mock(HttpServletResponse.class);
+        when(req.getDispatcherType()).thenReturn(DispatcherType.ASYNC);
+
+        assertFalse(CatalogVersion.notModified(req, res, "admin-trains"));
+        verifyNoInteractions(res);
+    }
+
+    @Test
+    void testEtag_VariantIsSanitized() {
+        String etag = CatalogVersion.etag("admin-train-1\"0");
+
+        assertTrue(etag.startsWith("W/\""));
+        assertTrue(etag.endsWith("-admin_train_1_0\""));
+    }
+}
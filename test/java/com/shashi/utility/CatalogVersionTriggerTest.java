@@ -0,0 +1,65 @@
+package test.java.com.shashi.utility;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class CatalogVersionTriggerTest {
+
+    private Connection con;
+
+    private Statement st;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        con = DriverManager.getConnection("jdbc:h2:mem:catalogversiontrigger;MODE=Oracle");
+        st = con.createStatement();
+        st.execute("CREATE TABLE TRAIN (TR_NO NUMBER(10) PRIMARY KEY, TR_NAME VARCHAR2(70), FROM_STN VARCHAR2(20),"
+                + " TO_STN VARCHAR2(20), SEATS NUMBER(4), FARE NUMBER(6,2))");
+        st.execute("CREATE TABLE CATALOG_VERSION (ID NUMBER(1) PRIMARY KEY, VERSION NUMBER(19) NOT NULL)");
+        st.execute("INSERT INTO CATALOG_VERSION VALUES(1, 0)");
+        st.execute("CREATE TRIGGER TRAIN_CATALOG_VERSION AFTER INSERT, UPDATE, DELETE ON TRAIN FOR EACH ROW"
+                + " CALL \"com.shashi.utility.CatalogVersionTrigger\"");
+        st.execute("INSERT INTO TRAIN VALUES(10001, 'JODHPUR EXP', 'HOWRAH', 'JODHPUR', 152, 490.50)");
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        con.close();
+    }
+
+    private long version() throws Exception {
+        try (ResultSet rs = st.executeQuery("SELECT VERSION FROM CATALOG_VERSION WHERE ID=1")) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+
+    @Test
+    void testFire_BookingLeavesVersion() throws Exception {
+        long before = version();
+
+        assertEquals(1, st.executeUpdate("UPDATE TRAIN SET SEATS=SEATS-2 WHERE TR_NO=10001 AND SEATS>=2"));
+
+        assertEquals(before, version());
+    }
+
+    @Test
+    void testFire_CatalogChangesCounted() throws Exception {
+        assertEquals(1, version());
+
+        st.executeUpdate("UPDATE TRAIN SET FARE=500 WHERE TR_NO=10001");
+        assertEquals(2, version());
+        st.executeUpdate("UPDATE TRAIN SET TR_NAME='JODHPUR MAIL', SEATS=100 WHERE TR_NO=10001");
+        assertEquals(3, version());
+        st.executeUpdate("DELETE FROM TRAIN WHERE TR_NO=10001");
+        assertEquals(4, version());
+    }
+}
@@ -0,0 +1,104 @@
+package test.java.com.shashi.utility;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.sql.SQLTimeoutException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+import com.shashi.utility.CircuitBreaker;
+import com.shashi.utility.GuardedConnection;
+
+class CircuitBreakerTest {
+
+    private final AtomicLong now = new AtomicLong(1_000_000);
+
+    private final CircuitBreaker breaker = new CircuitBreaker(10, 4, 50, 5000, now::get);
+
+    @Test
+    void testOpensAtTheFailureRate() {
+        breaker.onSuccess();
+        breaker.onSuccess();
+        breaker.onFailure();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+
+        breaker.onFailure();
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquire());
+        assertEquals(1, breaker.getRejectedCount());
+    }
+
+    @Test
+    void testOldFailuresLeaveTheWindow() {
+        breaker.onFailure();
+        breaker.onFailure();
+        breaker.onFailure();
+        now.addAndGet(11_000);
+
+        breaker.onFailure();
+
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    void testProbeClosesOrReopens() {
+        for (int i = 0; i < 4; i++) {
+            breaker.onFailure();
+        }
+        now.addAndGet(5000);
+
+        assertTrue(breaker.tryAcquire());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquire(), "only one probe at a time");
+        breaker.onFailure();
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+
+        now.addAndGet(5000);
+        assertTrue(breaker.tryAcquire());
+        breaker.onSuccess();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertTrue(breaker.tryAcquire());
+    }
+
+    @Test
+    void testCountsEveryCallFromConcurrentThreads() throws InterruptedException {
+        CircuitBreaker busy = new CircuitBreaker(10, 8000, 50, 5000, now::get);
+        int threads = 8;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        for (int t = 0; t < threads; t++) {
+            executor.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                for (int i = 0; i < 1000; i++) {
+                    busy.onFailure();
+                }
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+
+        // only opens when none of the 8000 failures was lost
+        assertEquals(CircuitBreaker.State.OPEN, busy.getState());
+    }
+
+    @Test
+    void testOnlyOutagesCountAsFailures() {
+        assertTrue(GuardedConnection.isOutage(new SQLTimeoutException("ORA-01013")));
+        assertTrue(GuardedConnection.isOutage(new SQLException("IO Error", "08006", 17002)));
+        assertFalse(GuardedConnection.isOutage(new SQLIntegrityConstraintViolationException("ORA-00001")));
+        assertFalse(GuardedConnection.isOutage(new SQLException("ORA-00942", "42000", 942)));
+    }
+}
@@ -0,0 +1,74 @@
+package test.java.com.shashi.utility;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import org.junit.jupiter.api.Test;
+
+import com.shashi.utility.HtmlTemplate;
+
+class HtmlTemplateTest {
+
+    @Test
+    void testWrite_FillsSlotsInOrder() throws IOException {
+        HtmlTemplate template = HtmlTemplate.compile("<tr><td>{}</td><td>{}</td><td>{} RS</td></tr>");
+        StringWriter out = new StringWriter();
+
+        template.write(out, "JODHPUR EXP", 10001L, 490.5);
+
+        assertEquals(3, template.getSlotCount());
+        assertEquals("<tr><td>JODHPUR EXP</td><td>10001</td><td>490.5 RS</td></tr>", out.toString());
+    }
+
+    @Test
+    void testWrite_EscapesValuesButNotTemplate() throws IOException {
+        HtmlTemplate template = HtmlTemplate.compile("<a href='view?from={}&to={}'>{}</a>");
+        StringWriter out = new StringWriter();
+
+        template.write(out, "A'B", "<script>", "Tom & \"Jerry\"");
+
+        assertEquals("<a href='view?from=A%27B&to=%3Cscript%3E'>Tom &amp; &quot;Jerry&quot;</a>", out.toString());
+    }
+
+    @Test
+    void testWrite_UrlEncodesQueryStringValues() throws IOException {
+        HtmlTemplate template = HtmlTemplate.compile(
+                "<td><a href='booktrainbyref?trainNo={}&fromStn={}&toStn={}'>{}</a></td><td>{}</td>");
+        StringWriter out = new StringWriter();
+
+        template.write(out, 10001L, "NEW DELHI", "A&B#1", "A&B #1", "50% off?");
+
+        assertEquals("<td><a href='booktrainbyref?trainNo=10001&fromStn=NEW+DELHI&toStn=A%26B%231'>A&amp;B #1</a>"
+                + "</td><td>50% off?</td>", out.toString());
+    }
+
+    @Test
+    void testWrite_NullValueWritesNothing() throws IOException {
+        HtmlTemplate template = HtmlTemplate.compile("<td>{}</td>");
+        StringWriter out = new StringWriter();
+
+        template.write(out, (Object) null);
+
+        assertEquals("<td></td>", out.toString());
+    }
+
+    @Test
+    void testWrite_WrongNumberOfValues() {
+        HtmlTemplate template = HtmlTemplate.compile("<td>{}</td><td>{}</td>");
+
+        assertThrows(IllegalArgumentException.class, () -> template.write(new StringWriter(), "only one"));
+    }
+
+    @Test
+    void testCompile_NoSlots() throws IOException {
+        HtmlTemplate template = HtmlTemplate.compile("</table></div>");
+        StringWriter out = new StringWriter();
+
+        template.write(out);
+
+        assertEquals(0, template.getSlotCount());
+        assertEquals("</table></div>", out.toString());
+    }
+}
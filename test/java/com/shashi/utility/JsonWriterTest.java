@@ -0,0 +1,60 @@
+package test.java.com.shashi.utility;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import org.junit.jupiter.api.Test;
+
+import com.shashi.utility.JsonWriter;
+
+class JsonWriterTest {
+
+    @Test
+    void testNestedObjectsAndArrays() throws IOException {
+        StringWriter out = new StringWriter();
+        JsonWriter json = new JsonWriter(out);
+
+        json.beginObject().name("trains").beginArray();
+        json.beginObject().name("trainNo").value(10001L).name("name").value("JODHPUR EXP").endObject();
+        json.beginObject().name("trainNo").value(10002L).name("fare").value(550.5).endObject();
+        json.endArray().name("count").value(2).name("cached").value(false).endObject();
+
+        assertEquals("{\"trains\":[{\"trainNo\":10001,\"name\":\"JODHPUR EXP\"},{\"trainNo\":10002,\"fare\":550.5}],"
+                + "\"count\":2,\"cached\":false}", out.toString());
+    }
+
+    @Test
+    void testStringsAreEscaped() throws IOException {
+        StringWriter out = new StringWriter();
+
+        new JsonWriter(out).beginArray().value("say \"hi\"\\\n").value("tab\there\u0001").endArray();
+
+        assertEquals("[\"say \\\"hi\\\"\\\\\\n\",\"tab\\there\\u0001\"]", out.toString());
+    }
+
+    @Test
+    void testNullsAndNonFiniteNumbers() throws IOException {
+        StringWriter out = new StringWriter();
+
+        new JsonWriter(out).beginObject().name("name").value((String) null).name("fare").value(Double.NaN)
+                .name("seats").value((Integer) null).endObject();
+
+        assertEquals("{\"name\":null,\"fare\":null,\"seats\":null}", out.toString());
+    }
+
+    @Test
+    void testEmptyContainers() throws IOException {
+        StringWriter out = new StringWriter();
+
+        new JsonWriter(out).beginObject().name("bookings").beginArray().endArray().endObject();
+
+        assertEquals("{\"bookings\":[]}", out.toString());
+    }
+
+    @Test
+    void testCloseWithoutOpen() {
+        assertThrows(IllegalStateException.class, () -> new JsonWriter(new StringWriter()).endObject());
+    }
+}
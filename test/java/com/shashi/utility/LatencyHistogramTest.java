@@ -0,0 +1,65 @@
+package test.java.com.shashi.utility;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+import com.shashi.utility.LatencyHistogram;
+
+class LatencyHistogramTest {
+
+    @Test
+    void testSmallValuesAreExact() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 100; i++) {
+            histogram.record(i);
+        }
+
+        assertEquals(100, histogram.getCount());
+        assertEquals(50, histogram.getValueAtPercentile(50));
+        assertEquals(99, histogram.getValueAtPercentile(99));
+        assertEquals(100, histogram.getValueAtPercentile(100));
+        assertEquals(50.5, histogram.getMean(), 0.001);
+    }
+
+    @Test
+    void testLargeValuesWithinBucketPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < 999; i++) {
+            histogram.record(1000 + i % 10);
+        }
+        histogram.record(5_000_000);
+
+        long p50 = histogram.getValueAtPercentile(50);
+        assertTrue(p50 >= 1000 && p50 <= 1009 * 1.016, "p50 was " + p50);
+        long p999 = histogram.getValueAtPercentile(99.9);
+        assertTrue(p999 <= 1009 * 1.016, "p99.9 was " + p999);
+        assertEquals(5_000_000, histogram.getValueAtPercentile(100));
+        assertEquals(5_000_000, histogram.getMax());
+    }
+
+    @Test
+    void testCountAtOrBelow() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(10);
+        histogram.record(20);
+        histogram.record(300_000);
+
+        assertEquals(0, histogram.getCountAtOrBelow(5));
+        assertEquals(2, histogram.getCountAtOrBelow(100));
+        assertEquals(3, histogram.getCountAtOrBelow(1_000_000));
+    }
+
+    @Test
+    void testEmptyAndOutOfRange() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getValueAtPercentile(99));
+
+        histogram.record(-5);
+        histogram.record(Long.MAX_VALUE);
+
+        assertEquals(2, histogram.getCount());
+        assertEquals(0, histogram.getValueAtPercentile(50));
+        assertTrue(histogram.getMax() > 100_000_000_000L);
+    }
+}
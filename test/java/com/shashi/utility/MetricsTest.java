@@ -0,0 +1,59 @@
+package test.java.com.shashi.utility;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.sql.SQLException;
+
+import org.junit.jupiter.api.Test;
+
+import com.shashi.utility.Metrics;
+
+class MetricsTest {
+
+    @Test
+    void testRequestHistogramInPrometheusFormat() throws IOException {
+        Metrics.recordRequest("/test-requests", 3_000_000); // 3 ms
+        Metrics.recordRequest("/test-requests", 30_000_000); // 30 ms
+
+        String text = scrape();
+
+        assertTrue(text.contains("# TYPE trainbook_http_request_duration_seconds histogram"));
+        assertTrue(text.contains("trainbook_http_request_duration_seconds_bucket{path=\"/test-requests\",le=\"0.001\"} 0"));
+        assertTrue(text.contains("trainbook_http_request_duration_seconds_bucket{path=\"/test-requests\",le=\"0.005\"} 1"));
+        assertTrue(text.contains("trainbook_http_request_duration_seconds_bucket{path=\"/test-requests\",le=\"0.05\"} 2"));
+        assertTrue(text.contains("trainbook_http_request_duration_seconds_bucket{path=\"/test-requests\",le=\"+Inf\"} 2"));
+        assertTrue(text.contains("trainbook_http_request_duration_seconds_count{path=\"/test-requests\"} 2"));
+        assertTrue(text.contains("trainbook_http_request_duration_seconds_sum{path=\"/test-requests\"} 0.033"));
+    }
+
+    @Test
+    void testQueryTimerRecordsFailedCalls() throws IOException {
+        assertEquals(Integer.valueOf(1), assertDoesNotThrow(() -> Metrics.timeQuery("Test.ok", () -> 1)));
+        assertThrows(SQLException.class, () -> Metrics.timeQuery("Test.failing", () -> {
+            throw new SQLException("down");
+        }));
+
+        String text = scrape();
+
+        assertTrue(text.contains("trainbook_db_query_duration_seconds_count{query=\"Test.ok\"} 1"));
+        assertTrue(text.contains("trainbook_db_query_duration_seconds_count{query=\"Test.failing\"} 1"));
+    }
+
+    @Test
+    void testGauges() throws IOException {
+        Metrics.gauge("test_items", "Items for the test", () -> 42);
+
+        String text = scrape();
+
+        assertTrue(text.contains("# TYPE trainbook_test_items gauge\ntrainbook_test_items 42\n"));
+        assertTrue(text.contains("# TYPE trainbook_db_executor_rejected_total counter"));
+    }
+
+    private static String scrape() throws IOException {
+        StringWriter out = new StringWriter();
+        Metrics.writePrometheus(out);
+        return out.toString();
+    }
+}
@@ -0,0 +1,94 @@
+package test.java.com.shashi.utility;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.shashi.beans.OutboxEvent;
+import com.shashi.service.OutboxService;
+import com.shashi.utility.OutboxRelay;
+import com.shashi.utility.OutboxSink;
+
+@ExtendWith(MockitoExtension.class)
+class OutboxRelayTest {
+
+    @Mock
+    private OutboxService mockOutboxService;
+
+    @Mock
+    private OutboxSink mockSink;
+
+    private OutboxRelay relay;
+
+    @BeforeEach
+    void setUp() {
+        relay = new OutboxRelay(mockOutboxService, mockSink, 2);
+    }
+
+    private OutboxEvent createEvent(String eventId) {
+        OutboxEvent event = new OutboxEvent();
+        event.setEventId(eventId);
+        event.setTransId("T" + eventId);
+        event.setEventType(OutboxEvent.BOOKING_CONFIRMED);
+        event.setPayload("{}");
+        return event;
+    }
+
+    @Test
+    void testRelayBatch_PublishesThenMarksDelivered() throws Exception {
+        List<OutboxEvent> events = Arrays.asList(createEvent("E1"), createEvent("E2"));
+        when(mockOutboxService.getPendingEvents(2)).thenReturn(events);
+
+        assertEquals(2, relay.relayBatch());
+
+        InOrder inOrder = inOrder(mockSink, mockOutboxService);
+        inOrder.verify(mockSink).publish(events);
+        inOrder.verify(mockOutboxService).markDelivered(events);
+    }
+
+    @Test
+    void testRelayBatch_NothingPending() throws Exception {
+        when(mockOutboxService.getPendingEvents(2)).thenReturn(Collections.emptyList());
+
+        assertEquals(0, relay.relayBatch());
+
+        verify(mockSink, never()).publish(anyList());
+        verify(mockOutboxService, never()).markDelivered(anyList());
+    }
+
+    @Test
+    void testRun_SinkFailure_EventsStayPending() throws Exception {
+        List<OutboxEvent> events = Arrays.asList(createEvent("E1"));
+        when(mockOutboxService.getPendingEvents(2)).thenReturn(events);
+        doThrow(new IOException("Sink unavailable")).when(mockSink).publish(events);
+
+        relay.run();
+
+        verify(mockOutboxService, never()).markDelivered(anyList());
+    }
+
+    @Test
+    void testRun_DrainsFullBatches() throws Exception {
+        List<OutboxEvent> fullBatch = Arrays.asList(createEvent("E1"), createEvent("E2"));
+        List<OutboxEvent> lastBatch = Arrays.asList(createEvent("E3"));
+        when(mockOutboxService.getPendingEvents(2)).thenReturn(fullBatch).thenReturn(lastBatch);
+
+        relay.run();
+
+        verify(mockOutboxService, times(2)).getPendingEvents(2);
+        verify(mockOutboxService).markDelivered(fullBatch);
+        verify(mockOutboxService).markDelivered(lastBatch);
+    }
+}
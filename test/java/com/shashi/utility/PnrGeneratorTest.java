@@ -0,0 +1,77 @@
+package test.java.com.shashi.utility;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import com.shashi.utility.PnrGenerator;
+
+class PnrGeneratorTest {
+
+    @Test
+    void testNextPnr_FixedWidthAndOrdered() {
+        String previous = PnrGenerator.nextPnr();
+        for (int i = 0; i < 10000; i++) {
+            String next = PnrGenerator.nextPnr();
+            assertEquals(13, next.length());
+            assertTrue(next.compareTo(previous) > 0, next + " should sort after " + previous);
+            previous = next;
+        }
+    }
+
+    @Test
+    void testNextId_ContainsNodeId() {
+        long id = PnrGenerator.nextId();
+        assertEquals(PnrGenerator.getNodeId(), (id >>> 12) & 1023);
+    }
+
+    @Test
+    void testCheckNodeId_RejectsIdsOutsideTenBits() {
+        assertEquals(0, PnrGenerator.checkNodeId(0));
+        assertEquals(1023, PnrGenerator.checkNodeId(1023));
+        assertThrows(IllegalArgumentException.class, () -> PnrGenerator.checkNodeId(1024));
+        assertThrows(IllegalArgumentException.class, () -> PnrGenerator.checkNodeId(-1));
+    }
+
+    @Test
+    void testEncode_PreservesNumericOrder() {
+        assertEquals("0000000000000", PnrGenerator.encode(0));
+        assertEquals("0000000000001", PnrGenerator.encode(1));
+        assertEquals("000000000000Z", PnrGenerator.encode(31));
+        assertEquals("0000000000010", PnrGenerator.encode(32));
+        assertTrue(PnrGenerator.encode(Long.MAX_VALUE).compareTo(PnrGenerator.encode(Long.MAX_VALUE - 1)) > 0);
+    }
+
+    @Test
+    void testNextPnr_UniqueAcrossThreads() throws InterruptedException {
+        int threads = 8;
+        int perThread = 5000;
+        Set<String> pnrs = ConcurrentHashMap.newKeySet();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        for (int t = 0; t < threads; t++) {
+            executor.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                for (int i = 0; i < perThread; i++) {
+                    pnrs.add(PnrGenerator.nextPnr());
+                }
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+
+        assertEquals(threads * perThread, pnrs.size());
+    }
+}
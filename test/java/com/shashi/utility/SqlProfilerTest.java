@@ -0,0 +1,95 @@
+package test.java.com.shashi.utility;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.shashi.utility.SqlProfiler;
+
+class SqlProfilerTest {
+
+    @BeforeEach
+    void setUp() {
+        SqlProfiler.reset();
+    }
+
+    @Test
+    void testShapeReplacesLiteralsAndInLists() {
+        assertEquals("SELECT * FROM TRAIN WHERE TR_NO=? AND TR_NAME=?",
+                SqlProfiler.shape("SELECT *  FROM TRAIN\n WHERE TR_NO=10001 AND TR_NAME='JODHPUR EXP'"));
+        assertEquals("SELECT * FROM TRAIN WHERE TR_NO IN (?...)",
+                SqlProfiler.shape("SELECT * FROM TRAIN WHERE TR_NO IN (?, ?,?)"));
+    }
+
+    @Test
+    void testPasswordBindsAreRedacted() {
+        Map<Integer, Object> binds = new HashMap<Integer, Object>();
+        binds.put(1, "shashi@demo.com");
+        binds.put(2, "secret");
+
+        assertEquals("['shashi@demo.com', ***]",
+                SqlProfiler.describeBinds("SELECT * FROM CUSTOMER WHERE MAILID=? AND PWORD=?", binds));
+        assertEquals("[***, ***]", SqlProfiler.describeBinds("INSERT INTO CUSTOMER VALUES(?,?)", binds));
+        assertEquals("['shashi@demo.com', ***]",
+                SqlProfiler.describeBinds("INSERT INTO ADMIN(MAILID, PWORD) VALUES(?,?)", binds));
+        assertEquals("['shashi@demo.com', 'secret']",
+                SqlProfiler.describeBinds("SELECT * FROM HISTORY WHERE MAILID=? AND TRANSID=?", binds));
+    }
+
+    @Test
+    void testQueryRowsAndRoundTripsPerShape() throws SQLException {
+        Connection con = mock(Connection.class);
+        PreparedStatement ps = mock(PreparedStatement.class);
+        ResultSet rs = mock(ResultSet.class);
+        String sql = "SELECT * FROM TRAIN WHERE FROM_STN=?";
+        when(con.prepareStatement(sql)).thenReturn(ps);
+        when(ps.executeQuery()).thenReturn(rs);
+        when(rs.getFetchSize()).thenReturn(10);
+        Boolean[] rows = new Boolean[25];
+        java.util.Arrays.fill(rows, true);
+        rows[24] = false;
+        when(rs.next()).thenReturn(true, rows);
+
+        PreparedStatement profiled = SqlProfiler.wrap(con).prepareStatement(sql);
+        profiled.setString(1, "HOWRAH");
+        ResultSet results = profiled.executeQuery();
+        while (results.next()) {
+            // read every row like the services do
+        }
+        profiled.close();
+
+        List<SqlProfiler.ShapeStats> top = SqlProfiler.top(5);
+        assertEquals(1, top.size());
+        assertEquals(sql, top.get(0).getShape());
+        assertEquals(1, top.get(0).getExecutions());
+        assertEquals(25, top.get(0).getRows());
+        assertEquals(3, top.get(0).getRoundTrips());
+        verify(ps).setString(1, "HOWRAH");
+        verify(ps).close();
+    }
+
+    @Test
+    void testFailedExecutionIsCounted() throws SQLException {
+        Connection con = mock(Connection.class);
+        PreparedStatement ps = mock(PreparedStatement.class);
+        String sql = "UPDATE TRAIN SET SEATS=? WHERE TR_NO=?";
+        when(con.prepareStatement(sql)).thenReturn(ps);
+        when(ps.executeUpdate()).thenThrow(new SQLException("ORA-00054"));
+
+        PreparedStatement profiled = SqlProfiler.wrap(con).prepareStatement(sql);
+
+        SQLException e = assertThrows(SQLException.class, profiled::executeUpdate);
+        assertEquals("ORA-00054", e.getMessage());
+        assertEquals(1, SqlProfiler.top(1).get(0).getErrors());
+    }
+}
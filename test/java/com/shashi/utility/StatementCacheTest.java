@@ -0,0 +1,95 @@
+package test.java.com.shashi.utility;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.shashi.utility.StatementCache;
+
+class StatementCacheTest {
+
+    private static final String BY_ID = "SELECT * FROM TRAIN WHERE TR_NO=?";
+    private static final String ALL = "SELECT * FROM TRAIN";
+
+    private Connection physical;
+
+    // statements prepared on the physical connection, in order
+    private List<PreparedStatement> prepared;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        physical = mock(Connection.class);
+        prepared = new ArrayList<PreparedStatement>();
+        when(physical.prepareStatement(anyString())).thenAnswer(invocation -> {
+            PreparedStatement statement = mock(PreparedStatement.class);
+            prepared.add(statement);
+            return statement;
+        });
+    }
+
+    @Test
+    void testClosedStatementIsReusedWithClearedParameters() throws SQLException {
+        Connection con = StatementCache.wrap(physical, 10);
+        long hits = StatementCache.getHitCount();
+
+        PreparedStatement first = con.prepareStatement(BY_ID);
+        first.setLong(1, 10001L);
+        first.close();
+        assertTrue(first.isClosed());
+        assertThrows(SQLException.class, () -> first.setLong(1, 10002L));
+
+        PreparedStatement second = con.prepareStatement(BY_ID);
+        second.setLong(1, 10002L);
+        assertFalse(second.isClosed());
+        assertSame(con, second.getConnection());
+
+        verify(physical, times(1)).prepareStatement(BY_ID);
+        assertEquals(hits + 1, StatementCache.getHitCount());
+        assertEquals(1, prepared.size());
+        verify(prepared.get(0)).clearParameters();
+        verify(prepared.get(0), never()).close();
+    }
+
+    @Test
+    void testStatementInUseIsNotSharedAndOneIsKept() throws SQLException {
+        Connection con = StatementCache.wrap(physical, 10);
+
+        PreparedStatement first = con.prepareStatement(BY_ID);
+        PreparedStatement second = con.prepareStatement(BY_ID);
+        assertEquals(2, prepared.size());
+
+        first.close();
+        second.close();
+        verify(prepared.get(0)).close();
+        verify(prepared.get(1), never()).close();
+    }
+
+    @Test
+    void testLeastRecentlyUsedIsClosedOnEviction() throws SQLException {
+        Connection con = StatementCache.wrap(physical, 1);
+        long evictions = StatementCache.getEvictionCount();
+
+        con.prepareStatement(BY_ID).close();
+        con.prepareStatement(ALL).close();
+
+        verify(prepared.get(0)).close();
+        assertEquals(evictions + 1, StatementCache.getEvictionCount());
+
+        con.close();
+        verify(prepared.get(1)).close();
+        verify(physical).close();
+    }
+
+    @Test
+    void testSizeZeroLeavesTheConnectionAlone() {
+        assertSame(physical, StatementCache.wrap(physical, 0));
+    }
+}